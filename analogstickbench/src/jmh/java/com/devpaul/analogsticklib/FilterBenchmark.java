@@ -0,0 +1,89 @@
+package com.devpaul.analogsticklib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the smoothing filters over a noisy synthetic touch stream with uneven sample spacing.
+ * Every benchmark counts one operation per sample so the average time is in ns/sample and the gc
+ * profiler's gc.alloc.rate.norm is in bytes/sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FilterBenchmark {
+
+    static final int SAMPLES = 1 << 16;
+
+    float[] x;
+    float[] y;
+    long[] times;
+
+    EmaFilter ema;
+    OneEuroFilter oneEuro;
+    KalmanFilter kalman;
+    FilterChain chain;
+
+    @Setup
+    public void setup() {
+        //a circular gesture with touch noise, sampled every 4 to 11 ms.
+        Random random = new Random(42);
+        x = new float[SAMPLES];
+        y = new float[SAMPLES];
+        times = new long[SAMPLES];
+        long time = 0;
+        for(int i = 0; i < SAMPLES; i++) {
+            time += 4 + random.nextInt(8);
+            times[i] = time;
+            x[i] = (float) (0.8 * Math.cos(time / 300.0) + random.nextGaussian() * 0.02);
+            y[i] = (float) (0.8 * Math.sin(time / 300.0) + random.nextGaussian() * 0.02);
+        }
+        ema = new EmaFilter(20);
+        oneEuro = new OneEuroFilter();
+        kalman = new KalmanFilter();
+        chain = new FilterChain(new OneEuroFilter(), new EmaFilter(5));
+    }
+
+    private void run(StickFilter filter, Blackhole blackhole) {
+        filter.reset();
+        for(int i = 0; i < SAMPLES; i++) {
+            filter.filter(x[i], y[i], times[i]);
+            blackhole.consume(filter.getX());
+            blackhole.consume(filter.getY());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void ema(Blackhole blackhole) {
+        run(ema, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void oneEuro(Blackhole blackhole) {
+        run(oneEuro, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void kalman(Blackhole blackhole) {
+        run(kalman, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void oneEuroThenEma(Blackhole blackhole) {
+        run(chain, blackhole);
+    }
+}
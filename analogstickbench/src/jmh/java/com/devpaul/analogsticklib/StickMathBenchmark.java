@@ -0,0 +1,149 @@
+package com.devpaul.analogsticklib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the stick geometry over a large batch of synthetic touch points. Every benchmark
+ * counts one operation per sample so the average time is in ns/sample and the gc profiler's
+ * gc.alloc.rate.norm is in bytes/sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StickMathBenchmark {
+
+    /**
+     * Number of synthetic touch points per invocation.
+     */
+    static final int SAMPLES = 1 << 20;
+
+    /**
+     * Size of the simulated view.
+     */
+    static final int SIZE = 500;
+
+    float cx;
+    float cy;
+    int maxRadius;
+    int[] touchX;
+    int[] touchY;
+    float[] vecX;
+    float[] vecY;
+    float[] angles;
+    AnalogState state;
+
+    @Setup
+    public void setup() {
+        //same geometry as AnalogStick.onSizeChanged
+        cx = SIZE / 2;
+        cy = SIZE / 2;
+        int innerRadius = (int) (SIZE / 2 * 0.25);
+        int outerRadius = (int) (SIZE / 2 * 0.75);
+        maxRadius = outerRadius - (int) (innerRadius * 0.65);
+
+        //touch points all over the view so both the clamped and unclamped paths are taken.
+        Random random = new Random(42);
+        touchX = new int[SAMPLES];
+        touchY = new int[SAMPLES];
+        vecX = new float[SAMPLES];
+        vecY = new float[SAMPLES];
+        angles = new float[SAMPLES];
+        for(int i = 0; i < SAMPLES; i++) {
+            touchX[i] = random.nextInt(SIZE);
+            touchY[i] = random.nextInt(SIZE);
+            vecX[i] = touchX[i] - cx;
+            vecY[i] = touchY[i] - cy;
+            angles[i] = StickMath.angle(vecX[i], vecY[i]);
+        }
+        state = new AnalogState();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void moveStick(Blackhole blackhole) {
+        AnalogState out = state;
+        for(int i = 0; i < SAMPLES; i++) {
+            StickMath.moveStick(touchX[i], touchY[i], cx, cy, maxRadius, 30f, 30f, i, out);
+            blackhole.consume(out.scaledX);
+            blackhole.consume(out.scaledY);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(SAMPLES)
+    public void moveStickThroughput(Blackhole blackhole) {
+        moveStick(blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void moveStickFast(Blackhole blackhole) {
+        AnalogState out = state;
+        for(int i = 0; i < SAMPLES; i++) {
+            StickMath.moveStickFast(touchX[i], touchY[i], cx, cy, maxRadius, 30f, 30f, i, out);
+            blackhole.consume(out.scaledX);
+            blackhole.consume(out.scaledY);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(SAMPLES)
+    public void moveStickFastThroughput(Blackhole blackhole) {
+        moveStickFast(blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void angle(Blackhole blackhole) {
+        for(int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(StickMath.angle(vecX[i], vecY[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void fastAngle(Blackhole blackhole) {
+        for(int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(StickMath.fastAngle(vecX[i], vecY[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void magnitude(Blackhole blackhole) {
+        for(int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(StickMath.magnitude((int) vecX[i], (int) vecY[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void quadrant(Blackhole blackhole) {
+        for(int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(StickMath.quadrant(angles[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void signQuadrant(Blackhole blackhole) {
+        for(int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(StickMath.quadrant(vecX[i], vecY[i]));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.devpaul.analogsticklib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the wire encoder and decoder, in memory and through an in process {@link Pipe}.
+ * Every benchmark counts one operation per sample, so the average time is in ns/sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireBenchmark {
+
+    static final int SAMPLES = 1 << 14;
+
+    static final int SAMPLES_PER_PACKET = 32;
+
+    float[] x;
+    float[] y;
+    long[] times;
+
+    StickWireEncoder encoder;
+    StickWireDecoder decoder;
+    AnalogSampleBatch batch;
+    ByteBuffer buffer;
+    ByteBuffer receiveBuffer;
+    Pipe pipe;
+
+    @Setup
+    public void setup() throws IOException {
+        //a noisy circular gesture sampled every 4 to 11 ms.
+        Random random = new Random(42);
+        x = new float[SAMPLES];
+        y = new float[SAMPLES];
+        times = new long[SAMPLES];
+        long time = 0;
+        for(int i = 0; i < SAMPLES; i++) {
+            time += 4 + random.nextInt(8);
+            times[i] = time;
+            x[i] = (float) (0.8 * Math.cos(time / 300.0) + random.nextGaussian() * 0.005);
+            y[i] = (float) (0.8 * Math.sin(time / 300.0) + random.nextGaussian() * 0.005);
+        }
+        encoder = new StickWireEncoder(10, 250, SAMPLES_PER_PACKET);
+        decoder = new StickWireDecoder();
+        batch = new AnalogSampleBatch(SAMPLES_PER_PACKET);
+        buffer = ByteBuffer.allocateDirect(encoder.getMaxPacketSize());
+        receiveBuffer = ByteBuffer.allocateDirect(encoder.getMaxPacketSize());
+        pipe = Pipe.open();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pipe.sink().close();
+        pipe.source().close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int encode() {
+        encoder.reset();
+        int bytes = 0;
+        for(int i = 0; i < SAMPLES; i++) {
+            encoder.add(x[i], y[i], true, times[i]);
+            if(encoder.isFull()) {
+                buffer.clear();
+                bytes += encoder.flush(buffer);
+            }
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int encodeDecode() {
+        encoder.reset();
+        decoder.reset();
+        int decoded = 0;
+        for(int i = 0; i < SAMPLES; i++) {
+            encoder.add(x[i], y[i], true, times[i]);
+            if(encoder.isFull()) {
+                buffer.clear();
+                encoder.flush(buffer);
+                buffer.flip();
+                decoded += decoder.decode(buffer, batch);
+            }
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int pipeRoundTrip() throws IOException {
+        encoder.reset();
+        decoder.reset();
+        int decoded = 0;
+        for(int i = 0; i < SAMPLES; i++) {
+            encoder.add(x[i], y[i], true, times[i]);
+            if(encoder.isFull()) {
+                buffer.clear();
+                int bytes = encoder.flush(buffer);
+                buffer.flip();
+                while(buffer.hasRemaining()) {
+                    pipe.sink().write(buffer);
+                }
+                receiveBuffer.clear();
+                receiveBuffer.limit(bytes);
+                while(receiveBuffer.hasRemaining()) {
+                    pipe.source().read(receiveBuffer);
+                }
+                receiveBuffer.flip();
+                decoded += decoder.decode(receiveBuffer, batch);
+            }
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,98 @@
+package com.devpaul.analogsticklib;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Compares the frame time of {@link AnalogStick} with and without cached rendering by dragging the
+ * stick in a circle and drawing it after every move. Each frame is drawn into a software canvas
+ * clipped to the area the move invalidated, like a software rendered window redraws it, so the
+ * cached mode is measured with its partial invalidation.
+ * <p>
+ * Hardware accelerated windows ignore the dirty rect from API 21 on and redraw the whole view, so
+ * this only shows what cached rendering saves in software rendering. Measure frames in a real
+ * window with gfxinfo for the hardware accelerated case.
+ * <p>
+ * Both frame times are logged and reported as instrumentation status, so they show up in the
+ * output of am instrument -r.
+ */
+public class AnalogStickDrawBenchmark extends InstrumentationTestCase {
+
+    private static final String TAG = "AnalogStickBenchmark";
+    private static final int SIZE = 600;
+    private static final int WARMUP_FRAMES = 200;
+    private static final int FRAMES = 2000;
+
+    public void testFrameTime() {
+        Rect area = new Rect();
+        long plain = measureFrameTime(false, area);
+        long plainArea = (long) area.width() * area.height();
+        long cached = measureFrameTime(true, area);
+        long cachedArea = (long) area.width() * area.height();
+        Log.i(TAG, "Frame time without cached rendering: " + plain + " ns, redrawn area "
+                + plainArea + " px");
+        Log.i(TAG, "Frame time with cached rendering: " + cached + " ns, redrawn area "
+                + cachedArea + " px");
+
+        Bundle results = new Bundle();
+        results.putLong("plain_frame_ns", plain);
+        results.putLong("plain_redrawn_px", plainArea);
+        results.putLong("cached_frame_ns", cached);
+        results.putLong("cached_redrawn_px", cachedArea);
+        getInstrumentation().sendStatus(0, results);
+        //partial invalidation never redraws more than the whole view.
+        assertTrue(cachedArea <= plainArea);
+    }
+
+    /**
+     * Drags the stick in a circle and returns the average time to move and draw one frame.
+     * @param cachedRendering whether to enable cached rendering.
+     * @param area set to the area redrawn by the last frame.
+     * @return the average frame time in nanoseconds.
+     */
+    private long measureFrameTime(boolean cachedRendering, Rect area) {
+        AnalogStick stick = new AnalogStick(getInstrumentation().getTargetContext());
+        stick.setCachedRenderingEnabled(cachedRendering);
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        stick.measure(spec, spec);
+        stick.layout(0, 0, SIZE, SIZE);
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        //the first frame draws everything.
+        stick.draw(canvas);
+
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN,
+                SIZE / 2, SIZE / 2, 0);
+        stick.onTouchEvent(event);
+        event.setAction(MotionEvent.ACTION_MOVE);
+
+        long start = 0;
+        for(int i = 0; i < WARMUP_FRAMES + FRAMES; i++) {
+            if(i == WARMUP_FRAMES) {
+                start = System.nanoTime();
+            }
+            double angle = i * 0.05;
+            event.setLocation((float) (SIZE / 2 + Math.cos(angle) * SIZE / 4),
+                    (float) (SIZE / 2 + Math.sin(angle) * SIZE / 4));
+            stick.onTouchEvent(event);
+            //only redraw what the move invalidated.
+            stick.getInvalidatedArea(area);
+            int save = canvas.save();
+            canvas.clipRect(area);
+            stick.draw(canvas);
+            canvas.restoreToCount(save);
+        }
+        long frameTime = (System.nanoTime() - start) / FRAMES;
+        event.recycle();
+        bitmap.recycle();
+        return frameTime;
+    }
+}
@@ -0,0 +1,76 @@
+package com.devpaul.analogsticklib;
+
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * Measures what a screen full of sticks costs at startup: creating, measuring and laying out each
+ * stick, and separately the first release, which is where the recenter animator is now built.
+ */
+public class AnalogStickInflationBenchmark extends AndroidTestCase {
+
+    private static final String TAG = "AnalogStickBenchmark";
+    private static final int SIZE = 200;
+    private static final int STICKS = 48;
+    private static final int WARMUP_SCREENS = 20;
+    private static final int SCREENS = 100;
+
+    public void testInflationTime() {
+        long perStick = 0;
+        for(int i = 0; i < WARMUP_SCREENS + SCREENS; i++) {
+            long time = inflateScreen();
+            if(i >= WARMUP_SCREENS) {
+                perStick += time;
+            }
+        }
+        perStick /= (long) SCREENS * STICKS;
+        Log.i(TAG, "Inflation time per stick: " + perStick + " ns");
+        Log.i(TAG, "First release per stick: " + measureFirstRelease() + " ns");
+    }
+
+    /**
+     * Creates a screen of sticks styled by the theme and lays them out.
+     * @return the total time in nanoseconds.
+     */
+    private long inflateScreen() {
+        FrameLayout screen = new FrameLayout(getContext());
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        long start = System.nanoTime();
+        for(int i = 0; i < STICKS; i++) {
+            AnalogStick stick = new AnalogStick(getContext(), null, R.attr.analogStickStyle);
+            screen.addView(stick, SIZE, SIZE);
+            stick.measure(spec, spec);
+            stick.layout(0, 0, SIZE, SIZE);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Presses and lets go of fresh sticks.
+     * @return the average time of the first release in nanoseconds.
+     */
+    private long measureFirstRelease() {
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN,
+                SIZE / 2, SIZE / 2, 0);
+        long total = 0;
+        for(int i = 0; i < STICKS; i++) {
+            AnalogStick stick = new AnalogStick(getContext());
+            stick.measure(spec, spec);
+            stick.layout(0, 0, SIZE, SIZE);
+            event.setAction(MotionEvent.ACTION_DOWN);
+            stick.onTouchEvent(event);
+            event.setAction(MotionEvent.ACTION_UP);
+            long start = System.nanoTime();
+            stick.onTouchEvent(event);
+            total += System.nanoTime() - start;
+        }
+        event.recycle();
+        return total / STICKS;
+    }
+}
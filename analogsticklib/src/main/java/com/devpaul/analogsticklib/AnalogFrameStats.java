@@ -0,0 +1,121 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Summary of all the samples that were coalesced into a single frame when frame coalescing is
+ * enabled, see {@link AnalogStick#setFrameCoalescingEnabled(boolean)}. Positions are normalized like
+ * {@link AnalogState#getNormalizedX()}.
+ */
+public final class AnalogFrameStats {
+
+    int sampleCount;
+    float minX;
+    float maxX;
+    float minY;
+    float maxY;
+    float accumulatedDeltaX;
+    float accumulatedDeltaY;
+    long firstEventTime;
+    long lastEventTime;
+
+    /**
+     * Returns the number of samples in the frame.
+     * @return the sample count.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return the smallest normalized x value in the frame.
+     */
+    public float getMinX() {
+        return minX;
+    }
+
+    /**
+     * @return the largest normalized x value in the frame.
+     */
+    public float getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * @return the smallest normalized y value in the frame.
+     */
+    public float getMinY() {
+        return minY;
+    }
+
+    /**
+     * @return the largest normalized y value in the frame.
+     */
+    public float getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Returns the total distance travelled along the x axis in the frame, counting movement in
+     * both directions.
+     * @return the sum of the absolute normalized x deltas.
+     */
+    public float getAccumulatedDeltaX() {
+        return accumulatedDeltaX;
+    }
+
+    /**
+     * Returns the total distance travelled along the y axis in the frame, counting movement in
+     * both directions.
+     * @return the sum of the absolute normalized y deltas.
+     */
+    public float getAccumulatedDeltaY() {
+        return accumulatedDeltaY;
+    }
+
+    /**
+     * @return the time of the first sample in the frame.
+     */
+    public long getFirstEventTime() {
+        return firstEventTime;
+    }
+
+    /**
+     * @return the time of the last sample in the frame.
+     */
+    public long getLastEventTime() {
+        return lastEventTime;
+    }
+
+    /**
+     * Adds a sample to the frame.
+     * @param x the normalized x position of the sample.
+     * @param y the normalized y position of the sample.
+     * @param eventTime the time of the sample.
+     * @param previousX the normalized x position of the sample before, used for the delta.
+     * @param previousY the normalized y position of the sample before.
+     */
+    void add(float x, float y, long eventTime, float previousX, float previousY) {
+        if(sampleCount == 0) {
+            minX = maxX = x;
+            minY = maxY = y;
+            accumulatedDeltaX = Math.abs(x - previousX);
+            accumulatedDeltaY = Math.abs(y - previousY);
+            firstEventTime = eventTime;
+        } else {
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+            accumulatedDeltaX += Math.abs(x - previousX);
+            accumulatedDeltaY += Math.abs(y - previousY);
+        }
+        lastEventTime = eventTime;
+        sampleCount++;
+    }
+
+    /**
+     * Clears the stats for the next frame.
+     */
+    void reset() {
+        sampleCount = 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Adapts an {@link com.devpaul.analogsticklib.OnAnalogMoveListener} to the single
+ * {@link com.devpaul.analogsticklib.OnAnalogStateListener} callback by calling the matching
+ * method for every changed value. While the stick returns to the center only the scaled values
+ * are forwarded, like the move listener always got them.
+ */
+public class AnalogMoveListenerAdapter implements OnAnalogStateListener {
+
+    /**
+     * The wrapped listener.
+     */
+    private final OnAnalogMoveListener listener;
+
+    /**
+     * Creates a new adapter.
+     * @param listener the listener to forward to.
+     */
+    public AnalogMoveListenerAdapter(OnAnalogMoveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the wrapped listener.
+     * @return the listener.
+     */
+    public OnAnalogMoveListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public void onAnalogStateChanged(AnalogState state) {
+        int changed = state.changedChannels;
+        if(state.recentering) {
+            changed &= AnalogState.CHANNEL_SCALED_X | AnalogState.CHANNEL_SCALED_Y;
+        }
+        if((changed & AnalogState.CHANNEL_SCALED_X) != 0) {
+            listener.onAnalogMovedScaledX(state.scaledX);
+        }
+        if((changed & AnalogState.CHANNEL_SCALED_Y) != 0) {
+            listener.onAnalogMovedScaledY(state.scaledY);
+        }
+        if((changed & AnalogState.CHANNEL_RAW) != 0) {
+            listener.onAnalogMove(state.rawX, state.rawY);
+        }
+        if((changed & AnalogState.CHANNEL_ANGLE) != 0) {
+            listener.onAnalogMovedGetAngle(state.angle);
+        }
+        if((changed & AnalogState.CHANNEL_QUADRANT) != 0 && state.quadrant != null) {
+            listener.onAnalogMovedGetQuadrant(state.quadrant);
+        }
+    }
+}
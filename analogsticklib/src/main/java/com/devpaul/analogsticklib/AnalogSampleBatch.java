@@ -0,0 +1,151 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * A reusable block of samples drained from an {@link AnalogSampleRing}. Each field is stored in its
+ * own primitive array and only the first {@link #getCount()} entries are valid.
+ */
+public class AnalogSampleBatch {
+
+    private static final Quadrant[] QUADRANTS = Quadrant.values();
+
+    final int capacity;
+    final long[] eventTime;
+    final float[] rawX;
+    final float[] rawY;
+    final float[] normalizedX;
+    final float[] normalizedY;
+    final float[] scaledX;
+    final float[] scaledY;
+    final float[] angle;
+    final byte[] quadrant;
+    final boolean[] pressed;
+
+    /**
+     * Number of valid samples.
+     */
+    int count;
+
+    /**
+     * Number of samples dropped before this batch.
+     */
+    long dropped;
+
+    /**
+     * Creates a new batch.
+     * @param capacity the maximum number of samples drained at once.
+     */
+    public AnalogSampleBatch(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        eventTime = new long[capacity];
+        rawX = new float[capacity];
+        rawY = new float[capacity];
+        normalizedX = new float[capacity];
+        normalizedY = new float[capacity];
+        scaledX = new float[capacity];
+        scaledY = new float[capacity];
+        angle = new float[capacity];
+        quadrant = new byte[capacity];
+        pressed = new boolean[capacity];
+    }
+
+    /**
+     * Returns the maximum number of samples this batch can hold.
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of valid samples.
+     * @return the count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns how many samples were dropped since the previous batch. Only reported when the ring
+     * uses {@link AnalogSampleRing.OverflowPolicy#COUNT_AND_REPORT}.
+     * @return the number of dropped samples.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the event times, see {@link AnalogState#getEventTime()}.
+     */
+    public long[] getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * @return the raw x values, see {@link AnalogState#getRawX()}.
+     */
+    public float[] getRawX() {
+        return rawX;
+    }
+
+    /**
+     * @return the raw y values, see {@link AnalogState#getRawY()}.
+     */
+    public float[] getRawY() {
+        return rawY;
+    }
+
+    /**
+     * @return the normalized x values, see {@link AnalogState#getNormalizedX()}.
+     */
+    public float[] getNormalizedX() {
+        return normalizedX;
+    }
+
+    /**
+     * @return the normalized y values, see {@link AnalogState#getNormalizedY()}.
+     */
+    public float[] getNormalizedY() {
+        return normalizedY;
+    }
+
+    /**
+     * @return the scaled x values, see {@link AnalogState#getScaledX()}.
+     */
+    public float[] getScaledX() {
+        return scaledX;
+    }
+
+    /**
+     * @return the scaled y values, see {@link AnalogState#getScaledY()}.
+     */
+    public float[] getScaledY() {
+        return scaledY;
+    }
+
+    /**
+     * @return the angles, see {@link AnalogState#getAngle()}.
+     */
+    public float[] getAngle() {
+        return angle;
+    }
+
+    /**
+     * @return the pressed flags, see {@link AnalogState#isPressed()}.
+     */
+    public boolean[] getPressed() {
+        return pressed;
+    }
+
+    /**
+     * Returns the quadrant of a sample.
+     * @param index the index of the sample.
+     * @return the quadrant, or null if the stick had not moved yet.
+     */
+    public Quadrant getQuadrant(int index) {
+        int ordinal = quadrant[index];
+        return ordinal >= 0 ? QUADRANTS[ordinal] : null;
+    }
+}
@@ -0,0 +1,220 @@
+package com.devpaul.analogsticklib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single producer, single consumer queue of stick samples. The stick writes every
+ * processed sample into it from the UI thread without allocating or blocking and a background
+ * thread drains it in bulk with {@link #drain(AnalogSampleBatch)}. Samples are stored as
+ * primitive arrays, one array per field.
+ */
+public class AnalogSampleRing {
+
+    /**
+     * What to do with a sample when the ring is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Overwrite the oldest sample that has not been drained yet.
+         */
+        DROP_OLDEST,
+        /**
+         * Discard the new sample.
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the new sample and report how many were lost in the next drained batch, see
+         * {@link AnalogSampleBatch#getDropped()}.
+         */
+        COUNT_AND_REPORT
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final OverflowPolicy policy;
+
+    private final long[] eventTime;
+    private final float[] rawX;
+    private final float[] rawY;
+    private final float[] normalizedX;
+    private final float[] normalizedY;
+    private final float[] scaledX;
+    private final float[] scaledY;
+    private final float[] angle;
+    private final byte[] quadrant;
+    private final boolean[] pressed;
+
+    /**
+     * Index of the next sample to drain, only moved by the producer when dropping the oldest.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Index of the next sample to write.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Total number of dropped samples.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Dropped samples that have not been reported in a batch yet.
+     */
+    private final AtomicLong unreported = new AtomicLong();
+
+    /**
+     * Creates a new ring.
+     * @param capacity the number of samples the ring can hold, rounded up to a power of two.
+     * @param policy what to do when the ring is full.
+     */
+    public AnalogSampleRing(int capacity, OverflowPolicy policy) {
+        if(capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        if(policy == null) {
+            throw new IllegalArgumentException("Overflow policy cannot be null");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        eventTime = new long[this.capacity];
+        rawX = new float[this.capacity];
+        rawY = new float[this.capacity];
+        normalizedX = new float[this.capacity];
+        normalizedY = new float[this.capacity];
+        scaledX = new float[this.capacity];
+        scaledY = new float[this.capacity];
+        angle = new float[this.capacity];
+        quadrant = new byte[this.capacity];
+        pressed = new boolean[this.capacity];
+    }
+
+    /**
+     * Returns the number of samples the ring can hold.
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the overflow policy.
+     * @return the policy.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of samples dropped because the ring was full.
+     * @return the total number of dropped samples.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of samples waiting to be drained.
+     * @return the number of samples.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Writes a sample into the ring. Must only be called from a single producer thread.
+     * @param state the sample to write.
+     * @param isPressed whether the stick is being held.
+     * @return false if the sample was dropped.
+     */
+    public boolean offer(AnalogState state, boolean isPressed) {
+        long t = tail.get();
+        long h = head.get();
+        if(t - h >= capacity) {
+            if(policy == OverflowPolicy.DROP_OLDEST) {
+                //if this fails the consumer just drained so there is room now.
+                if(head.compareAndSet(h, h + 1)) {
+                    dropped.incrementAndGet();
+                }
+            } else {
+                dropped.incrementAndGet();
+                if(policy == OverflowPolicy.COUNT_AND_REPORT) {
+                    unreported.incrementAndGet();
+                }
+                return false;
+            }
+        }
+        int index = (int) t & mask;
+        eventTime[index] = state.eventTime;
+        rawX[index] = state.rawX;
+        rawY[index] = state.rawY;
+        normalizedX[index] = state.normalizedX;
+        normalizedY[index] = state.normalizedY;
+        scaledX[index] = state.scaledX;
+        scaledY[index] = state.scaledY;
+        angle[index] = state.angle;
+        quadrant[index] = state.quadrant != null ? (byte) state.quadrant.ordinal() : -1;
+        pressed[index] = isPressed;
+        //publish the sample to the consumer.
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Moves as many samples as fit into a batch out of the ring. Must only be called from a single
+     * consumer thread.
+     * @param batch the batch to fill, its previous contents are replaced.
+     * @return the number of samples drained.
+     */
+    public int drain(AnalogSampleBatch batch) {
+        int n;
+        while(true) {
+            long h = head.get();
+            long t = tail.get();
+            n = (int) Math.min(t - h, batch.capacity);
+            copy(h, n, batch);
+            if(policy != OverflowPolicy.DROP_OLDEST) {
+                head.lazySet(h + n);
+                break;
+            }
+            //the producer moves the head before overwriting a sample so if it is unchanged
+            //everything that was copied is still valid.
+            if(head.compareAndSet(h, h + n)) {
+                break;
+            }
+        }
+        batch.count = n;
+        batch.dropped = policy == OverflowPolicy.COUNT_AND_REPORT ? unreported.getAndSet(0) : 0;
+        return n;
+    }
+
+    /**
+     * Copies samples into a batch, splitting the copy where the ring wraps around.
+     * @param from index of the first sample.
+     * @param n the number of samples.
+     * @param batch the batch to copy into.
+     */
+    private void copy(long from, int n, AnalogSampleBatch batch) {
+        int start = (int) from & mask;
+        int first = Math.min(n, capacity - start);
+        copy(start, 0, first, batch);
+        if(first < n) {
+            copy(0, first, n - first, batch);
+        }
+    }
+
+    private void copy(int src, int dst, int length, AnalogSampleBatch batch) {
+        System.arraycopy(eventTime, src, batch.eventTime, dst, length);
+        System.arraycopy(rawX, src, batch.rawX, dst, length);
+        System.arraycopy(rawY, src, batch.rawY, dst, length);
+        System.arraycopy(normalizedX, src, batch.normalizedX, dst, length);
+        System.arraycopy(normalizedY, src, batch.normalizedY, dst, length);
+        System.arraycopy(scaledX, src, batch.scaledX, dst, length);
+        System.arraycopy(scaledY, src, batch.scaledY, dst, length);
+        System.arraycopy(angle, src, batch.angle, dst, length);
+        System.arraycopy(quadrant, src, batch.quadrant, dst, length);
+        System.arraycopy(pressed, src, batch.pressed, dst, length);
+    }
+}
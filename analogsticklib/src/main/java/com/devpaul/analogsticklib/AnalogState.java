@@ -0,0 +1,334 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * A mutable snapshot of everything the analog stick knows about a single sample. One instance is
+ * owned by each {@link com.devpaul.analogsticklib.AnalogStick} and is refilled for every sample, so
+ * listeners must copy out any values they want to keep past the callback.
+ */
+public final class AnalogState {
+
+    /**
+     * Channel flag set when the raw coordinates changed.
+     */
+    public static final int CHANNEL_RAW = 1;
+
+    /**
+     * Channel flag set when the scaled x value changed.
+     */
+    public static final int CHANNEL_SCALED_X = 1 << 1;
+
+    /**
+     * Channel flag set when the scaled y value changed.
+     */
+    public static final int CHANNEL_SCALED_Y = 1 << 2;
+
+    /**
+     * Channel flag set when the angle changed.
+     */
+    public static final int CHANNEL_ANGLE = 1 << 3;
+
+    /**
+     * Channel flag set whenever the quadrant was computed, also when it is the same as in the last
+     * sample. Use {@link EmissionPolicy#setQuadrantOnChange(boolean)} to only hear about changes.
+     */
+    public static final int CHANNEL_QUADRANT = 1 << 4;
+
+    /**
+     * All channels.
+     */
+    public static final int CHANNEL_ALL = CHANNEL_RAW | CHANNEL_SCALED_X | CHANNEL_SCALED_Y
+            | CHANNEL_ANGLE | CHANNEL_QUADRANT;
+
+    /**
+     * Raw x coordinate of the center of the inner circle.
+     */
+    float rawX;
+
+    /**
+     * Raw y coordinate of the center of the inner circle.
+     */
+    float rawY;
+
+    /**
+     * X offset from the center divided by the maximum radius, in [-1, 1].
+     */
+    float normalizedX;
+
+    /**
+     * Y offset from the center divided by the maximum radius, in [-1, 1]. Positive is up.
+     */
+    float normalizedY;
+
+    /**
+     * Predicted normalized x position, the same as {@link #normalizedX} without a predictor.
+     */
+    float predictedX;
+
+    /**
+     * Predicted normalized y position, the same as {@link #normalizedY} without a predictor.
+     */
+    float predictedY;
+
+    /**
+     * Scaled x value.
+     */
+    float scaledX;
+
+    /**
+     * Scaled y value.
+     */
+    float scaledY;
+
+    /**
+     * Angle in degrees.
+     */
+    float angle;
+
+    /**
+     * Distance of the inner circle from the center.
+     */
+    float magnitude;
+
+    /**
+     * Current quadrant.
+     */
+    Quadrant quadrant;
+
+    /**
+     * Fixed point x axis, only set with a {@link FixedPointFormat}.
+     */
+    int fixedX;
+
+    /**
+     * Fixed point y axis, only set with a {@link FixedPointFormat}.
+     */
+    int fixedY;
+
+    /**
+     * Fixed point angle, only set with a {@link FixedPointFormat}.
+     */
+    int fixedAngle;
+
+    /**
+     * Time of the sample in the {@link android.os.SystemClock#uptimeMillis()} time base.
+     */
+    long eventTime;
+
+    /**
+     * Bit set of CHANNEL_* flags that were updated by this sample.
+     */
+    int changedChannels;
+
+    /**
+     * Whether the stick is being held.
+     */
+    boolean pressed;
+
+    /**
+     * Whether this sample is a step of the return to the center after the stick was let go.
+     */
+    boolean recentering;
+
+    /**
+     * Number of times the state has been published, only set by {@link AnalogStick#readState(AnalogState)}.
+     */
+    long sequence;
+
+    /**
+     * Returns the raw x coordinate of the center of the inner circle.
+     * @return the x coordinate.
+     */
+    public float getRawX() {
+        return rawX;
+    }
+
+    /**
+     * Returns the raw y coordinate of the center of the inner circle.
+     * @return the y coordinate.
+     */
+    public float getRawY() {
+        return rawY;
+    }
+
+    /**
+     * Returns the x offset of the stick from the center as a fraction of the maximum radius.
+     * @return a value in [-1, 1], positive to the right.
+     */
+    public float getNormalizedX() {
+        return normalizedX;
+    }
+
+    /**
+     * Returns the y offset of the stick from the center as a fraction of the maximum radius.
+     * @return a value in [-1, 1], positive up.
+     */
+    public float getNormalizedY() {
+        return normalizedY;
+    }
+
+    /**
+     * Returns where the touch predictor expects the stick to be, see
+     * {@link AnalogStickCore#setPredictor(TouchPredictor)}. Without a predictor this is the same as
+     * {@link #getNormalizedX()}.
+     * @return the predicted normalized x position.
+     */
+    public float getPredictedX() {
+        return predictedX;
+    }
+
+    /**
+     * Returns where the touch predictor expects the stick to be. Without a predictor this is the
+     * same as {@link #getNormalizedY()}.
+     * @return the predicted normalized y position, positive up.
+     */
+    public float getPredictedY() {
+        return predictedY;
+    }
+
+    /**
+     * Returns the scaled x value. Only meaningful when a max x value has been set.
+     * @return the scaled x value.
+     */
+    public float getScaledX() {
+        return scaledX;
+    }
+
+    /**
+     * Returns the scaled y value. Only meaningful when a max y value has been set.
+     * @return the scaled y value.
+     */
+    public float getScaledY() {
+        return scaledY;
+    }
+
+    /**
+     * Returns the angle of the stick, see {@link AnalogStick#getAngle(float, float)}.
+     * @return the angle in degrees.
+     */
+    public float getAngle() {
+        return angle;
+    }
+
+    /**
+     * Returns the distance of the inner circle from the center of the view.
+     * @return the magnitude in pixels.
+     */
+    public float getMagnitude() {
+        return magnitude;
+    }
+
+    /**
+     * Returns the quadrant the stick is in.
+     * @return the quadrant, or null if the stick has not moved yet.
+     */
+    public Quadrant getQuadrant() {
+        return quadrant;
+    }
+
+    /**
+     * Returns the x axis as a fixed point integer. Only set when the stick has a
+     * {@link FixedPointFormat}, see {@link AnalogStickCore#setFixedPointFormat(FixedPointFormat)}.
+     * @return the x axis, from -axisRange to axisRange, positive to the right.
+     */
+    public int getFixedX() {
+        return fixedX;
+    }
+
+    /**
+     * Returns the y axis as a fixed point integer. Only set when the stick has a
+     * {@link FixedPointFormat}.
+     * @return the y axis, from -axisRange to axisRange, positive up.
+     */
+    public int getFixedY() {
+        return fixedY;
+    }
+
+    /**
+     * Returns the angle as a fixed point integer. Only set when the stick has a
+     * {@link FixedPointFormat}.
+     * @return the angle in the units of the format.
+     */
+    public int getFixedAngle() {
+        return fixedAngle;
+    }
+
+    /**
+     * Returns the time of this sample.
+     * @return the time in milliseconds, in the {@link android.os.SystemClock#uptimeMillis()} time
+     * base.
+     */
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * Returns which values were updated by this sample.
+     * @return a bit set of the CHANNEL_* flags.
+     */
+    public int getChangedChannels() {
+        return changedChannels;
+    }
+
+    /**
+     * Checks if a channel was updated by this sample.
+     * @param channel one of the CHANNEL_* flags.
+     * @return true if the channel was updated.
+     */
+    public boolean hasChanged(int channel) {
+        return (changedChannels & channel) != 0;
+    }
+
+    /**
+     * Returns whether the stick is being held. Only set for states read with
+     * {@link AnalogStick#readState(AnalogState)}.
+     * @return true if the stick is pressed.
+     */
+    public boolean isPressed() {
+        return pressed;
+    }
+
+    /**
+     * Returns whether this state is a step of the return to the center after the stick was let
+     * go, rather than a sample of the input.
+     * @return true while recentering.
+     */
+    public boolean isRecentering() {
+        return recentering;
+    }
+
+    /**
+     * Returns the sequence number of this state. It goes up every time the stick publishes a new
+     * state so readers can tell if anything changed. Only set for states read with
+     * {@link AnalogStick#readState(AnalogState)}.
+     * @return the sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Copies all the values of another state into this one.
+     * @param other the state to copy.
+     */
+    public void set(AnalogState other) {
+        rawX = other.rawX;
+        rawY = other.rawY;
+        normalizedX = other.normalizedX;
+        normalizedY = other.normalizedY;
+        predictedX = other.predictedX;
+        predictedY = other.predictedY;
+        scaledX = other.scaledX;
+        scaledY = other.scaledY;
+        angle = other.angle;
+        magnitude = other.magnitude;
+        quadrant = other.quadrant;
+        fixedX = other.fixedX;
+        fixedY = other.fixedY;
+        fixedAngle = other.fixedAngle;
+        eventTime = other.eventTime;
+        changedChannels = other.changedChannels;
+        pressed = other.pressed;
+        recentering = other.recentering;
+        sequence = other.sequence;
+    }
+}
@@ -1,15 +1,21 @@
 package com.devpaul.analogsticklib;
 
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.view.InputDevice;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created by Paul Tsouchlos
  * This is a custom analog for this application that only works in the y direction.
@@ -18,10 +24,11 @@ import android.view.View;
 public class AnalogStick extends View {
 
     public static final int DEFAULT_DIAMETER = 200;
+
     /**
-     * Boolean for if the inner circle is touched.
+     * Input handling and geometry of the stick.
      */
-    private boolean innerTouched;
+    private final AnalogStickCore core = new AnalogStickCore();
 
     /**
      * Outside circle for analog stick paint.
@@ -44,66 +51,99 @@ public class AnalogStick extends View {
     private int outerColor;
 
     /**
-     * Center x coordinate of analog stick.
+     * Hands the state to the listeners and schedules the redraws.
      */
-    private float cx;
+    private final StickDispatcher dispatcher = new StickDispatcher(core,
+            new StickDispatcher.Host() {
+                @Override
+                public void postDelayed(Runnable action, long delayMillis) {
+                    AnalogStick.this.postDelayed(action, delayMillis);
+                }
 
-    /**
-     * Center y coordinate of analog stick.
-     */
-    private float cy;
+                @Override
+                public void postOnAnimation(Runnable action) {
+                    FramePoster.postOnAnimation(AnalogStick.this, action);
+                }
+
+                @Override
+                public void removeCallbacks(Runnable action) {
+                    AnalogStick.this.removeCallbacks(action);
+                }
+
+                @Override
+                public void invalidateKnob() {
+                    AnalogStick.this.invalidateKnob();
+                }
+
+                @Override
+                public long uptimeMillis() {
+                    return SystemClock.uptimeMillis();
+                }
+            });
 
     /**
-     * Analog move listener.
+     * Told when a frame is drawn.
      */
-    private OnAnalogMoveListener listner;
+    private OnFrameTimingListener frameTimingListener;
 
     /**
-     * The inner radius of the view.
+     * Whether the outer circle is cached and invalidation is limited to the knob.
      */
-    int innerRadius;
+    private boolean cachedRendering;
 
     /**
-     * The outer radius of the view.
+     * Bitmap of the outer circle, only as big as the circle. Null when cached rendering is
+     * disabled.
      */
-    int outerRadius;
+    private Bitmap outerCache;
 
     /**
-     * Maximum radius of movement.
+     * Bounds of the knob when it was last drawn.
      */
-    int maxRadius;
+    private final Rect drawnKnob = new Rect();
 
     /**
-     * Current y coordinate of the center of the inner circle.
+     * Area invalidated by the last move, reused for every move.
      */
-    private float innerY;
+    private final Rect dirty = new Rect();
 
     /**
-     * Current x coordinate of the center of the inner circle.
+     * Reusable view of the current touch event.
      */
-    private float innerX;
+    private final MotionEventSource touchSource = new MotionEventSource();
 
     /**
-     * Animator for innerY
+     * Tracks the pointer holding the stick and feeds its moves into the core.
      */
-    private ObjectAnimator yAnimator;
+    private final StickTouchHandler touchHandler = new StickTouchHandler(core,
+            new StickTouchHandler.Callback() {
+                @Override
+                public void onStickMoved() {
+                    dispatchMove();
+                }
+
+                @Override
+                public void onStickReleased(long eventTime) {
+                    returnSticktoCenter(eventTime);
+                }
+            });
 
     /**
-     * Animator for innerX
+     * Feeds the axes of joystick events into the core.
      */
-    private ObjectAnimator xAnimator;
+    private final GamepadInput gamepadInput = new GamepadInput(core);
 
     /**
-     * Current quadrant for the view.
+     * Id of the input device the joystick axis ranges were read from.
      */
-    private Quadrant curQuadrant;
+    private int gamepadDeviceId = -1;
 
     /**
      * Returns the max y value set for this view.
      * @return a float of the max value.
      */
     public float getMaxYValue() {
-        return maxYValue;
+        return core.getMaxYValue();
     }
 
     /**
@@ -113,11 +153,11 @@ public class AnalogStick extends View {
      * @param maxYValue the maximum y value.
      */
     public void setMaxYValue(float maxYValue) {
-        this.maxYValue = maxYValue;
+        core.setMaxYValue(maxYValue);
     }
 
     public float getMaxXValue() {
-        return maxXValue;
+        return core.getMaxXValue();
     }
 
     /**
@@ -126,45 +166,141 @@ public class AnalogStick extends View {
      * @param maxXValue the maximum x value.
      */
     public void setMaxXValue(float maxXValue) {
-        this.maxXValue = maxXValue;
+        core.setMaxXValue(maxXValue);
+    }
+
+    /**
+     * Sets the output stage that shapes the scaled values with dead zones, a saturation zone and
+     * a response curve. Can also be set with the radialDeadZone, axialDeadZone, outerSaturation
+     * and responseExponent attributes.
+     * @param responseCurve the curve, or null for a linear response. See
+     *                      {@link com.devpaul.analogsticklib.ResponseCurve} for more info.
+     */
+    public void setResponseCurve(ResponseCurve responseCurve) {
+        core.setResponseCurve(responseCurve);
+    }
+
+    /**
+     * Returns the output stage for the scaled values.
+     * @return the curve, or null for a linear response.
+     */
+    public ResponseCurve getResponseCurve() {
+        return core.getResponseCurve();
+    }
+
+    /**
+     * Sets a filter that smooths the stick position before the listeners are notified, for
+     * example a {@link OneEuroFilter}, {@link EmaFilter} or {@link KalmanFilter}. Use a
+     * {@link FilterChain} to combine them.
+     * @param filter the filter, or null for none.
+     */
+    public void setFilter(StickFilter filter) {
+        core.setFilter(filter);
+    }
+
+    /**
+     * Returns the smoothing filter.
+     * @return the filter, or null.
+     */
+    public StickFilter getFilter() {
+        return core.getFilter();
+    }
+
+    /**
+     * Sets a predictor that draws the knob ahead of the measured touch to hide the touch
+     * latency. Listeners get the prediction next to the measured position.
+     * @param predictor the predictor, or null for none. See
+     *                  {@link com.devpaul.analogsticklib.TouchPredictor} for more info.
+     */
+    public void setPredictor(TouchPredictor predictor) {
+        core.setPredictor(predictor);
+    }
+
+    /**
+     * Returns the touch predictor.
+     * @return the predictor, or null.
+     */
+    public TouchPredictor getPredictor() {
+        return core.getPredictor();
+    }
+
+    /**
+     * Switches between analog and D-pad mode. In D-pad mode the stick is mapped to 4 or 8
+     * directions with hysteresis, and only presses and releases of directions are reported to the
+     * {@link OnDirectionListener}. The analog listeners are not called.
+     * @param directions 4 or 8 for D-pad mode, 0 for analog mode.
+     */
+    public void setDirectionMode(int directions) {
+        if(directions == 0) {
+            core.setDirectionClassifier(null);
+        } else if(core.getDirectionClassifier() != null) {
+            core.getDirectionClassifier().setDirections(directions);
+        } else {
+            core.setDirectionClassifier(new DirectionClassifier(directions));
+        }
+    }
+
+    /**
+     * Returns the number of directions in D-pad mode.
+     * @return 4 or 8, or 0 in analog mode.
+     */
+    public int getDirectionMode() {
+        DirectionClassifier classifier = core.getDirectionClassifier();
+        return classifier != null ? classifier.getDirections() : 0;
+    }
+
+    /**
+     * Returns the classifier used in D-pad mode, for changing the hysteresis.
+     * @return the classifier, or null in analog mode.
+     */
+    public DirectionClassifier getDirectionClassifier() {
+        return core.getDirectionClassifier();
+    }
+
+    /**
+     * Sets the listener for D-pad mode.
+     * @param listener the listener to use. See
+     *                 {@link com.devpaul.analogsticklib.OnDirectionListener} for more info.
+     */
+    public void setOnDirectionListener(OnDirectionListener listener) {
+        core.setOnDirectionListener(listener);
     }
 
     /**
-     * Max y value.
+     * Returns whether the trig free math is used.
+     * @return true if fast math is enabled.
      */
-    private float maxYValue;
+    public boolean isFastMathEnabled() {
+        return core.isFastMathEnabled();
+    }
 
     /**
-     * Max x value.
+     * Switches between the exact math and a trig free version that is about three times faster
+     * per sample. The fast version clamps by normalizing the vector instead of going through the
+     * angle, and computes the angle with a polynomial that is accurate to 0.0002 degrees. It is
+     * used for sub-pixel touches as well. See
+     * {@link StickMath#moveStickFast(int, int, float, float, int, float, float, long, AnalogState)}.
+     * @param fastMath true to use the fast math.
      */
-    private float maxXValue;
+    public void setFastMathEnabled(boolean fastMath) {
+        core.setFastMathEnabled(fastMath);
+    }
 
     /**
      * Returns innerY coordinate
      * @return the inner circles center innerY coordinate.
      */
     public float getInnerY() {
-        return innerY;
+        return core.getStickY();
     }
 
     /**
-     * Sets the innery value for the view. Used by the object animator.
+     * Sets the innery value for the view.
      * @param innerY the innerY value to set.
      */
     public void setInnerY(float innerY) {
-        this.innerY = innerY;
-        if(listner != null) {
-            if(maxYValue != 0) {
-                //max y value has been set so scale the movements to this value.
-                //get max distance
-                float maxY = outerRadius - innerRadius;
-                float curY = cy - innerY; //remember y is positive down.
-                float ratio = curY/maxY;
-                listner.onAnalogMovedScaledY(maxYValue * ratio);
-            }
-        }
-
-        invalidate();
+        core.setStickY(innerY, SystemClock.uptimeMillis());
+        dispatcher.dispatchState();
     }
 
     /**
@@ -172,27 +308,16 @@ public class AnalogStick extends View {
      * @return float the inner x coordinate.
      */
     public float getInnerX() {
-        return this.innerX;
+        return core.getStickX();
     }
 
     /**
-     * Sets the inner X coordinate. Used by the x object animator.
+     * Sets the inner X coordinate.
      * @param innerX the new inner X coordinate.
      */
     public void setInnerX(float innerX) {
-        this.innerX = innerX;
-        if(listner !=  null) {
-            if(maxXValue != 0) {
-                //max x value has been set so scale movemenets to this value.
-                //get max distance.
-                float maxX = outerRadius - innerRadius;
-                float curX = innerX - cx;
-                float ratio = curX/maxX;
-                listner.onAnalogMovedScaledX(maxXValue * ratio);
-            }
-        }
-
-        invalidate();
+        core.setStickX(innerX, SystemClock.uptimeMillis());
+        dispatcher.dispatchState();
     }
 
     /**
@@ -203,17 +328,18 @@ public class AnalogStick extends View {
      */
     public AnalogStick(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        initialize(context, attrs);
+        initialize(context, attrs, defStyleAttr);
     }
 
     /**
-     * Constructor for an analog stick.
+     * Constructor for an analog stick. Attributes missing from the xml are taken from the
+     * analogStickStyle of the theme, so a screen with many sticks can style them all at once.
      * @param context the context passed in to this view.
      * @param attrs an AttributeSet for reading the xml attributes.
      */
     public AnalogStick(Context context, AttributeSet attrs) {
-        super(context, attrs);
-        initialize(context, attrs);
+        super(context, attrs, R.attr.analogStickStyle);
+        initialize(context, attrs, R.attr.analogStickStyle);
     }
 
     /**
@@ -222,170 +348,228 @@ public class AnalogStick extends View {
      */
     public AnalogStick(Context context) {
         super(context);
-        initialize(context, null);
+        initialize(context, null, 0);
     }
 
     /**
-     * Initializes various parts of the view.
+     * Initializes various parts of the view. Kept lean since screens can inflate many sticks: the
+     * paints are shared between sticks and the return to the center needs no animator.
      * @param context the context passed in to this view.
      * @param attrs an AttributeSet for reading the xml attributes.
+     * @param defStyleAttr theme attribute with the default style, or 0.
      */
-    private void initialize(Context context, AttributeSet attrs) {
-        //initialize everything
-        //animator
-        yAnimator = new ObjectAnimator().ofFloat(this, "innerY", 0f, 0f);
-        xAnimator = new ObjectAnimator().ofFloat(this, "innerX", 0f, 0f);
-
+    private void initialize(Context context, AttributeSet attrs, int defStyleAttr) {
         //set focus.
         setFocusable(true);
+        innerColor = StickPaints.DEFAULT_INNER_COLOR;
+        outerColor = StickPaints.DEFAULT_OUTER_COLOR;
         if(attrs != null) {
             //read the attributes.
-            TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.AnalogStick);
-            innerColor = typedArray.getColor(R.styleable.AnalogStick_centerStickColor, getResources().getColor(android.R.color.holo_blue_bright));
-            outerColor = typedArray.getColor(R.styleable.AnalogStick_outerCircleColor, getResources().getColor(android.R.color.darker_gray));
-
+            TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.AnalogStick,
+                    defStyleAttr, 0);
+            try {
+                readAttributes(typedArray);
+            } finally {
+                typedArray.recycle();
+            }
         }
 
-        //initialize the paints.
-        outerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        outerPaint.setAntiAlias(false);
-        outerPaint.setStyle(Paint.Style.FILL);
-        outerPaint.setColor(outerColor);
-
-        innerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        innerPaint.setAntiAlias(false);
-        innerPaint.setStyle(Paint.Style.FILL);
-        innerPaint.setColor(innerColor);
-
-        //initialize the max values.
-        maxXValue = 0;
-        maxYValue = 0;
-        //initialize touch boolean.
-        innerTouched = false;
+        outerPaint = StickPaints.fill(outerColor);
+        innerPaint = StickPaints.fill(innerColor);
+    }
 
+    /**
+     * Reads the xml attributes into the colors and the core.
+     * @param typedArray the styled attributes.
+     */
+    private void readAttributes(TypedArray typedArray) {
+        innerColor = typedArray.getColor(R.styleable.AnalogStick_centerStickColor, innerColor);
+        outerColor = typedArray.getColor(R.styleable.AnalogStick_outerCircleColor, outerColor);
+        if(typedArray.hasValue(R.styleable.AnalogStick_innerRadiusRatio)
+                || typedArray.hasValue(R.styleable.AnalogStick_outerRadiusRatio)
+                || typedArray.hasValue(R.styleable.AnalogStick_maxRadius)) {
+            core.setGeometry(typedArray.getFloat(R.styleable.AnalogStick_innerRadiusRatio, 0.25f),
+                    typedArray.getFloat(R.styleable.AnalogStick_outerRadiusRatio, 0.75f),
+                    typedArray.getDimensionPixelSize(R.styleable.AnalogStick_maxRadius, 0));
+        }
+        if(typedArray.hasValue(R.styleable.AnalogStick_radialDeadZone)
+                || typedArray.hasValue(R.styleable.AnalogStick_axialDeadZone)
+                || typedArray.hasValue(R.styleable.AnalogStick_outerSaturation)
+                || typedArray.hasValue(R.styleable.AnalogStick_responseExponent)) {
+            ResponseCurve curve = new ResponseCurve();
+            curve.setRadialDeadZone(typedArray.getFloat(R.styleable.AnalogStick_radialDeadZone, 0f));
+            curve.setAxialDeadZone(typedArray.getFloat(R.styleable.AnalogStick_axialDeadZone, 0f));
+            curve.setOuterSaturation(typedArray.getFloat(R.styleable.AnalogStick_outerSaturation, 1f));
+            curve.setExponent(typedArray.getFloat(R.styleable.AnalogStick_responseExponent, 1f));
+            core.setResponseCurve(curve);
+        }
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        core.cancelRecenter();
+        dispatcher.cancel();
+    }
 
     @Override
     protected void onDraw(Canvas canvas) {
         //draw the circles
-        canvas.drawCircle(cx, cy, outerRadius, outerPaint);
+        if(outerCache != null) {
+            canvas.drawBitmap(outerCache, core.getCenterX() - core.getOuterRadius(),
+                    core.getCenterY() - core.getOuterRadius(), null);
+        } else {
+            canvas.drawCircle(core.getCenterX(), core.getCenterY(), core.getOuterRadius(),
+                    outerPaint);
+        }
         //inner circle
-        canvas.drawCircle(innerX, innerY, innerRadius, innerPaint);
+        float innerX = core.getDisplayX();
+        float innerY = core.getDisplayY();
+        canvas.drawCircle(innerX, innerY, core.getInnerRadius(), innerPaint);
+        //remember where the knob was drawn for the next partial invalidation.
+        setKnobBounds(drawnKnob, innerX, innerY);
+        AnalogStickMetrics metrics = core.getMetrics();
+        if(metrics != null) {
+            metrics.onDrawn(System.nanoTime());
+        }
+        if(frameTimingListener != null) {
+            frameTimingListener.onFrameRendered(core.getState().eventTime,
+                    SystemClock.uptimeMillis());
+        }
     }
 
-    @Override
-    public boolean onTouchEvent(MotionEvent event) {
+    /**
+     * Redraws the view after the knob moved. With cached rendering only the area covered by the
+     * knob before and after the move is invalidated. Hardware accelerated windows ignore the
+     * dirty rect from API 21 on and redraw the whole view anyway.
+     */
+    private void invalidateKnob() {
+        if(!cachedRendering) {
+            dirty.set(0, 0, getWidth(), getHeight());
+            invalidate();
+            return;
+        }
+        setKnobBounds(dirty, core.getDisplayX(), core.getDisplayY());
+        dirty.union(drawnKnob);
+        invalidate(dirty.left, dirty.top, dirty.right, dirty.bottom);
+    }
 
-        //the action
-        int action = event.getAction();
-        //touch points.
-        int touchX = (int) event.getX();
-        int touchY = (int) event.getY();
-
-        switch (action) {
-            case MotionEvent.ACTION_DOWN:
-                //check to see if the inner circle has been touched.
-                if(touchY <= innerY + innerRadius && touchY >= innerY - innerRadius) {
-                    if(touchX <= innerX + innerRadius && touchX >= innerX - innerRadius) {
-                        innerTouched = true;
-                    }
-                }
-                break;
-
-            case MotionEvent.ACTION_MOVE:
-
-                if(innerTouched) {
-                    //stop any animation that is running.
-                    if(yAnimator.isRunning() || xAnimator.isRunning()) {
-                        yAnimator.cancel();
-                        xAnimator.cancel();
-                    }
-                    //get the angle.
-                    float vecx = touchX - cx;
-                    //y is positive down
-                    float vecy = touchY - cy;
-                    float angle = getAngle(vecx, vecy);
-                    //all movement of the analog stick center should be within the radius of the larger
-                    //circle minus the radius of the analog stick.
-                    int magnitude = getVectorMagnitude(touchX - (int) cx, touchY - (int) cy);
-                    if(magnitude >= maxRadius) {
-                        //inner stick is too far away so we need to fix that.
-                        innerX = (float) Math.cos(Math.toRadians(angle))  * maxRadius;
-                        innerY = (float) Math.sin(Math.toRadians(angle)) * maxRadius;
-                        innerX += cx;
-                        innerY += cy;
-                    } else if(magnitude < maxRadius) {
-                        //inner stick isn't too far away.
-                        innerX = touchX;
-                        innerY = touchY;
-                    } else {
-                        //not really needed but oh well.
-                        innerX = touchX;
-                        innerY = touchY;
-                    }
-
-                    //handle scaled events.
-                    if(listner != null) {
-                        if(maxXValue != 0) {
-                           //max x valule has been set so scale the movements.
-                           //get the max distance you can move in the x axis.
-                            float maxX = maxRadius;
-                            float curX = innerX - cx;
-                            float ratio = curX/maxX;
-                            listner.onAnalogMovedScaledX(maxXValue * ratio);
-
-                        }
-                        if(maxYValue != 0) {
-                            //max y value has been set so scale the movements to this value.
-                            //get max distance
-                            float maxY = maxRadius;
-                            float curY = cy - innerY; //remember y is positive down.
-                            float ratio = curY/maxY;
-                            listner.onAnalogMovedScaledY(maxYValue * ratio);
-                        }
-
-                        //notify the listener of the raw movements.
-                        listner.onAnalogMove(innerX, innerY);
-                        //notify the listener of the angle.
-                        listner.onAnalogMovedGetAngle(angle);
-                        //notify the listener of the quadrant.
-                        if(angle >=0 && angle <=90) {
-                            curQuadrant = Quadrant.BOTTOM_RIGHT;
-                        } else if (angle > 90 && angle <= 180) {
-                            curQuadrant = Quadrant.BOTTOM_LEFT;
-                        } else if(angle > 180 && angle <= 270) {
-                            curQuadrant = Quadrant.TOP_LEFT;
-                        } else {
-                            curQuadrant = Quadrant.TOP_RIGHT;
-                        }
-                        if(curQuadrant != null) {
-                            listner.onAnalogMovedGetQuadrant(curQuadrant);
-                        }
-                    }
-                    //invalidate the view.
-                    invalidate();
+    /**
+     * Copies the area the last move invalidated, for the draw benchmark.
+     * @param out the rect to set.
+     */
+    void getInvalidatedArea(Rect out) {
+        out.set(dirty);
+    }
 
-                }
-                break;
+    /**
+     * Sets a rect to the bounds of the knob, rounded out by a pixel.
+     * @param rect the rect to set.
+     * @param x the x coordinate of the center of the knob.
+     * @param y the y coordinate of the center of the knob.
+     */
+    private void setKnobBounds(Rect rect, float x, float y) {
+        int innerRadius = core.getInnerRadius();
+        rect.set((int) (x - innerRadius) - 1, (int) (y - innerRadius) - 1,
+                (int) (x + innerRadius) + 2, (int) (y + innerRadius) + 2);
+    }
+
+    /**
+     * Draws the outer circle into a bitmap so that it isn't redrawn every frame. Only called when
+     * the size or cached rendering changes. A hardware accelerated canvas uploads the bitmap as a
+     * texture once and then draws it as a single quad, so the cache is used there as well.
+     */
+    private void buildOuterCache() {
+        if(outerCache != null) {
+            outerCache.recycle();
+            outerCache = null;
+        }
+        int outerRadius = core.getOuterRadius();
+        if(!cachedRendering || outerRadius <= 0) {
+            return;
+        }
+        int size = outerRadius * 2 + 1;
+        outerCache = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        new Canvas(outerCache).drawCircle(outerRadius, outerRadius, outerRadius, outerPaint);
+    }
+
+    /**
+     * Caches the outer circle in a bitmap that is only rebuilt when the size changes and limits
+     * invalidation to the area the knob moved over. In software rendering this saves redrawing the
+     * whole view on every move, which adds up on screens with several sticks. Hardware accelerated
+     * windows redraw the whole view from API 21 on whatever the dirty rect, but the display list
+     * then records one bitmap instead of rasterizing the anti aliased circle again. Costs one
+     * bitmap the size of the outer circle.
+     * @param enabled true to use cached rendering.
+     */
+    public void setCachedRenderingEnabled(boolean enabled) {
+        if(cachedRendering != enabled) {
+            cachedRendering = enabled;
+            buildOuterCache();
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns whether cached rendering is enabled.
+     * @return true if the outer circle is cached.
+     */
+    public boolean isCachedRenderingEnabled() {
+        return cachedRendering;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return touchHandler.onTouch(touchSource.set(event));
+    }
 
-            case MotionEvent.ACTION_UP:
-                //let go of the stick so return it to the center.
-                returnSticktoCenter();
-                innerTouched = false;
-                break;
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    @Override
+    public boolean onGenericMotionEvent(MotionEvent event) {
+        if((event.getSource() & InputDevice.SOURCE_JOYSTICK) != InputDevice.SOURCE_JOYSTICK
+                || event.getActionMasked() != MotionEvent.ACTION_MOVE) {
+            return super.onGenericMotionEvent(event);
+        }
+        InputDevice device = event.getDevice();
+        if(device != null && device.getId() != gamepadDeviceId) {
+            //flat and fuzz only change with the device.
+            gamepadDeviceId = device.getId();
+            InputDevice.MotionRange x = device.getMotionRange(gamepadInput.getXAxis(),
+                    event.getSource());
+            InputDevice.MotionRange y = device.getMotionRange(gamepadInput.getYAxis(),
+                    event.getSource());
+            gamepadInput.setAxisRanges(x != null ? x.getFlat() : 0, x != null ? x.getFuzz() : 0,
+                    y != null ? y.getFlat() : 0, y != null ? y.getFuzz() : 0);
+        }
+        if(gamepadInput.onAxes(touchSource.set(event))) {
+            dispatchMove();
         }
         return true;
     }
 
     /**
-     * Returns the magnitude of a vector
-     * @param vecx the x component of the vector.
-     * @param vecy the y component of the vector
-     * @return the value of the magnitude of the vector.
+     * Stops the return to the center if it is running and notifies the listener of a move.
+     */
+    private void dispatchMove() {
+        dispatcher.dispatchMove();
+    }
+
+    /**
+     * Sets the policy that decides which updates reach the listeners, for example to only report
+     * whole unit changes of the scaled values at up to 30 updates per second.
+     * @param emissionPolicy the policy, or null to report every update. See
+     *                       {@link com.devpaul.analogsticklib.EmissionPolicy} for more info.
      */
-    private int getVectorMagnitude(int vecx, int vecy) {
-        return (int) Math.sqrt(Math.pow(vecx, 2) + Math.pow(vecy, 2));
+    public void setEmissionPolicy(EmissionPolicy emissionPolicy) {
+        core.setEmissionPolicy(emissionPolicy);
+    }
+
+    /**
+     * Returns the policy that decides which updates reach the listeners.
+     * @return the policy, or null.
+     */
+    public EmissionPolicy getEmissionPolicy() {
+        return core.getEmissionPolicy();
     }
 
     /**
@@ -396,27 +580,14 @@ public class AnalogStick extends View {
      * @return the angle in degrees.
      */
     public float getAngle(float touchX, float touchY) {
-        //use atan2, make sure its (y, x) not (x, y)
-        float angle = (float) Math.toDegrees(Math.atan2(touchY, touchX));
-        //scale the value so that we never get negative values.
-        if(angle < 0) {
-            angle += 360;
-        }
-        return angle;
+        return StickMath.angle(touchX, touchY);
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        cx = getWidth() / 2;
-        cy = getWidth() / 2;
-        innerY = cy;
-        innerX = cx;
-        int d = Math.min(w, h);
-        innerRadius = (int) (d / 2 * 0.25);
-        outerRadius = (int) (d / 2 * 0.75);
-
-        maxRadius = outerRadius- (int) (innerRadius * 0.65);
+        core.setSize(w, h);
+        buildOuterCache();
     }
 
     @Override
@@ -449,18 +620,51 @@ public class AnalogStick extends View {
     }
 
     /**
-     * Returns the stick to the center after the stick is let go.
+     * Returns the stick to the center after the stick is let go. The return is stepped from frame
+     * callbacks rather than an animator, so it still finishes when animations are turned off.
+     * @param eventTime the time the stick was let go.
+     */
+    private void returnSticktoCenter(long eventTime) {
+        core.release(eventTime);
+        dispatcher.startRecenter();
+    }
+
+    /**
+     * Sets how the stick returns to the center after it is let go. The default is
+     * {@link RecenterMode#TWEEN} over 500 milliseconds.
+     * @param mode the mode to use. See {@link com.devpaul.analogsticklib.RecenterMode} for more
+     *             info.
+     */
+    public void setRecenterMode(RecenterMode mode) {
+        core.getRecenterMotion().setMode(mode);
+    }
+
+    /**
+     * Returns how the stick returns to the center.
+     * @return the recenter mode.
      */
-    private void returnSticktoCenter() {
-        yAnimator.setDuration(500);
-        yAnimator.setFloatValues(cy);
+    public RecenterMode getRecenterMode() {
+        return core.getRecenterMotion().getMode();
+    }
 
-        xAnimator.setDuration(500);
-        xAnimator.setFloatValues(cx);
+    /**
+     * Sets the duration of the return to the center in {@link RecenterMode#TWEEN}.
+     * @param duration the duration in milliseconds.
+     */
+    public void setRecenterDuration(long duration) {
+        core.getRecenterMotion().setDuration(duration);
+    }
 
-        AnimatorSet animatorSet = new AnimatorSet();
-        animatorSet.play(yAnimator).with(xAnimator);
-        animatorSet.start();
+    /**
+     * Sets the spring constants used in {@link RecenterMode#SPRING} and
+     * {@link RecenterMode#CRITICALLY_DAMPED}.
+     * @param stiffness the stiffness, higher values return faster.
+     * @param dampingRatio the damping ratio used in {@link RecenterMode#SPRING}, values below 1
+     *                     overshoot the center.
+     */
+    public void setRecenterSpring(float stiffness, float dampingRatio) {
+        core.getRecenterMotion().setStiffness(stiffness);
+        core.getRecenterMotion().setDampingRatio(dampingRatio);
     }
 
     /**
@@ -469,9 +673,223 @@ public class AnalogStick extends View {
      *                for more info.
      */
     public void setOnAnalogMoveListner(OnAnalogMoveListener listner) {
-        this.listner = listner;
+        core.setOnAnalogStateListener(
+                listner != null ? new AnalogMoveListenerAdapter(listner) : null);
+    }
+
+    /**
+     * Sets a listener that receives the complete state of the stick in a single call per sample.
+     * This replaces any listener set with {@link #setOnAnalogMoveListner(OnAnalogMoveListener)}.
+     * @param listener the listener to use for this view. See
+     *                 {@link com.devpaul.analogsticklib.OnAnalogStateListener} for more info.
+     */
+    public void setOnAnalogStateListener(OnAnalogStateListener listener) {
+        core.setOnAnalogStateListener(listener);
+    }
+
+    /**
+     * Adds a listener next to the one set with
+     * {@link #setOnAnalogStateListener(OnAnalogStateListener)}, so several consumers can follow
+     * the stick. See {@link AnalogStickCore#addOnAnalogStateListener(OnAnalogStateListener,
+     * Executor, int)} for how channels and executors work.
+     * @param listener the listener.
+     * @param executor the executor to call it on, or null to call it on the UI thread.
+     * @param channels the AnalogState.CHANNEL_* flags the listener wants.
+     * @return the registration, which reports the time spent in the listener.
+     */
+    public ListenerRegistration addOnAnalogStateListener(OnAnalogStateListener listener,
+                                                         Executor executor, int channels) {
+        return core.addOnAnalogStateListener(listener, executor, channels);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener the listener.
+     * @return true if it was added.
+     */
+    public boolean removeOnAnalogStateListener(OnAnalogStateListener listener) {
+        return core.removeOnAnalogStateListener(listener);
+    }
+
+    /**
+     * Removes exactly the registration returned by
+     * {@link #addOnAnalogStateListener(OnAnalogStateListener, Executor, int)}.
+     * @param registration the registration.
+     * @return true if it was still registered.
+     */
+    public boolean removeOnAnalogStateListener(ListenerRegistration registration) {
+        return core.removeOnAnalogStateListener(registration);
+    }
+
+    /**
+     * Returns the input that moves the stick with a hardware joystick or gamepad. The view gets
+     * joystick events while it has focus. Use it to pick other axes, for example the right stick.
+     * @return the gamepad input.
+     */
+    public GamepadInput getGamepadInput() {
+        return gamepadInput;
+    }
+
+    /**
+     * Sets the integer output format. Every state then also carries the axes and angle as fixed
+     * point integers, and touches keep their sub-pixel precision.
+     * @param format the format, for example {@link FixedPointFormat#SIGNED_16}, or null to turn
+     *               the integer output off.
+     */
+    public void setFixedPointFormat(FixedPointFormat format) {
+        core.setFixedPointFormat(format);
+    }
+
+    /**
+     * Sets a listener that receives the fixed point output as plain ints whenever it changes.
+     * @param listener the listener, or null. See
+     *                 {@link com.devpaul.analogsticklib.OnAnalogFixedPointListener} for more info.
+     */
+    public void setOnAnalogFixedPointListener(OnAnalogFixedPointListener listener) {
+        core.setOnAnalogFixedPointListener(listener);
+    }
+
+    /**
+     * Sets a publisher that hands the states the listener receives to Reactive Streams
+     * subscribers, each on its own executor and at its own pace. A slow subscriber does not slow
+     * down the stick.
+     * @param publisher the publisher, or null to remove it. See
+     *                  {@link com.devpaul.analogsticklib.StickPublisher} for more info.
+     */
+    public void setPublisher(StickPublisher publisher) {
+        core.setPublisher(publisher);
+    }
+
+    /**
+     * Sets a listener that receives every sample of a move event, including the historical samples
+     * that Android batches together, in a single call per event. When set, the historical samples
+     * also go through the same clamping and scaling as the latest one.
+     * @param listener the listener to use, or null to only process the latest sample of each event.
+     *                 See {@link com.devpaul.analogsticklib.OnAnalogBatchListener} for more info.
+     */
+    public void setOnAnalogBatchListener(OnAnalogBatchListener listener) {
+        core.setOnAnalogBatchListener(listener);
+    }
+
+    /**
+     * Coalesces all the updates within a display frame into a single dispatch on the next
+     * {@link android.view.Choreographer} frame. The listener then gets the latest state of each
+     * frame, with the changed channels of all the samples in it, and the view is redrawn once per
+     * frame. This keeps the number of callbacks at the display rate on touch screens that report
+     * several events per frame. The frame stats include every historical sample of the touch
+     * events, not only the latest one. Requires API 16, on older versions this does nothing.
+     * @param enabled true to coalesce updates per frame.
+     */
+    public void setFrameCoalescingEnabled(boolean enabled) {
+        if(!enabled || Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            dispatcher.setFrameCoalescingEnabled(enabled);
+        }
+    }
+
+    /**
+     * Returns whether updates are coalesced per frame.
+     * @return true if frame coalescing is enabled.
+     */
+    public boolean isFrameCoalescingEnabled() {
+        return dispatcher.isFrameCoalescingEnabled();
+    }
+
+    /**
+     * Sets a listener that gets the latest state of each frame together with the min, max and
+     * accumulated deltas of all the samples in it. Only called when frame coalescing is enabled.
+     * @param listener the listener to use. See
+     *                 {@link com.devpaul.analogsticklib.OnAnalogFrameListener} for more info.
+     */
+    public void setOnAnalogFrameListener(OnAnalogFrameListener listener) {
+        dispatcher.setOnAnalogFrameListener(listener);
+    }
+
+    /**
+     * Sets a ring that every processed sample is written into, including the historical samples
+     * of each move event. A background thread can then drain the ring with
+     * {@link AnalogSampleRing#drain(AnalogSampleBatch)} without ever blocking the UI thread.
+     * @param ring the ring to write into, or null to stop writing samples.
+     */
+    public void setSampleRing(AnalogSampleRing ring) {
+        core.setSampleRing(ring);
+    }
+
+    /**
+     * Records every processed sample to a file, for replaying the session later with a
+     * {@link StickPlayer}.
+     * @param recorder the recorder to write to, or null to stop recording. See
+     *                 {@link com.devpaul.analogsticklib.StickRecorder} for more info.
+     */
+    public void setRecorder(StickRecorder recorder) {
+        core.setRecorder(recorder);
+    }
+
+    /**
+     * Copies the latest published state of the stick into a state object. Unlike
+     * {@link #getState()} this is safe to call from any thread, for example a game loop. It never
+     * blocks the UI thread, does not allocate and always returns a consistent state where all
+     * values come from the same sample. Use {@link AnalogState#getSequence()} to tell if anything
+     * changed since the last read.
+     * @param into the state to copy into.
+     */
+    public void readState(AnalogState into) {
+        core.readState(into);
+    }
+
+    /**
+     * Sets the channels that {@link #getState()}, {@link #readState(AnalogState)} and the frame
+     * listener need on top of the ones the listeners want. The channels nobody wants are not
+     * computed, see {@link AnalogStickCore#setReadChannels(int)}.
+     * @param channels the AnalogState.CHANNEL_* flags, {@link AnalogState#CHANNEL_ALL} by default,
+     *                 0 when the stick is only read through listeners.
+     */
+    public void setReadChannels(int channels) {
+        core.setReadChannels(channels);
+    }
+
+    /**
+     * Returns the state most recently dispatched to the listener. The returned instance is reused,
+     * copy it with {@link AnalogState#set(AnalogState)} if you need to keep the values.
+     * @return the current state.
+     */
+    public AnalogState getState() {
+        return core.getState();
     }
 
+    /**
+     * Sets a listener that is told when a frame showing the stick was drawn, for measuring input
+     * to display latency.
+     * @param listener the listener to use, or null. See
+     *                 {@link com.devpaul.analogsticklib.OnFrameTimingListener} for more info.
+     */
+    public void setOnFrameTimingListener(OnFrameTimingListener listener) {
+        this.frameTimingListener = listener;
+    }
+
+    /**
+     * Turns on recording of latency and dispatch cost measurements. Disabling drops the recorded
+     * values.
+     * @param enabled true to record. See {@link com.devpaul.analogsticklib.AnalogStickMetrics}
+     *                for what is measured.
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if(enabled) {
+            if(core.getMetrics() == null) {
+                core.setMetrics(new AnalogStickMetrics());
+            }
+        } else {
+            core.setMetrics(null);
+        }
+    }
+
+    /**
+     * Returns the recorded measurements. Snapshots can be taken and the values reset from any
+     * thread.
+     * @return the metrics, or null if they are not enabled.
+     */
+    public AnalogStickMetrics getMetrics() {
+        return core.getMetrics();
+    }
 
 }
 
@@ -0,0 +1,1322 @@
+package com.devpaul.analogsticklib;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The input handling and geometry of an analog stick without any drawing or Android dependencies.
+ * It tracks where the knob is, runs every sample through {@link StickMath}, publishes the result
+ * and notifies the listeners. {@link AnalogStick} and {@link AnalogStickSurfaceView} both wrap one
+ * of these, and it can be driven directly on a plain JVM.
+ * <p>
+ * All methods except {@link #readState(AnalogState)} and adding or removing listeners must be
+ * called from a single thread, normally the UI thread.
+ */
+public class AnalogStickCore {
+
+    /**
+     * Listener set with {@link #setOnAnalogStateListener(OnAnalogStateListener)}, also held in
+     * {@link #listeners}.
+     */
+    private OnAnalogStateListener listener;
+
+    /**
+     * Registration of {@link #listener}, so it is removed even if it was added again next to it.
+     */
+    private ListenerRegistration listenerRegistration;
+
+    /**
+     * Every state listener, called in the order they were added.
+     */
+    private final ListenerRegistry listeners = new ListenerRegistry();
+
+    /**
+     * Reusable state that is refilled and dispatched for every sample.
+     */
+    private final AnalogState state = new AnalogState();
+
+    /**
+     * Published copy of the state that other threads can read without locking.
+     */
+    private final StateSeqLock snapshot = new StateSeqLock();
+
+    /**
+     * Batch listener, receives every sample of a move event.
+     */
+    private OnAnalogBatchListener batchListener;
+
+    /**
+     * Publishes delivered states to asynchronous subscribers.
+     */
+    private StickPublisher publisher;
+
+    /**
+     * Ring that receives every processed sample.
+     */
+    private AnalogSampleRing sampleRing;
+
+    /**
+     * Recorder that receives every processed sample.
+     */
+    private StickRecorder recorder;
+
+    /**
+     * Normalized x values of the current batch.
+     */
+    private float[] batchX = new float[0];
+
+    /**
+     * Normalized y values of the current batch.
+     */
+    private float[] batchY = new float[0];
+
+    /**
+     * Event times of the current batch.
+     */
+    private long[] batchTimes = new long[0];
+
+    /**
+     * Number of samples in the current batch.
+     */
+    private int batchCount;
+
+    /**
+     * Whether the owner of the core wants every historical sample, see
+     * {@link #setHistoryWanted(boolean)}.
+     */
+    private boolean historyWanted;
+
+    /**
+     * Smoothing filter for touch samples, null for none.
+     */
+    private StickFilter filter;
+
+    /**
+     * Extrapolates the knob position ahead, null for no prediction.
+     */
+    private TouchPredictor predictor;
+
+    /**
+     * Output stage for the scaled values, null for a linear response.
+     */
+    private ResponseCurve responseCurve;
+
+    /**
+     * Classifies the stick into directions in D-pad mode, null in analog mode.
+     */
+    private DirectionClassifier directionClassifier;
+
+    /**
+     * Listener for direction changes in D-pad mode.
+     */
+    private OnDirectionListener directionListener;
+
+    /**
+     * Direction last reported to the direction listener.
+     */
+    private Direction currentDirection = Direction.NONE;
+
+    /**
+     * Integer output format, null when the integer output is off.
+     */
+    private FixedPointFormat fixedPoint;
+
+    /**
+     * Receives the integer output.
+     */
+    private OnAnalogFixedPointListener fixedPointListener;
+
+    /**
+     * Whether touch input keeps its sub-pixel precision.
+     */
+    private boolean subPixel;
+
+    /**
+     * Whether the fixed point listener was called since it or the format was set.
+     */
+    private boolean hasSentFixedPoint;
+
+    /**
+     * Integer values last sent to the fixed point listener.
+     */
+    private int sentFixedX;
+
+    private int sentFixedY;
+
+    private int sentFixedAngle;
+
+    /**
+     * Decides which updates reach the listener, null to deliver all of them.
+     */
+    private EmissionPolicy emissionPolicy;
+
+    /**
+     * Latest update held back by the rate limit of the emission policy.
+     */
+    private final AnalogState pendingEmission = new AnalogState();
+
+    /**
+     * Whether {@link #pendingEmission} is waiting to be delivered.
+     */
+    private boolean hasPendingEmission;
+
+    /**
+     * Latency measurements, null unless enabled.
+     */
+    private volatile AnalogStickMetrics metrics;
+
+    /**
+     * Physics of the return to the center.
+     */
+    private final RecenterMotion recenterMotion = new RecenterMotion();
+
+    /**
+     * Center x coordinate of analog stick.
+     */
+    private float cx;
+
+    /**
+     * Center y coordinate of analog stick.
+     */
+    private float cy;
+
+    /**
+     * The inner radius of the stick.
+     */
+    private int innerRadius;
+
+    /**
+     * The outer radius of the stick.
+     */
+    private int outerRadius;
+
+    /**
+     * Maximum radius of movement.
+     */
+    private int maxRadius;
+
+    /**
+     * Inner radius as a fraction of half the size.
+     */
+    private float innerRadiusRatio = 0.25f;
+
+    /**
+     * Outer radius as a fraction of half the size.
+     */
+    private float outerRadiusRatio = 0.75f;
+
+    /**
+     * Fixed maximum radius of movement in pixels, 0 to derive it from the radii.
+     */
+    private int fixedMaxRadius;
+
+    /**
+     * Current x coordinate of the center of the inner circle.
+     */
+    private float stickX;
+
+    /**
+     * Current y coordinate of the center of the inner circle.
+     */
+    private float stickY;
+
+    /**
+     * Whether the inner circle is being held.
+     */
+    private boolean pressed;
+
+    /**
+     * Counts the grabs, so an input can tell that another one took the knob from it.
+     */
+    private int grabCount;
+
+    /**
+     * Whether to use the trig free math.
+     */
+    private boolean fastMath;
+
+    /**
+     * Channels kept up to date for readers of the state even without a listener for them.
+     */
+    private int readChannels = AnalogState.CHANNEL_ALL;
+
+    /**
+     * Max x value.
+     */
+    private float maxXValue;
+
+    /**
+     * Max y value.
+     */
+    private float maxYValue;
+
+    /**
+     * Lays the stick out in a box of the given size and puts the knob in the center.
+     * @param width the width of the box.
+     * @param height the height of the box.
+     */
+    public void setSize(int width, int height) {
+        cx = width / 2;
+        cy = height / 2;
+        stickX = cx;
+        stickY = cy;
+        int d = Math.min(width, height);
+        innerRadius = (int) (d / 2 * innerRadiusRatio);
+        outerRadius = (int) (d / 2 * outerRadiusRatio);
+
+        maxRadius = fixedMaxRadius > 0 ? fixedMaxRadius
+                : outerRadius - (int) (innerRadius * 0.65);
+        //publish the centered knob so readers see a valid position before the first move.
+        state.rawX = stickX;
+        state.rawY = stickY;
+        snapshot.publish(state, pressed);
+    }
+
+    /**
+     * Sets the proportions of the stick, applied on the next {@link #setSize(int, int)}.
+     * @param innerRadiusRatio radius of the knob as a fraction of half the size, default 0.25.
+     * @param outerRadiusRatio radius of the outer circle as a fraction of half the size, default
+     *                         0.75.
+     * @param maxRadius how far the knob can move from the center in pixels, or 0 to derive it from
+     *                  the two radii.
+     */
+    public void setGeometry(float innerRadiusRatio, float outerRadiusRatio, int maxRadius) {
+        if(innerRadiusRatio <= 0 || outerRadiusRatio <= 0 || innerRadiusRatio > 1
+                || outerRadiusRatio > 1) {
+            throw new IllegalArgumentException("Radius ratios must be between 0 and 1: "
+                    + innerRadiusRatio + ", " + outerRadiusRatio);
+        }
+        this.innerRadiusRatio = innerRadiusRatio;
+        this.outerRadiusRatio = outerRadiusRatio;
+        this.fixedMaxRadius = Math.max(0, maxRadius);
+    }
+
+    /**
+     * Checks if a touch hits the knob and if so starts holding it.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @return true if the knob was hit.
+     */
+    public boolean press(int touchX, int touchY) {
+        //check to see if the inner circle has been touched.
+        if(touchY <= stickY + innerRadius && touchY >= stickY - innerRadius) {
+            if(touchX <= stickX + innerRadius && touchX >= stickX - innerRadius) {
+                grab();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts holding the knob wherever it is, for inputs that don't have to hit it first.
+     */
+    void grab() {
+        pressed = true;
+        grabCount++;
+        if(filter != null) {
+            filter.reset();
+        }
+        if(predictor != null) {
+            predictor.reset();
+        }
+        snapshot.publish(state, true);
+    }
+
+    /**
+     * @return the number of times the knob was grabbed, by any input.
+     */
+    int getGrabCount() {
+        return grabCount;
+    }
+
+    /**
+     * Returns whether the knob is being held.
+     * @return true if pressed.
+     */
+    public boolean isPressed() {
+        return pressed;
+    }
+
+    /**
+     * Returns whether callers should feed every historical sample of an event through
+     * {@link #addSample(int, int, long)} instead of only the latest one.
+     * @return true if a batch listener, sample ring or recorder is set, or the owner of the core
+     * asked for the history.
+     */
+    public boolean wantsHistory() {
+        return historyWanted || batchListener != null || sampleRing != null || recorder != null;
+    }
+
+    /**
+     * Makes callers feed every historical sample even without a batch listener, ring or recorder,
+     * for example to collect per frame stats over all of them.
+     * @param historyWanted true to get every sample.
+     */
+    void setHistoryWanted(boolean historyWanted) {
+        this.historyWanted = historyWanted;
+    }
+
+    /**
+     * @return the normalized x positions of the samples of the last batch.
+     */
+    float[] getBatchX() {
+        return batchX;
+    }
+
+    /**
+     * @return the normalized y positions of the samples of the last batch.
+     */
+    float[] getBatchY() {
+        return batchY;
+    }
+
+    /**
+     * @return the times of the samples of the last batch.
+     */
+    long[] getBatchTimes() {
+        return batchTimes;
+    }
+
+    /**
+     * @return the number of samples in the last batch.
+     */
+    int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Starts a batch of samples belonging to a single input event. Stops any return to the center
+     * that is running.
+     * @param count the number of samples that will be added.
+     */
+    public void beginSamples(int count) {
+        recenterMotion.cancel();
+        if(batchX.length < count) {
+            //the arrays only ever grow so after the first few events no more allocation is done.
+            int capacity = Math.max(count, batchX.length * 2);
+            batchX = new float[capacity];
+            batchY = new float[capacity];
+            batchTimes = new long[capacity];
+        }
+        batchCount = 0;
+    }
+
+    /**
+     * Moves the knob towards a touch point and fills in the state for that sample.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param eventTime the time of the sample.
+     */
+    public void addSample(int touchX, int touchY, long eventTime) {
+        int channels = getComputedChannels();
+        if(fastMath) {
+            StickMath.moveStickFast(touchX, touchY, cx, cy, maxRadius, maxXValue, maxYValue,
+                    eventTime, channels, state);
+        } else {
+            StickMath.moveStick(touchX, touchY, cx, cy, maxRadius, maxXValue, maxYValue, eventTime,
+                    channels, state);
+        }
+        processSample(eventTime, channels);
+    }
+
+    /**
+     * Moves the knob to a position given as axis values, like those of a hardware joystick, and
+     * fills in the state for that sample. The position is clamped to the unit circle and then
+     * goes through the same steps as a touch sample, without rounding to whole pixels.
+     * @param axisX the x axis value, -1 is left and 1 is right.
+     * @param axisY the y axis value, -1 is up and 1 is down.
+     * @param eventTime the time of the sample.
+     */
+    public void addAxisSample(float axisX, float axisY, long eventTime) {
+        float lengthSquared = axisX * axisX + axisY * axisY;
+        if(lengthSquared > 1) {
+            float scale = 1 / (float) Math.sqrt(lengthSquared);
+            axisX *= scale;
+            axisY *= scale;
+        }
+        int channels = getComputedChannels();
+        StickMath.setPosition(cx + axisX * maxRadius, cy + axisY * maxRadius, cx, cy, maxRadius,
+                maxXValue, maxYValue, eventTime, channels, state);
+        processSample(eventTime, channels);
+    }
+
+    /**
+     * Moves the knob towards a touch point without rounding it to whole pixels, see
+     * {@link #isSubPixelEnabled()}.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param eventTime the time of the sample.
+     */
+    public void addSample(float touchX, float touchY, long eventTime) {
+        if(fastMath) {
+            int channels = getComputedChannels();
+            StickMath.moveStickFast(touchX, touchY, cx, cy, maxRadius, maxXValue, maxYValue,
+                    eventTime, channels, state);
+            processSample(eventTime, channels);
+        } else {
+            addAxisSample((touchX - cx) / maxRadius, (touchY - cy) / maxRadius, eventTime);
+        }
+    }
+
+    /**
+     * Runs a sample that StickMath has filled in through the rest of the pipeline.
+     * @param eventTime the time of the sample.
+     * @param channels the channels that are computed, see {@link #getComputedChannels()}.
+     */
+    private void processSample(long eventTime, int channels) {
+        state.recentering = false;
+        if(filter != null) {
+            //smooth the clamped position and refill the state from the result.
+            filter.filter(state.normalizedX, state.normalizedY, eventTime);
+            StickMath.setPosition(cx + filter.getX() * maxRadius, cy - filter.getY() * maxRadius,
+                    cx, cy, maxRadius, maxXValue, maxYValue, eventTime, channels, state);
+        }
+        stickX = state.rawX;
+        stickY = state.rawY;
+        if(predictor != null) {
+            predictor.add(state.normalizedX, state.normalizedY, eventTime,
+                    metrics != null ? metrics.getPredictionErrorHistogram() : null);
+            state.predictedX = predictor.getX();
+            state.predictedY = predictor.getY();
+        }
+        applyOutput(channels);
+        if(metrics != null) {
+            metrics.onSampleReceived();
+        }
+        if(batchCount < batchX.length) {
+            batchX[batchCount] = state.normalizedX;
+            batchY[batchCount] = state.normalizedY;
+            batchTimes[batchCount] = state.eventTime;
+            batchCount++;
+        }
+        if(sampleRing != null) {
+            sampleRing.offer(state, true);
+        }
+        if(recorder != null) {
+            recorder.record(state, true);
+        }
+    }
+
+    /**
+     * Finishes a batch of samples. The batch listener gets all of them and the latest one is
+     * published for {@link #readState(AnalogState)}.
+     */
+    public void endSamples() {
+        if(batchListener != null && batchCount > 0) {
+            if(metrics != null) {
+                long start = System.nanoTime();
+                batchListener.onAnalogBatch(batchX, batchY, batchTimes, batchCount);
+                metrics.onListenerCalled(start, System.nanoTime());
+            } else {
+                batchListener.onAnalogBatch(batchX, batchY, batchTimes, batchCount);
+            }
+        }
+        snapshot.publish(state, pressed);
+    }
+
+    /**
+     * Moves the knob towards a single touch point, see {@link #addSample(int, int, long)}.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param eventTime the time of the sample.
+     */
+    public void move(int touchX, int touchY, long eventTime) {
+        beginSamples(1);
+        addSample(touchX, touchY, eventTime);
+        endSamples();
+    }
+
+    /**
+     * Lets go of the knob and starts returning it to the center, see
+     * {@link #stepRecenter(long, long)}.
+     * @param eventTime the time the knob was let go, normally the time of the up event.
+     */
+    public void release(long eventTime) {
+        pressed = false;
+        state.eventTime = eventTime;
+        if(directionClassifier != null) {
+            updateDirection(Direction.NONE);
+        }
+        recenterMotion.start(stickX - cx, stickY - cy);
+        snapshot.publish(state, false);
+        if(sampleRing != null) {
+            //mark the release in the stream, at the time it happened.
+            sampleRing.offer(state, false);
+        }
+        if(recorder != null) {
+            recorder.record(state, false);
+        }
+    }
+
+    /**
+     * Moves the knob one frame closer to the center. Both coordinates are updated together so
+     * callers should dispatch a single state update per step.
+     * @param deltaMillis time since the last step in milliseconds.
+     * @param eventTime the time of this step.
+     * @return true if the knob is still moving.
+     */
+    public boolean stepRecenter(long deltaMillis, long eventTime) {
+        boolean running = recenterMotion.step(deltaMillis);
+        stickX = cx + recenterMotion.getX();
+        stickY = cy + recenterMotion.getY();
+        int channels = getComputedChannels();
+        StickMath.setPosition(stickX, stickY, cx, cy, maxRadius, maxXValue, maxYValue, eventTime,
+                channels, state);
+        applyOutput(channels);
+        state.recentering = true;
+        snapshot.publish(state, false);
+        if(sampleRing != null) {
+            sampleRing.offer(state, false);
+        }
+        if(recorder != null) {
+            recorder.record(state, false);
+        }
+        return running;
+    }
+
+    /**
+     * Returns whether the knob is returning to the center.
+     * @return true while recentering.
+     */
+    public boolean isRecentering() {
+        return recenterMotion.isRunning();
+    }
+
+    /**
+     * Stops the return to the center where it is.
+     */
+    public void cancelRecenter() {
+        recenterMotion.cancel();
+    }
+
+    /**
+     * Sets the x coordinate of the knob directly and fills in the state for the new position.
+     * @param x the new x coordinate.
+     * @param eventTime the time of the change.
+     */
+    public void setStickX(float x, long eventTime) {
+        setStick(x, stickY, eventTime);
+    }
+
+    /**
+     * Sets the y coordinate of the knob directly and fills in the state for the new position.
+     * @param y the new y coordinate.
+     * @param eventTime the time of the change.
+     */
+    public void setStickY(float y, long eventTime) {
+        setStick(stickX, y, eventTime);
+    }
+
+    /**
+     * Puts the knob at a position and recomputes the whole state from it, so the angle, magnitude
+     * and quadrant always match the coordinates. Only the scaled values that actually moved are
+     * marked as changed.
+     * @param x the new x coordinate.
+     * @param y the new y coordinate.
+     * @param eventTime the time of the change.
+     */
+    private void setStick(float x, float y, long eventTime) {
+        float scaledX = state.scaledX;
+        float scaledY = state.scaledY;
+        stickX = x;
+        stickY = y;
+        int channels = getComputedChannels();
+        StickMath.setPosition(x, y, cx, cy, maxRadius, maxXValue, maxYValue, eventTime, channels,
+                state);
+        state.recentering = false;
+        applyOutput(channels);
+        if(state.scaledX == scaledX) {
+            state.changedChannels &= ~AnalogState.CHANNEL_SCALED_X;
+        }
+        if(state.scaledY == scaledY) {
+            state.changedChannels &= ~AnalogState.CHANNEL_SCALED_Y;
+        }
+        snapshot.publish(state, pressed);
+    }
+
+    /**
+     * Notifies the listener of a state, if the emission policy lets it through.
+     * @param analogState the state to deliver, normally {@link #getState()}.
+     */
+    public void dispatch(AnalogState analogState) {
+        if(directionClassifier != null) {
+            //D-pad mode only reports direction changes.
+            updateDirection(pressed ? directionClassifier.update(analogState.normalizedX,
+                    analogState.normalizedY) : Direction.NONE);
+            return;
+        }
+        if(emissionPolicy == null) {
+            deliver(analogState);
+            return;
+        }
+        int mask = emissionPolicy.mask(analogState);
+        if(mask == 0) {
+            //nothing changed enough, drop anything held back too since it is older.
+            hasPendingEmission = false;
+            return;
+        }
+        if(emissionPolicy.isRateLimited(analogState.eventTime)) {
+            //hold the latest state back until the rate limit allows it.
+            pendingEmission.set(analogState);
+            hasPendingEmission = true;
+            return;
+        }
+        emit(analogState, mask, analogState.eventTime);
+    }
+
+    /**
+     * Moves to a new direction, releasing the old one and pressing the new one.
+     * @param next the new direction.
+     */
+    private void updateDirection(Direction next) {
+        if(next == currentDirection) {
+            return;
+        }
+        Direction previous = currentDirection;
+        currentDirection = next;
+        if(next == Direction.NONE) {
+            directionClassifier.reset();
+        }
+        if(directionListener != null) {
+            if(previous != Direction.NONE) {
+                directionListener.onDirectionReleased(previous);
+            }
+            if(next != Direction.NONE) {
+                directionListener.onDirectionPressed(next);
+            }
+        }
+    }
+
+    /**
+     * Switches to D-pad mode, where the stick only reports direction changes to the direction
+     * listener instead of every movement to the state listener.
+     * @param classifier the classifier that maps the stick to directions, or null to go back to
+     *                   analog mode.
+     */
+    public void setDirectionClassifier(DirectionClassifier classifier) {
+        if(directionClassifier != null) {
+            //release the held direction before switching.
+            updateDirection(Direction.NONE);
+        }
+        this.directionClassifier = classifier;
+        if(classifier != null) {
+            classifier.reset();
+        }
+    }
+
+    /**
+     * @return the direction classifier, or null in analog mode.
+     */
+    public DirectionClassifier getDirectionClassifier() {
+        return directionClassifier;
+    }
+
+    /**
+     * @return the direction held in D-pad mode.
+     */
+    public Direction getDirection() {
+        return currentDirection;
+    }
+
+    /**
+     * Sets the listener for direction changes in D-pad mode.
+     * @param listener the listener, or null.
+     */
+    public void setOnDirectionListener(OnDirectionListener listener) {
+        this.directionListener = listener;
+    }
+
+    /**
+     * Delivers an update that was held back by the rate limit of the emission policy, if its time
+     * has come. Callers that set a policy with a rate limit call this at
+     * {@link #getEmissionDeadline()}.
+     * @param now the current time in milliseconds, in the time base of the event times.
+     * @return true if an update is still waiting.
+     */
+    public boolean flushEmission(long now) {
+        if(!hasPendingEmission || emissionPolicy == null) {
+            hasPendingEmission = false;
+            return false;
+        }
+        if(emissionPolicy.isRateLimited(now)) {
+            return true;
+        }
+        hasPendingEmission = false;
+        int mask = emissionPolicy.mask(pendingEmission);
+        if(mask != 0) {
+            emit(pendingEmission, mask, now);
+        }
+        return false;
+    }
+
+    /**
+     * Returns when the update held back by the rate limit can be delivered with
+     * {@link #flushEmission(long)}.
+     * @return the time in milliseconds, or -1 if nothing is waiting.
+     */
+    public long getEmissionDeadline() {
+        return hasPendingEmission && emissionPolicy != null ? emissionPolicy.nextEmitTime() : -1;
+    }
+
+    /**
+     * Delivers the channels of a state that the emission policy let through.
+     */
+    private void emit(AnalogState analogState, int mask, long now) {
+        int changed = analogState.changedChannels;
+        analogState.changedChannels = mask;
+        deliver(analogState);
+        analogState.changedChannels = changed;
+        emissionPolicy.emitted(analogState, mask, now);
+        hasPendingEmission = false;
+    }
+
+    /**
+     * Calls the listener and records the metrics.
+     */
+    private void deliver(AnalogState analogState) {
+        if(metrics != null) {
+            long start = System.nanoTime();
+            notifyListeners(analogState);
+            metrics.onDispatched(analogState.eventTime, start, System.nanoTime());
+        } else {
+            notifyListeners(analogState);
+        }
+    }
+
+    /**
+     * Hands a state to the listeners and the publisher.
+     * @param analogState the state.
+     */
+    private void notifyListeners(AnalogState analogState) {
+        listeners.dispatch(analogState);
+        if(fixedPointListener != null && fixedPoint != null) {
+            notifyFixedPoint(analogState);
+        }
+        if(publisher != null) {
+            publisher.publish(analogState);
+        }
+    }
+
+    /**
+     * Tells the fixed point listener about a state if its integer values changed.
+     * @param analogState the state.
+     */
+    private void notifyFixedPoint(AnalogState analogState) {
+        if(hasSentFixedPoint && analogState.fixedX == sentFixedX
+                && analogState.fixedY == sentFixedY && analogState.fixedAngle == sentFixedAngle) {
+            return;
+        }
+        hasSentFixedPoint = true;
+        sentFixedX = analogState.fixedX;
+        sentFixedY = analogState.fixedY;
+        sentFixedAngle = analogState.fixedAngle;
+        fixedPointListener.onAnalogFixedPoint(sentFixedX, sentFixedY, sentFixedAngle,
+                analogState.eventTime);
+    }
+
+    /**
+     * Sets the policy that decides which updates reach the listener. With a rate limit, callers
+     * have to call {@link #flushEmission(long)} once {@link #getEmissionDeadline()} is reached so
+     * the final value is delivered, the views do this themselves.
+     * @param emissionPolicy the policy, or null to deliver every update.
+     */
+    public void setEmissionPolicy(EmissionPolicy emissionPolicy) {
+        this.emissionPolicy = emissionPolicy;
+        hasPendingEmission = false;
+        if(emissionPolicy != null) {
+            emissionPolicy.reset();
+        }
+    }
+
+    /**
+     * @return the emission policy, or null.
+     */
+    public EmissionPolicy getEmissionPolicy() {
+        return emissionPolicy;
+    }
+
+    /**
+     * Sets the filter that smooths touch samples before they are dispatched. Use a
+     * {@link FilterChain} to run several.
+     * @param filter the filter, or null for none.
+     */
+    public void setFilter(StickFilter filter) {
+        this.filter = filter;
+        if(filter != null) {
+            filter.reset();
+        }
+    }
+
+    /**
+     * @return the smoothing filter, or null.
+     */
+    public StickFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Sets a predictor that extrapolates the knob ahead of the measured touches. The prediction is
+     * reported in {@link AnalogState#getPredictedX()} and {@link AnalogState#getPredictedY()} and
+     * the knob is drawn there, the other values stay measured.
+     * @param predictor the predictor, or null for none.
+     */
+    public void setPredictor(TouchPredictor predictor) {
+        this.predictor = predictor;
+        if(predictor != null) {
+            predictor.reset();
+        }
+    }
+
+    /**
+     * @return the touch predictor, or null.
+     */
+    public TouchPredictor getPredictor() {
+        return predictor;
+    }
+
+    /**
+     * Returns the x coordinate to draw the knob at, the predicted one when a predictor is set.
+     * @return the x coordinate of the center of the knob.
+     */
+    public float getDisplayX() {
+        return predictor != null ? cx + state.predictedX * maxRadius : stickX;
+    }
+
+    /**
+     * Returns the y coordinate to draw the knob at, the predicted one when a predictor is set.
+     * @return the y coordinate of the center of the knob.
+     */
+    public float getDisplayY() {
+        return predictor != null ? cy - state.predictedY * maxRadius : stickY;
+    }
+
+    /**
+     * Returns the channels that are computed for each sample: the ones a listener or
+     * {@link #setReadChannels(int) a reader} wants, or all of them while a publisher, sample ring,
+     * recorder or emission policy takes the whole state. The fixed point listener wants the scaled
+     * values and the angle its integers are made from.
+     * @return the AnalogState.CHANNEL_* flags.
+     */
+    int getComputedChannels() {
+        if(publisher != null || sampleRing != null || recorder != null || emissionPolicy != null) {
+            return AnalogState.CHANNEL_ALL;
+        }
+        int channels = readChannels | listeners.getChannels();
+        if(fixedPointListener != null && fixedPoint != null) {
+            channels |= AnalogState.CHANNEL_SCALED_X | AnalogState.CHANNEL_SCALED_Y
+                    | AnalogState.CHANNEL_ANGLE;
+        }
+        return channels;
+    }
+
+    /**
+     * Runs the position through the response curve and the fixed point format, for the channels
+     * that are computed.
+     * @param channels the computed channels.
+     */
+    private void applyOutput(int channels) {
+        int axes = channels & (AnalogState.CHANNEL_SCALED_X | AnalogState.CHANNEL_SCALED_Y);
+        if(responseCurve != null && axes != 0) {
+            applyResponse(state.normalizedX, state.normalizedY);
+        }
+        if(fixedPoint != null) {
+            applyFixedPoint(axes != 0, channels);
+        }
+    }
+
+    /**
+     * Runs a normalized position through the response curve and replaces the scaled values.
+     * @param x the normalized x position.
+     * @param y the normalized y position.
+     */
+    private void applyResponse(float x, float y) {
+        responseCurve.apply(x, y);
+        if((state.changedChannels & AnalogState.CHANNEL_SCALED_X) != 0) {
+            state.scaledX = maxXValue * responseCurve.getOutX();
+        }
+        if((state.changedChannels & AnalogState.CHANNEL_SCALED_Y) != 0) {
+            state.scaledY = maxYValue * responseCurve.getOutY();
+        }
+    }
+
+    /**
+     * Fills in the fixed point values from the normalized position, shaped by the response curve
+     * like the scaled values. The axes follow the scaled channels and the angle the angle channel,
+     * the ones that are not computed keep their old values.
+     * @param curveApplied whether the response curve was just applied to the normalized position.
+     * @param channels the computed channels.
+     */
+    private void applyFixedPoint(boolean curveApplied, int channels) {
+        if((channels & (AnalogState.CHANNEL_SCALED_X | AnalogState.CHANNEL_SCALED_Y)) != 0) {
+            float x = state.normalizedX;
+            float y = state.normalizedY;
+            if(responseCurve != null) {
+                if(!curveApplied) {
+                    responseCurve.apply(x, y);
+                }
+                x = responseCurve.getOutX();
+                y = responseCurve.getOutY();
+            }
+            state.fixedX = fixedPoint.toAxis(x);
+            state.fixedY = fixedPoint.toAxis(y);
+        }
+        if((channels & AnalogState.CHANNEL_ANGLE) != 0) {
+            state.fixedAngle = fixedPoint.toAngle(state.angle);
+        }
+    }
+
+    /**
+     * Sets the integer output format. With a format every state carries the axes and angle as
+     * fixed point integers, see {@link AnalogState#getFixedX()}, and touch input keeps its
+     * sub-pixel precision so the integers are not limited by the pixel grid.
+     * @param fixedPoint the format, or null to turn the integer output off.
+     */
+    public void setFixedPointFormat(FixedPointFormat fixedPoint) {
+        this.fixedPoint = fixedPoint;
+        hasSentFixedPoint = false;
+    }
+
+    /**
+     * @return the integer output format, or null.
+     */
+    public FixedPointFormat getFixedPointFormat() {
+        return fixedPoint;
+    }
+
+    /**
+     * Sets a listener that receives the fixed point output as plain ints whenever it changes.
+     * Only called while a {@link FixedPointFormat} is set.
+     * @param listener the listener, or null.
+     */
+    public void setOnAnalogFixedPointListener(OnAnalogFixedPointListener listener) {
+        this.fixedPointListener = listener;
+        hasSentFixedPoint = false;
+    }
+
+    /**
+     * Returns whether touch input keeps its sub-pixel precision instead of being rounded down to
+     * whole pixels first. Always true while a {@link FixedPointFormat} is set.
+     * @return true if sub-pixel precision is kept.
+     */
+    public boolean isSubPixelEnabled() {
+        return subPixel || fixedPoint != null;
+    }
+
+    /**
+     * Sets whether touch input keeps its sub-pixel precision. Sub-pixel samples use the fast math
+     * too when it is enabled.
+     * @param subPixel true to keep sub-pixel precision.
+     */
+    public void setSubPixelEnabled(boolean subPixel) {
+        this.subPixel = subPixel;
+    }
+
+    /**
+     * Sets the output stage that shapes the scaled values. Changes made to the curve afterwards
+     * apply from the next sample.
+     * @param responseCurve the curve, or null for a linear response.
+     */
+    public void setResponseCurve(ResponseCurve responseCurve) {
+        this.responseCurve = responseCurve;
+    }
+
+    /**
+     * @return the output stage, or null.
+     */
+    public ResponseCurve getResponseCurve() {
+        return responseCurve;
+    }
+
+    /**
+     * Sets the metrics that input and dispatch are recorded into. Event to dispatch latency is
+     * measured against {@link System#nanoTime()}, so it needs event times in the
+     * {@link android.os.SystemClock#uptimeMillis()} time base. Synthetic or replayed event times
+     * record meaningless latencies, the other measurements are unaffected.
+     * @param metrics the metrics, or null to stop recording.
+     */
+    public void setMetrics(AnalogStickMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics being recorded into. Safe to call from any thread.
+     * @return the metrics, or null.
+     */
+    public AnalogStickMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the listener that {@link #dispatch(AnalogState)} notifies, replacing the one set
+     * before. Listeners added with
+     * {@link #addOnAnalogStateListener(OnAnalogStateListener, Executor, int)} are kept. Unlike
+     * those, an exception thrown by this listener is thrown on to the caller of dispatch after
+     * it is recorded, so bugs in it are not hidden.
+     * @param listener the listener, or null.
+     */
+    public void setOnAnalogStateListener(OnAnalogStateListener listener) {
+        if(listenerRegistration != null) {
+            listeners.remove(listenerRegistration);
+            listenerRegistration = null;
+        }
+        this.listener = listener;
+        if(listener != null) {
+            listenerRegistration = listeners.add(listener, null, AnalogState.CHANNEL_ALL, true);
+        }
+    }
+
+    /**
+     * Adds a listener that is called inline for every channel, next to the other listeners.
+     * @param listener the listener.
+     * @return the registration, which reports the time spent in the listener.
+     */
+    public ListenerRegistration addOnAnalogStateListener(OnAnalogStateListener listener) {
+        return listeners.add(listener, null, AnalogState.CHANNEL_ALL);
+    }
+
+    /**
+     * Adds a listener next to the other listeners. It is only called when one of its channels
+     * changed and only sees those channels in {@link AnalogState#getChangedChannels()}. An
+     * exception thrown by a listener is kept in its registration and does not stop the others.
+     * Remove it with {@link #removeOnAnalogStateListener(ListenerRegistration)}.
+     * @param listener the listener.
+     * @param executor the executor to call the listener on, or null to call it inline.
+     * @param channels the AnalogState.CHANNEL_* flags the listener wants.
+     * @return the registration, which reports the time spent in the listener.
+     */
+    public ListenerRegistration addOnAnalogStateListener(OnAnalogStateListener listener,
+                                                         Executor executor, int channels) {
+        return listeners.add(listener, executor, channels);
+    }
+
+    /**
+     * Removes a listener added with {@link #addOnAnalogStateListener(OnAnalogStateListener)}. If
+     * it was added more than once, the first registration goes. A listener that was only set with
+     * {@link #setOnAnalogStateListener(OnAnalogStateListener)} is unset.
+     * @param listener the listener.
+     * @return true if it was added.
+     */
+    public boolean removeOnAnalogStateListener(OnAnalogStateListener listener) {
+        if(listeners.remove(listener, listenerRegistration)) {
+            return true;
+        }
+        if(listener != null && listener == this.listener) {
+            setOnAnalogStateListener(null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes exactly the registration returned when a listener was added, which matters when
+     * the same listener was added more than once.
+     * @param registration the registration.
+     * @return true if it was still registered.
+     */
+    public boolean removeOnAnalogStateListener(ListenerRegistration registration) {
+        if(registration != null && registration == listenerRegistration) {
+            setOnAnalogStateListener(null);
+            return true;
+        }
+        return listeners.remove(registration);
+    }
+
+    /**
+     * Returns the listener set with {@link #setOnAnalogStateListener(OnAnalogStateListener)}.
+     * @return the listener, or null.
+     */
+    public OnAnalogStateListener getOnAnalogStateListener() {
+        return listener;
+    }
+
+    /**
+     * Sets a publisher that receives every state the listener receives, for subscribers that
+     * want the states on their own executor and at their own pace.
+     * @param publisher the publisher, or null.
+     */
+    public void setPublisher(StickPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * @return the publisher, or null.
+     */
+    public StickPublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Sets a listener that receives every sample of a batch in a single call.
+     * @param listener the listener, or null.
+     */
+    public void setOnAnalogBatchListener(OnAnalogBatchListener listener) {
+        this.batchListener = listener;
+    }
+
+    /**
+     * Sets a ring that every processed sample is written into.
+     * @param ring the ring, or null.
+     */
+    public void setSampleRing(AnalogSampleRing ring) {
+        this.sampleRing = ring;
+    }
+
+    /**
+     * Sets a recorder that every processed sample is appended to, the same samples a sample ring
+     * gets.
+     * @param recorder the recorder, or null to stop recording.
+     */
+    public void setRecorder(StickRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * @return the recorder, or null.
+     */
+    public StickRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Copies the latest published state. Safe to call from any thread.
+     * @param into the state to copy into.
+     */
+    public void readState(AnalogState into) {
+        snapshot.read(into);
+    }
+
+    /**
+     * Returns the state of the latest sample. The instance is reused for every sample.
+     * @return the current state.
+     */
+    public AnalogState getState() {
+        return state;
+    }
+
+    /**
+     * @return the recenter physics, for changing the mode and constants.
+     */
+    public RecenterMotion getRecenterMotion() {
+        return recenterMotion;
+    }
+
+    /**
+     * @return the current x coordinate of the center of the knob.
+     */
+    public float getStickX() {
+        return stickX;
+    }
+
+    /**
+     * @return the current y coordinate of the center of the knob.
+     */
+    public float getStickY() {
+        return stickY;
+    }
+
+    /**
+     * @return the x coordinate of the center of the stick.
+     */
+    public float getCenterX() {
+        return cx;
+    }
+
+    /**
+     * @return the y coordinate of the center of the stick.
+     */
+    public float getCenterY() {
+        return cy;
+    }
+
+    /**
+     * @return the radius of the knob.
+     */
+    public int getInnerRadius() {
+        return innerRadius;
+    }
+
+    /**
+     * @return the radius of the outer circle.
+     */
+    public int getOuterRadius() {
+        return outerRadius;
+    }
+
+    /**
+     * @return the maximum distance the knob can move from the center.
+     */
+    public int getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * @return whether the trig free math is used.
+     */
+    public boolean isFastMathEnabled() {
+        return fastMath;
+    }
+
+    /**
+     * Switches between the exact and the trig free math, see
+     * {@link StickMath#moveStickFast(int, int, float, float, int, float, float, long, AnalogState)}
+     * and its sub-pixel version
+     * {@link StickMath#moveStickFast(float, float, float, float, int, float, float, long,
+     * AnalogState)}.
+     * @param fastMath true to use the fast math.
+     */
+    public void setFastMathEnabled(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
+    /**
+     * Sets the channels that {@link #getState()}, {@link #readState(AnalogState)} and the frame
+     * listener of the view need, on top of the ones the listeners want. Channels that neither a
+     * listener nor a reader wants are not computed at all: no angle or quadrant without
+     * {@link AnalogState#CHANNEL_ANGLE} or {@link AnalogState#CHANNEL_QUADRANT}, no scaled values,
+     * response curve or fixed point axes without the scaled channels. Their values in the state are
+     * then left over from earlier samples. The position and normalized values are always computed.
+     * A publisher, sample ring, recorder or emission policy gets every channel.
+     * @param channels the AnalogState.CHANNEL_* flags, {@link AnalogState#CHANNEL_ALL} by default
+     *                 so polling keeps working, 0 when the stick is only read through listeners.
+     */
+    public void setReadChannels(int channels) {
+        this.readChannels = channels;
+    }
+
+    /**
+     * @return the channels kept up to date for readers, see {@link #setReadChannels(int)}.
+     */
+    public int getReadChannels() {
+        return readChannels;
+    }
+
+    /**
+     * @return the max x value.
+     */
+    public float getMaxXValue() {
+        return maxXValue;
+    }
+
+    /**
+     * Sets the value reported as the scaled x value when the knob is all the way to the right.
+     * @param maxXValue the max x value, 0 to disable scaling.
+     */
+    public void setMaxXValue(float maxXValue) {
+        this.maxXValue = maxXValue;
+    }
+
+    /**
+     * @return the max y value.
+     */
+    public float getMaxYValue() {
+        return maxYValue;
+    }
+
+    /**
+     * Sets the value reported as the scaled y value when the knob is all the way up.
+     * @param maxYValue the max y value, 0 to disable scaling.
+     */
+    public void setMaxYValue(float maxYValue) {
+        this.maxYValue = maxYValue;
+    }
+}
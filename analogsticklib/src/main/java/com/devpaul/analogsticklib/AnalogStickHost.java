@@ -0,0 +1,365 @@
+package com.devpaul.analogsticklib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single view that hosts any number of analog sticks, for example both sticks of a dual stick
+ * layout. Each stick is placed relative to the size of the host and tracks its own pointer, so
+ * several fingers can each hold a different stick. All pointers of a touch event are handled in
+ * one pass, all sticks are drawn in one {@link #onDraw(Canvas)} and touches are matched to sticks
+ * through a spatial grid so the cost of a touch does not grow with the number of sticks.
+ * <p>
+ * Every stick is an {@link AnalogStickCore}, set listeners on the one returned by
+ * {@link #addStick(float, float, float)}.
+ */
+public class AnalogStickHost extends View {
+
+    /**
+     * A stick, where it is placed in the host and the pointer holding it.
+     */
+    private static final class StickRegion {
+        final AnalogStickCore core = new AnalogStickCore();
+        final float centerX;
+        final float centerY;
+        final float diameter;
+        float left;
+        float top;
+        StickTouchHandler touchHandler;
+
+        StickRegion(float centerX, float centerY, float diameter) {
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.diameter = diameter;
+        }
+    }
+
+    private final List<StickRegion> sticks = new ArrayList<StickRegion>();
+
+    /**
+     * Finds the stick under a touch.
+     */
+    private final StickGrid grid = new StickGrid();
+
+    /**
+     * Reusable view of the current touch event.
+     */
+    private final MotionEventSource touchSource = new MotionEventSource();
+
+    /**
+     * Shared paint for the outer circles.
+     */
+    private Paint outerPaint;
+
+    /**
+     * Shared paint for the knobs.
+     */
+    private Paint innerPaint;
+
+    /**
+     * Whether a stick moved in the touch event being handled.
+     */
+    private boolean movedInEvent;
+
+    /**
+     * Moves every released stick one frame closer to the center and posts the next frame until
+     * they are all back. Frame callbacks keep coming when animations are turned off, unlike an
+     * animator.
+     */
+    private final Runnable recenterFrame = new Runnable() {
+        @Override
+        public void run() {
+            recenterFramePosted = false;
+            onRecenterFrame();
+        }
+    };
+
+    /**
+     * Whether {@link #recenterFrame} is posted.
+     */
+    private boolean recenterFramePosted;
+
+    /**
+     * Time of the last recenter frame.
+     */
+    private long lastRecenterTime;
+
+    /**
+     * Delivers the updates held back by the emission rate limits of the sticks.
+     */
+    private final Runnable emissionFlush = new Runnable() {
+        @Override
+        public void run() {
+            emissionFlushPosted = false;
+            long now = SystemClock.uptimeMillis();
+            for(int i = 0; i < sticks.size(); i++) {
+                sticks.get(i).core.flushEmission(now);
+            }
+            scheduleEmissionFlush();
+        }
+    };
+
+    /**
+     * Whether {@link #emissionFlush} is posted.
+     */
+    private boolean emissionFlushPosted;
+
+    /**
+     * Constructor for a stick host.
+     * @param context the context passed in to this view.
+     * @param attrs Attribute set, needed for xml attributes.
+     * @param defStyleAttr optional style.
+     */
+    public AnalogStickHost(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        initialize(context, attrs);
+    }
+
+    /**
+     * Constructor for a stick host.
+     * @param context the context passed in to this view.
+     * @param attrs an AttributeSet for reading the xml attributes.
+     */
+    public AnalogStickHost(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        initialize(context, attrs);
+    }
+
+    /**
+     * Simple Constructor
+     * @param context the context passed in to this view.
+     */
+    public AnalogStickHost(Context context) {
+        super(context);
+        initialize(context, null);
+    }
+
+    /**
+     * Initializes various parts of the view.
+     * @param context the context passed in to this view.
+     * @param attrs an AttributeSet for reading the xml attributes, the same ones as
+     *              {@link AnalogStick}.
+     */
+    private void initialize(Context context, AttributeSet attrs) {
+        int innerColor = StickPaints.DEFAULT_INNER_COLOR;
+        int outerColor = StickPaints.DEFAULT_OUTER_COLOR;
+        if(attrs != null) {
+            TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.AnalogStick);
+            try {
+                innerColor = typedArray.getColor(R.styleable.AnalogStick_centerStickColor,
+                        innerColor);
+                outerColor = typedArray.getColor(R.styleable.AnalogStick_outerCircleColor,
+                        outerColor);
+            } finally {
+                typedArray.recycle();
+            }
+        }
+
+        outerPaint = StickPaints.fill(outerColor);
+        innerPaint = StickPaints.fill(innerColor);
+
+        setFocusable(true);
+    }
+
+    /**
+     * Adds a stick to the host. The position and size are relative so the layout follows the size
+     * of the host. Sticks added later are on top where they overlap.
+     * @param centerX the x coordinate of the center, as a fraction of the host width.
+     * @param centerY the y coordinate of the center, as a fraction of the host height.
+     * @param diameter the size of the stick, as a fraction of the smaller side of the host.
+     * @return the core of the new stick, for setting listeners and options.
+     */
+    public AnalogStickCore addStick(float centerX, float centerY, float diameter) {
+        final StickRegion region = new StickRegion(centerX, centerY, diameter);
+        region.touchHandler = new StickTouchHandler(region.core, new StickTouchHandler.Callback() {
+            @Override
+            public void onStickMoved() {
+                region.core.dispatch(region.core.getState());
+                movedInEvent = true;
+            }
+
+            @Override
+            public void onStickReleased(long eventTime) {
+                release(region, eventTime);
+            }
+        });
+        sticks.add(region);
+        layoutSticks(getWidth(), getHeight());
+        invalidate();
+        return region.core;
+    }
+
+    /**
+     * Returns the core of a stick.
+     * @param index the index of the stick, in the order they were added.
+     * @return the core.
+     */
+    public AnalogStickCore getStick(int index) {
+        return sticks.get(index).core;
+    }
+
+    /**
+     * @return the number of sticks.
+     */
+    public int getStickCount() {
+        return sticks.size();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutSticks(w, h);
+    }
+
+    /**
+     * Places all the sticks for a host size and rebuilds the grid.
+     * @param width the host width.
+     * @param height the host height.
+     */
+    private void layoutSticks(int width, int height) {
+        int side = Math.min(width, height);
+        float smallest = side;
+        for(int i = 0; i < sticks.size(); i++) {
+            smallest = Math.min(smallest, sticks.get(i).diameter * side);
+        }
+        grid.reset(width, height, smallest);
+        for(int i = 0; i < sticks.size(); i++) {
+            StickRegion region = sticks.get(i);
+            int size = (int) (region.diameter * side);
+            region.left = region.centerX * width - size / 2;
+            region.top = region.centerY * height - size / 2;
+            region.core.setSize(size, size);
+            region.touchHandler.setOffset(region.left, region.top);
+            grid.add(region.left, region.top, region.left + size, region.top + size);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        touchSource.set(event);
+        movedInEvent = false;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                //only the stick under the new pointer can take it.
+                int index = event.getActionIndex();
+                int hit = grid.hit(event.getX(index), event.getY(index));
+                if(hit >= 0) {
+                    sticks.get(hit).touchHandler.onTouch(touchSource);
+                }
+                break;
+
+            default:
+                //moves, ups and cancels go to every stick, each one follows its own pointer.
+                for(int i = 0; i < sticks.size(); i++) {
+                    sticks.get(i).touchHandler.onTouch(touchSource);
+                }
+                break;
+        }
+        if(movedInEvent) {
+            scheduleEmissionFlush();
+            invalidate();
+        }
+        return true;
+    }
+
+    /**
+     * Lets go of a stick and starts returning it to the center.
+     * @param region the stick.
+     * @param eventTime the time the stick was let go.
+     */
+    private void release(StickRegion region, long eventTime) {
+        region.core.release(eventTime);
+        if(!recenterFramePosted) {
+            lastRecenterTime = SystemClock.uptimeMillis();
+            recenterFramePosted = true;
+            FramePoster.postOnAnimation(this, recenterFrame);
+        }
+    }
+
+    /**
+     * Moves every released stick one frame closer to the center.
+     */
+    private void onRecenterFrame() {
+        long now = SystemClock.uptimeMillis();
+        long delta = now - lastRecenterTime;
+        lastRecenterTime = now;
+        boolean running = false;
+        for(int i = 0; i < sticks.size(); i++) {
+            AnalogStickCore core = sticks.get(i).core;
+            if(!core.isRecentering()) {
+                continue;
+            }
+            if(core.isPressed()) {
+                //grabbed on its way back.
+                core.cancelRecenter();
+                continue;
+            }
+            running |= core.stepRecenter(delta, now);
+            core.dispatch(core.getState());
+        }
+        scheduleEmissionFlush();
+        invalidate();
+        if(running) {
+            recenterFramePosted = true;
+            FramePoster.postOnAnimation(this, recenterFrame);
+        }
+    }
+
+    /**
+     * Posts a delivery of the earliest update held back by an emission rate limit.
+     */
+    private void scheduleEmissionFlush() {
+        if(emissionFlushPosted) {
+            return;
+        }
+        long deadline = Long.MAX_VALUE;
+        for(int i = 0; i < sticks.size(); i++) {
+            long stickDeadline = sticks.get(i).core.getEmissionDeadline();
+            if(stickDeadline >= 0) {
+                deadline = Math.min(deadline, stickDeadline);
+            }
+        }
+        if(deadline != Long.MAX_VALUE) {
+            emissionFlushPosted = true;
+            postDelayed(emissionFlush, Math.max(0, deadline - SystemClock.uptimeMillis()));
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(recenterFrame);
+        recenterFramePosted = false;
+        removeCallbacks(emissionFlush);
+        emissionFlushPosted = false;
+        for(int i = 0; i < sticks.size(); i++) {
+            sticks.get(i).core.cancelRecenter();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        for(int i = 0; i < sticks.size(); i++) {
+            StickRegion region = sticks.get(i);
+            AnalogStickCore core = region.core;
+            canvas.drawCircle(region.left + core.getCenterX(), region.top + core.getCenterY(),
+                    core.getOuterRadius(), outerPaint);
+            canvas.drawCircle(region.left + core.getDisplayX(), region.top + core.getDisplayY(),
+                    core.getInnerRadius(), innerPaint);
+            AnalogStickMetrics metrics = core.getMetrics();
+            if(metrics != null) {
+                metrics.onDrawn(System.nanoTime());
+            }
+        }
+    }
+}
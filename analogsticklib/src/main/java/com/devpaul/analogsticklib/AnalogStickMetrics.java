@@ -0,0 +1,194 @@
+package com.devpaul.analogsticklib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt in latency and cost measurements of a stick, see {@link AnalogStick#setMetricsEnabled(boolean)}.
+ * Durations are recorded in nanoseconds into {@link LatencyHistogram}s:
+ * <ul>
+ *     <li>event to dispatch, from the time of the touch event to the moment the state listener is
+ *     called. Event times only have millisecond resolution so expect about 1ms of noise. The
+ *     dispatch is timed with {@link System#nanoTime()}, which counts in the
+ *     {@link android.os.SystemClock#uptimeMillis()} time base on Android, so this is only
+ *     meaningful for event times in that time base, like those of touch and joystick events.</li>
+ *     <li>listener time, spent inside the state and batch listener callbacks.</li>
+ *     <li>dispatch to draw, from a dispatch to the next frame that draws the stick.</li>
+ * </ul>
+ * When a {@link TouchPredictor} is set, the distance between each prediction and the position
+ * measured at its target time is recorded too. It is not a duration, so it has its own accessors
+ * that report it as a fraction of the maximum radius, see {@link #getPredictionErrorPercentile}.
+ * It also counts samples received from touch events, states dispatched to the listener and
+ * samples that were coalesced into a later dispatch instead of getting their own.
+ * <p>
+ * Recording does not allocate. Snapshots can be taken and everything can be reset from any thread.
+ */
+public final class AnalogStickMetrics {
+
+    /**
+     * Prediction errors are recorded as whole numbers of this fraction of the maximum radius, so a
+     * recorded 10000 is 1%.
+     */
+    static final float PREDICTION_ERROR_SCALE = 1000000f;
+
+    private final LatencyHistogram eventToDispatch = new LatencyHistogram();
+
+    private final LatencyHistogram listenerTime = new LatencyHistogram();
+
+    private final LatencyHistogram dispatchToDraw = new LatencyHistogram();
+
+    private final LatencyHistogram predictionError = new LatencyHistogram();
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong dispatched = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Time of the last dispatch that has not been drawn yet, 0 if none.
+     */
+    private final AtomicLong pendingDispatch = new AtomicLong();
+
+    /**
+     * Samples received since the last dispatch. Only touched by the input thread.
+     */
+    private long undispatched;
+
+    /**
+     * @return the histogram of touch event time to listener dispatch.
+     */
+    public LatencyHistogram getEventToDispatch() {
+        return eventToDispatch;
+    }
+
+    /**
+     * @return the histogram of time spent in listener callbacks.
+     */
+    public LatencyHistogram getListenerTime() {
+        return listenerTime;
+    }
+
+    /**
+     * @return the histogram of dispatch to the next draw.
+     */
+    public LatencyHistogram getDispatchToDraw() {
+        return dispatchToDraw;
+    }
+
+    /**
+     * @return the number of predictions that were checked against a measured position.
+     */
+    public long getPredictionCount() {
+        return predictionError.snapshot().getCount();
+    }
+
+    /**
+     * Returns the prediction error that the given percentage of the checked predictions are at or
+     * below. Takes a snapshot, so call it when reporting rather than on every frame.
+     * @param percentile the percentile, between 0 and 100.
+     * @return the error as a fraction of the maximum radius, so 0.01 is 1%, or 0 if no prediction
+     * was checked.
+     */
+    public float getPredictionErrorPercentile(double percentile) {
+        return predictionError.snapshot().getPercentile(percentile) / PREDICTION_ERROR_SCALE;
+    }
+
+    /**
+     * @return the largest prediction error as a fraction of the maximum radius.
+     */
+    public float getMaxPredictionError() {
+        return predictionError.snapshot().getMax() / PREDICTION_ERROR_SCALE;
+    }
+
+    /**
+     * Returns the histogram that the predictor records its errors into. The values are distances
+     * in units of {@link #PREDICTION_ERROR_SCALE}, not durations.
+     * @return the prediction error histogram.
+     */
+    LatencyHistogram getPredictionErrorHistogram() {
+        return predictionError;
+    }
+
+    /**
+     * @return the number of touch samples received.
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return the number of states dispatched to the listener.
+     */
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * @return the number of touch samples that were folded into a later dispatch.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Clears all the histograms and counters.
+     */
+    public void reset() {
+        eventToDispatch.reset();
+        listenerTime.reset();
+        dispatchToDraw.reset();
+        predictionError.reset();
+        received.set(0);
+        dispatched.set(0);
+        coalesced.set(0);
+        pendingDispatch.set(0);
+    }
+
+    /**
+     * Counts a touch sample.
+     */
+    void onSampleReceived() {
+        received.getAndIncrement();
+        undispatched++;
+    }
+
+    /**
+     * Records a dispatch of a state to the listener.
+     * @param eventTime the uptime in milliseconds of the sample that was dispatched. It is compared
+     *                  to start, so it has to be in the {@link android.os.SystemClock#uptimeMillis()}
+     *                  time base that {@link System#nanoTime()} counts in on Android.
+     * @param start {@link System#nanoTime()} before the listener was called.
+     * @param end {@link System#nanoTime()} after the listener returned.
+     */
+    void onDispatched(long eventTime, long start, long end) {
+        dispatched.getAndIncrement();
+        if(undispatched > 0) {
+            //only touch samples have a meaningful event time, recenter frames are skipped.
+            eventToDispatch.record(start - eventTime * 1000000L);
+            coalesced.getAndAdd(undispatched - 1);
+            undispatched = 0;
+        }
+        listenerTime.record(end - start);
+        pendingDispatch.set(start);
+    }
+
+    /**
+     * Records time spent in a listener outside of a dispatch, like the batch listener.
+     * @param start {@link System#nanoTime()} before the listener was called.
+     * @param end {@link System#nanoTime()} after the listener returned.
+     */
+    void onListenerCalled(long start, long end) {
+        listenerTime.record(end - start);
+    }
+
+    /**
+     * Records that the stick was drawn. Can be called from a render thread.
+     * @param now {@link System#nanoTime()} of the draw.
+     */
+    void onDrawn(long now) {
+        long dispatchTime = pendingDispatch.getAndSet(0);
+        if(dispatchTime != 0) {
+            dispatchToDraw.record(now - dispatchTime);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.devpaul.analogsticklib;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An analog stick that draws on its own render thread instead of the UI thread. Touch input is
+ * still handled on the UI thread by an {@link AnalogStickCore}, which publishes every update. The
+ * render thread is woken after each update, reads the latest published state without locking and
+ * draws it straight to the surface, so a busy UI thread no longer delays the knob.
+ * <p>
+ * The return to the center is stepped on the render thread from its own frame time, and only the
+ * listener dispatch of each step is posted back to the UI thread, so the knob keeps returning at
+ * display rate even while the UI thread is janky. Both threads only use the core while
+ * synchronized on it, including the listener dispatch, which keeps it single threaded as far as
+ * the core can tell. Only the render thread's lock free read of the published state runs outside
+ * of the lock.
+ * <p>
+ * Listeners are set on the core, see {@link #getCore()}. The surface is placed on top of the
+ * window so the area outside the circles stays transparent.
+ */
+public class AnalogStickSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    /**
+     * Input handling and geometry of the stick.
+     */
+    private final AnalogStickCore core = new AnalogStickCore();
+
+    /**
+     * Paint for the outer circle. Shared and never changed, a new color publishes a new paint.
+     */
+    private volatile Paint outerPaint;
+
+    /**
+     * Paint for the inner circle. Shared and never changed, a new color publishes a new paint.
+     */
+    private volatile Paint innerPaint;
+
+    /**
+     * Frame timing listener, called from the render thread.
+     */
+    private volatile OnFrameTimingListener frameTimingListener;
+
+    /**
+     * Thread that draws to the surface, only alive while the surface exists.
+     */
+    private RenderThread renderThread;
+
+    /**
+     * Delivers the update held back by the emission rate limit.
+     */
+    private final Runnable emissionFlush = new Runnable() {
+        @Override
+        public void run() {
+            synchronized(core) {
+                emissionFlushPosted = false;
+                core.flushEmission(SystemClock.uptimeMillis());
+                scheduleEmissionFlush();
+            }
+        }
+    };
+
+    /**
+     * Whether {@link #emissionFlush} is posted. Guarded by the core.
+     */
+    private boolean emissionFlushPosted;
+
+    /**
+     * Reusable view of the current touch event.
+     */
+    private final MotionEventSource touchSource = new MotionEventSource();
+
+    /**
+     * Tracks the pointer holding the stick and feeds its moves into the core.
+     */
+    private final StickTouchHandler touchHandler = new StickTouchHandler(core,
+            new StickTouchHandler.Callback() {
+                @Override
+                public void onStickMoved() {
+                    core.dispatch(core.getState());
+                    scheduleEmissionFlush();
+                    requestRender();
+                }
+
+                @Override
+                public void onStickReleased(long eventTime) {
+                    release(eventTime);
+                }
+            });
+
+    /**
+     * Delivers the latest recenter step on the UI thread.
+     */
+    private final Runnable recenterDispatch = new Runnable() {
+        @Override
+        public void run() {
+            synchronized(core) {
+                recenterDispatchPosted = false;
+                //a touch that grabbed the knob since the step has delivered newer state already.
+                if(core.isPressed()) {
+                    return;
+                }
+                //dispatch changes the emission, direction and metrics state of the core.
+                dispatchState.set(recenterState);
+                core.dispatch(dispatchState);
+                scheduleEmissionFlush();
+            }
+        }
+    };
+
+    /**
+     * Latest recenter step, written by the render thread. Guarded by the core.
+     */
+    private final AnalogState recenterState = new AnalogState();
+
+    /**
+     * Copy of {@link #recenterState} that the UI thread delivers.
+     */
+    private final AnalogState dispatchState = new AnalogState();
+
+    /**
+     * Whether {@link #recenterDispatch} is posted. Guarded by the core.
+     */
+    private boolean recenterDispatchPosted;
+
+    /**
+     * Whether the render thread should step the return to the center. Lets the render thread
+     * skip the lock while the stick is held.
+     */
+    private volatile boolean recenterPending;
+
+    /**
+     * Frame time of the previous recenter step in nanoseconds. Guarded by the core.
+     */
+    private long lastRecenterTime;
+
+    /**
+     * Center x coordinate as seen by the render thread.
+     */
+    private volatile float centerX;
+
+    /**
+     * Center y coordinate as seen by the render thread.
+     */
+    private volatile float centerY;
+
+    /**
+     * Inner radius as seen by the render thread.
+     */
+    private volatile int innerRadius;
+
+    /**
+     * Outer radius as seen by the render thread.
+     */
+    private volatile int outerRadius;
+
+    /**
+     * Maximum movement as seen by the render thread.
+     */
+    private volatile int maxRadius;
+
+    /**
+     * Constructor for a surface analog stick.
+     * @param context the context passed in to this view.
+     * @param attrs Attribute set, needed for xml attributes.
+     * @param defStyleAttr optional style.
+     */
+    public AnalogStickSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        initialize(context, attrs);
+    }
+
+    /**
+     * Constructor for a surface analog stick.
+     * @param context the context passed in to this view.
+     * @param attrs an AttributeSet for reading the xml attributes.
+     */
+    public AnalogStickSurfaceView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        initialize(context, attrs);
+    }
+
+    /**
+     * Simple Constructor
+     * @param context the context passed in to this view.
+     */
+    public AnalogStickSurfaceView(Context context) {
+        super(context);
+        initialize(context, null);
+    }
+
+    /**
+     * Initializes various parts of the view.
+     * @param context the context passed in to this view.
+     * @param attrs an AttributeSet for reading the xml attributes.
+     */
+    private void initialize(Context context, AttributeSet attrs) {
+        int innerColor = StickPaints.DEFAULT_INNER_COLOR;
+        int outerColor = StickPaints.DEFAULT_OUTER_COLOR;
+        if(attrs != null) {
+            //read the attributes.
+            TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.AnalogStick);
+            try {
+                innerColor = typedArray.getColor(R.styleable.AnalogStick_centerStickColor,
+                        innerColor);
+                outerColor = typedArray.getColor(R.styleable.AnalogStick_outerCircleColor,
+                        outerColor);
+            } finally {
+                typedArray.recycle();
+            }
+        }
+
+        outerPaint = StickPaints.fill(outerColor);
+        innerPaint = StickPaints.fill(innerColor);
+
+        setFocusable(true);
+        setZOrderOnTop(true);
+        SurfaceHolder holder = getHolder();
+        holder.setFormat(PixelFormat.TRANSLUCENT);
+        holder.addCallback(this);
+    }
+
+    /**
+     * Returns the core that handles the input. Use it to set listeners and read the state. The
+     * return to the center changes the core on the render thread, so only call methods that
+     * change it while synchronized on the core.
+     * @return the core.
+     */
+    public AnalogStickCore getCore() {
+        return core;
+    }
+
+    /**
+     * Sets a listener that is told when each update reaches the screen. It is called on the render
+     * thread right after the frame is posted.
+     * @param frameTimingListener the listener, or null to remove it.
+     */
+    public void setOnFrameTimingListener(OnFrameTimingListener frameTimingListener) {
+        this.frameTimingListener = frameTimingListener;
+    }
+
+    /**
+     * Sets the color of the inner circle.
+     * @param innerColor the color to set.
+     */
+    public void setInnerCircleColor(int innerColor) {
+        innerPaint = StickPaints.fill(innerColor);
+        requestRender();
+    }
+
+    /**
+     * Sets the color of the outer circle.
+     * @param outerColor the color to set.
+     */
+    public void setOuterCircleColor(int outerColor) {
+        outerPaint = StickPaints.fill(outerColor);
+        requestRender();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        synchronized(core) {
+            return touchHandler.onTouch(touchSource.set(event));
+        }
+    }
+
+    /**
+     * Lets go of the stick and starts returning it to the center.
+     * @param eventTime the time the stick was let go.
+     */
+    private void release(long eventTime) {
+        //called from the touch handler, which holds the lock on the core.
+        core.release(eventTime);
+        lastRecenterTime = System.nanoTime();
+        recenterPending = true;
+        requestRender();
+    }
+
+    /**
+     * Moves the stick closer to the center by the time since the previous step and posts the
+     * dispatch of the step to the UI thread. Called on the render thread before each frame.
+     * @return true if the stick moved and needs to be drawn.
+     */
+    private boolean stepRecenter() {
+        if(!recenterPending) {
+            return false;
+        }
+        synchronized(core) {
+            if(!core.isRecentering() || core.isPressed()) {
+                recenterPending = false;
+                return false;
+            }
+            long now = System.nanoTime();
+            //whole milliseconds only, the rest is carried over to the next frame.
+            long delta = (now - lastRecenterTime) / 1000000L;
+            lastRecenterTime += delta * 1000000L;
+            core.stepRecenter(delta, SystemClock.uptimeMillis());
+            recenterState.set(core.getState());
+            if(!recenterDispatchPosted) {
+                recenterDispatchPosted = true;
+                post(recenterDispatch);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Posts a delivery of the update held back by the emission rate limit, if there is one. Called
+     * while synchronized on the core.
+     */
+    private void scheduleEmissionFlush() {
+        long deadline = core.getEmissionDeadline();
+        if(deadline >= 0 && !emissionFlushPosted) {
+            emissionFlushPosted = true;
+            postDelayed(emissionFlush, Math.max(0, deadline - SystemClock.uptimeMillis()));
+        }
+    }
+
+    /**
+     * Wakes the render thread to draw the latest state.
+     */
+    private void requestRender() {
+        RenderThread thread = renderThread;
+        if(thread != null) {
+            thread.requestRender();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getDefaultSize(AnalogStick.DEFAULT_DIAMETER, widthMeasureSpec);
+        int height = getDefaultSize(AnalogStick.DEFAULT_DIAMETER, heightMeasureSpec);
+        int d = Math.min(width, height);
+        setMeasuredDimension(d, d);
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        renderThread = new RenderThread(holder);
+        renderThread.start();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized(core) {
+            //the render thread may be stepping the return to the center.
+            core.setSize(width, height);
+            centerX = core.getCenterX();
+            centerY = core.getCenterY();
+            innerRadius = core.getInnerRadius();
+            outerRadius = core.getOuterRadius();
+            maxRadius = core.getMaxRadius();
+        }
+        requestRender();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        //the surface can't be touched once this returns so wait for the thread to finish.
+        RenderThread thread = renderThread;
+        renderThread = null;
+        if(thread != null) {
+            thread.quit();
+        }
+        synchronized(core) {
+            core.cancelRecenter();
+            recenterPending = false;
+            recenterDispatchPosted = false;
+            emissionFlushPosted = false;
+        }
+        removeCallbacks(recenterDispatch);
+        removeCallbacks(emissionFlush);
+    }
+
+    /**
+     * Draws the published state whenever it is woken up, and parks otherwise. While the stick
+     * returns to the center it steps the return and draws every frame without parking, paced by
+     * the surface handing out buffers at display rate.
+     */
+    private final class RenderThread extends Thread {
+
+        /**
+         * How long to wait before trying again when the surface has no buffer to draw into.
+         */
+        private static final long NO_BUFFER_BACKOFF_NANOS = 16000000L;
+
+        private final SurfaceHolder holder;
+
+        /**
+         * State the render thread reads the published state into.
+         */
+        private final AnalogState frame = new AnalogState();
+
+        private volatile boolean running = true;
+
+        private volatile boolean renderRequested = true;
+
+        RenderThread(SurfaceHolder holder) {
+            super("AnalogStickRender");
+            this.holder = holder;
+        }
+
+        void requestRender() {
+            renderRequested = true;
+            LockSupport.unpark(this);
+        }
+
+        void quit() {
+            running = false;
+            LockSupport.unpark(this);
+            boolean interrupted = false;
+            while(isAlive()) {
+                try {
+                    join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while(running) {
+                boolean recentering = stepRecenter();
+                if(!renderRequested && !recentering) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                //clear the flag before reading so an update during the draw wakes us again.
+                renderRequested = false;
+                core.readState(frame);
+                Paint outer = outerPaint;
+                Paint inner = innerPaint;
+                Canvas canvas = holder.lockCanvas();
+                if(canvas == null) {
+                    //no buffer to draw into, try again a frame later instead of spinning.
+                    renderRequested = true;
+                    LockSupport.parkNanos(this, NO_BUFFER_BACKOFF_NANOS);
+                    continue;
+                }
+                try {
+                    canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                    canvas.drawCircle(centerX, centerY, outerRadius, outer);
+                    //the predicted position is the measured one when there is no predictor.
+                    canvas.drawCircle(centerX + frame.predictedX * maxRadius,
+                            centerY - frame.predictedY * maxRadius, innerRadius, inner);
+                } finally {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+                AnalogStickMetrics metrics = core.getMetrics();
+                if(metrics != null) {
+                    metrics.onDrawn(System.nanoTime());
+                }
+                OnFrameTimingListener listener = frameTimingListener;
+                if(listener != null) {
+                    listener.onFrameRendered(frame.eventTime, SystemClock.uptimeMillis());
+                }
+            }
+        }
+    }
+}
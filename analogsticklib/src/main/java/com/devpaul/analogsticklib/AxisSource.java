@@ -0,0 +1,23 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * The parts of a joystick event that {@link GamepadInput} reads. {@link MotionEventSource}
+ * implements it over a {@link android.view.MotionEvent}, tests implement it with synthetic axis
+ * streams.
+ */
+interface AxisSource {
+
+    /**
+     * @param axis one of the MotionEvent AXIS_* values.
+     * @return the latest value of the axis.
+     */
+    float getAxisValue(int axis);
+
+    float getHistoricalAxisValue(int axis, int pos);
+
+    long getEventTime();
+
+    int getHistorySize();
+
+    long getHistoricalEventTime(int pos);
+}
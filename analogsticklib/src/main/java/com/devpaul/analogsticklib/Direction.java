@@ -0,0 +1,10 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Direction of the stick in D-pad mode, see {@link AnalogStick#setDirectionMode(int)}. In 4 way
+ * mode only NONE and the four cardinal directions are used.
+ */
+public enum Direction {
+
+    NONE, RIGHT, UP_RIGHT, UP, UP_LEFT, LEFT, DOWN_LEFT, DOWN, DOWN_RIGHT
+}
@@ -0,0 +1,149 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Maps the stick position to one of 4 or 8 directions, or neutral. Hysteresis keeps the direction
+ * from flickering at the boundaries: the stick has to move past the engage radius to leave
+ * neutral but only has to come back inside the smaller release radius to return to it, and a held
+ * direction is kept until the stick is a margin past the edge of its sector.
+ */
+public final class DirectionClassifier {
+
+    private static final Direction[] EIGHT_WAY = {
+            Direction.RIGHT, Direction.UP_RIGHT, Direction.UP, Direction.UP_LEFT,
+            Direction.LEFT, Direction.DOWN_LEFT, Direction.DOWN, Direction.DOWN_RIGHT
+    };
+
+    private static final Direction[] FOUR_WAY = {
+            Direction.RIGHT, Direction.UP, Direction.LEFT, Direction.DOWN
+    };
+
+    private Direction[] sectors;
+
+    private float sectorWidth;
+
+    private float engageRadius = 0.5f;
+
+    private float releaseRadius = 0.4f;
+
+    private float angularHysteresis = 5f;
+
+    private Direction direction = Direction.NONE;
+
+    /**
+     * Index of the held direction in {@link #sectors}.
+     */
+    private int sector = -1;
+
+    /**
+     * Creates a classifier.
+     * @param directions 4 or 8.
+     */
+    public DirectionClassifier(int directions) {
+        setDirections(directions);
+    }
+
+    /**
+     * Sets the number of directions.
+     * @param directions 4 or 8.
+     */
+    public void setDirections(int directions) {
+        if(directions == 4) {
+            sectors = FOUR_WAY;
+        } else if(directions == 8) {
+            sectors = EIGHT_WAY;
+        } else {
+            throw new IllegalArgumentException("Directions must be 4 or 8: " + directions);
+        }
+        sectorWidth = 360f / sectors.length;
+        reset();
+    }
+
+    /**
+     * @return the number of directions.
+     */
+    public int getDirections() {
+        return sectors.length;
+    }
+
+    /**
+     * Sets the radial hysteresis.
+     * @param engage distance from the center, as a fraction of the maximum movement, that the stick
+     *               has to pass to press a direction.
+     * @param release distance the stick has to come back inside to release it, at most engage.
+     */
+    public void setRadii(float engage, float release) {
+        this.engageRadius = engage;
+        this.releaseRadius = Math.min(release, engage);
+    }
+
+    public float getEngageRadius() {
+        return engageRadius;
+    }
+
+    public float getReleaseRadius() {
+        return releaseRadius;
+    }
+
+    /**
+     * Sets the angular hysteresis.
+     * @param degrees how far past the edge of its sector the stick has to go to change direction.
+     */
+    public void setAngularHysteresis(float degrees) {
+        this.angularHysteresis = Math.max(0f, Math.min(degrees, sectorWidth / 2));
+    }
+
+    public float getAngularHysteresis() {
+        return angularHysteresis;
+    }
+
+    /**
+     * Classifies a stick position.
+     * @param x the normalized x position.
+     * @param y the normalized y position, positive up.
+     * @return the direction, which is also kept as the current one.
+     */
+    public Direction update(float x, float y) {
+        float distanceSquared = x * x + y * y;
+        if(direction == Direction.NONE) {
+            if(distanceSquared < engageRadius * engageRadius) {
+                return direction;
+            }
+        } else if(distanceSquared < releaseRadius * releaseRadius) {
+            direction = Direction.NONE;
+            sector = -1;
+            return direction;
+        }
+
+        //angle counter clockwise from the right, in [0, 360).
+        float angle = (float) Math.toDegrees(Math.atan2(y, x));
+        if(angle < 0) {
+            angle += 360f;
+        }
+        if(sector >= 0) {
+            float offset = Math.abs(angle - sector * sectorWidth);
+            offset = Math.min(offset, 360f - offset);
+            if(offset <= sectorWidth / 2 + angularHysteresis) {
+                //still close enough to the held direction.
+                return direction;
+            }
+        }
+        sector = Math.round(angle / sectorWidth) % sectors.length;
+        direction = sectors[sector];
+        return direction;
+    }
+
+    /**
+     * @return the current direction.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Goes back to neutral.
+     */
+    public void reset() {
+        direction = Direction.NONE;
+        sector = -1;
+    }
+}
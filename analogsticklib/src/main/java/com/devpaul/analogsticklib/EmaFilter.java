@@ -0,0 +1,72 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Exponential moving average with a time constant instead of a fixed weight, so the amount of
+ * smoothing does not depend on how often samples arrive.
+ */
+public final class EmaFilter implements StickFilter {
+
+    private float timeConstant;
+
+    private float x;
+
+    private float y;
+
+    private long lastTime;
+
+    private boolean primed;
+
+    /**
+     * Creates an average.
+     * @param timeConstant the time in milliseconds it takes to move about 63% of the way to a new
+     *                     position. Larger is smoother but lags more.
+     */
+    public EmaFilter(float timeConstant) {
+        setTimeConstant(timeConstant);
+    }
+
+    /**
+     * @param timeConstant the time constant in milliseconds.
+     */
+    public void setTimeConstant(float timeConstant) {
+        this.timeConstant = Math.max(0.001f, timeConstant);
+    }
+
+    /**
+     * @return the time constant in milliseconds.
+     */
+    public float getTimeConstant() {
+        return timeConstant;
+    }
+
+    @Override
+    public void filter(float x, float y, long eventTime) {
+        if(!primed) {
+            this.x = x;
+            this.y = y;
+            lastTime = eventTime;
+            primed = true;
+            return;
+        }
+        float dt = Math.max(eventTime - lastTime, 0);
+        lastTime = eventTime;
+        float alpha = 1f - (float) Math.exp(-dt / timeConstant);
+        this.x += alpha * (x - this.x);
+        this.y += alpha * (y - this.y);
+    }
+
+    @Override
+    public float getX() {
+        return x;
+    }
+
+    @Override
+    public float getY() {
+        return y;
+    }
+
+    @Override
+    public void reset() {
+        primed = false;
+    }
+}
@@ -0,0 +1,210 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Decides which updates are worth sending to the listener, see
+ * {@link AnalogStickCore#setEmissionPolicy(EmissionPolicy)}. A channel is only reported when it
+ * moved at least its minimum delta since it was last reported, the quadrant only when it changes,
+ * and the listener is called at most at the maximum rate. An update held back by the rate limit is
+ * delivered when the limit allows, so the listener always ends up with the final value. When the
+ * stick comes to rest in the center every channel that differs at all is reported, so small
+ * thresholds never leave a listener just off center.
+ */
+public final class EmissionPolicy {
+
+    private float minRawDelta;
+
+    private float minScaledDelta;
+
+    private float minAngleDelta;
+
+    private boolean quadrantOnChange = true;
+
+    /**
+     * Shortest time between two updates in milliseconds, 0 for no limit.
+     */
+    private long minInterval;
+
+    private boolean hasEmitted;
+
+    private long lastEmitTime;
+
+    private float lastRawX;
+
+    private float lastRawY;
+
+    private float lastScaledX;
+
+    private float lastScaledY;
+
+    private float lastAngle;
+
+    private Quadrant lastQuadrant;
+
+    /**
+     * Sets how far the knob has to move before the raw position is reported again.
+     * @param delta the minimum change in pixels along either axis.
+     */
+    public void setMinRawDelta(float delta) {
+        this.minRawDelta = delta;
+    }
+
+    public float getMinRawDelta() {
+        return minRawDelta;
+    }
+
+    /**
+     * Sets how much a scaled value has to change before it is reported again. 1 reports a change
+     * only when the value moved by a whole unit.
+     * @param delta the minimum change of each scaled value.
+     */
+    public void setMinScaledDelta(float delta) {
+        this.minScaledDelta = delta;
+    }
+
+    public float getMinScaledDelta() {
+        return minScaledDelta;
+    }
+
+    /**
+     * Sets how much the angle has to change before it is reported again.
+     * @param delta the minimum change in degrees.
+     */
+    public void setMinAngleDelta(float delta) {
+        this.minAngleDelta = delta;
+    }
+
+    public float getMinAngleDelta() {
+        return minAngleDelta;
+    }
+
+    /**
+     * Sets whether the quadrant is only reported when it changes. On by default.
+     * @param onChange true to report the quadrant only when it changes.
+     */
+    public void setQuadrantOnChange(boolean onChange) {
+        this.quadrantOnChange = onChange;
+    }
+
+    public boolean isQuadrantOnChange() {
+        return quadrantOnChange;
+    }
+
+    /**
+     * Limits how often the listener is called.
+     * @param hz the most updates per second, 0 for no limit.
+     */
+    public void setMaxRate(float hz) {
+        minInterval = hz > 0 ? (long) Math.ceil(1000f / hz) : 0;
+    }
+
+    /**
+     * @return the shortest time between updates in milliseconds, 0 for no limit.
+     */
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    /**
+     * Returns the channels of a state that changed enough to be reported.
+     * @param state the state to check.
+     * @return the CHANNEL_* flags to report, 0 if nothing changed enough.
+     */
+    int mask(AnalogState state) {
+        int changed = state.changedChannels;
+        if(!hasEmitted) {
+            return changed;
+        }
+        boolean atRest = state.normalizedX == 0 && state.normalizedY == 0;
+        int mask = 0;
+        if((changed & AnalogState.CHANNEL_RAW) != 0
+                && (exceeds(state.rawX, lastRawX, minRawDelta, atRest)
+                || exceeds(state.rawY, lastRawY, minRawDelta, atRest))) {
+            mask |= AnalogState.CHANNEL_RAW;
+        }
+        if((changed & AnalogState.CHANNEL_SCALED_X) != 0
+                && exceeds(state.scaledX, lastScaledX, minScaledDelta, atRest)) {
+            mask |= AnalogState.CHANNEL_SCALED_X;
+        }
+        if((changed & AnalogState.CHANNEL_SCALED_Y) != 0
+                && exceeds(state.scaledY, lastScaledY, minScaledDelta, atRest)) {
+            mask |= AnalogState.CHANNEL_SCALED_Y;
+        }
+        if((changed & AnalogState.CHANNEL_ANGLE) != 0) {
+            float delta = Math.abs(state.angle - lastAngle);
+            //the angle wraps around at 360.
+            delta = Math.min(delta, 360f - delta);
+            if(delta >= minAngleDelta && delta > 0) {
+                mask |= AnalogState.CHANNEL_ANGLE;
+            }
+        }
+        if((changed & AnalogState.CHANNEL_QUADRANT) != 0
+                && (!quadrantOnChange || state.quadrant != lastQuadrant)) {
+            mask |= AnalogState.CHANNEL_QUADRANT;
+        }
+        return mask;
+    }
+
+    private static boolean exceeds(float value, float last, float minDelta, boolean atRest) {
+        float delta = Math.abs(value - last);
+        return atRest ? delta > 0 : delta >= minDelta && delta > 0;
+    }
+
+    /**
+     * Returns whether an update at the given time has to wait for the rate limit.
+     * @param now the current time in milliseconds.
+     * @return true if it is too soon after the last update.
+     */
+    boolean isRateLimited(long now) {
+        return hasEmitted && minInterval > 0 && now - lastEmitTime < minInterval;
+    }
+
+    /**
+     * @return the earliest time the next update can be sent.
+     */
+    long nextEmitTime() {
+        return lastEmitTime + minInterval;
+    }
+
+    /**
+     * Remembers the reported values.
+     * @param state the state that was reported.
+     * @param mask the channels that were reported.
+     * @param now the time of the report.
+     */
+    void emitted(AnalogState state, int mask, long now) {
+        if(!hasEmitted) {
+            //everything reported the first time, but only channels that were set count.
+            lastRawX = state.rawX;
+            lastRawY = state.rawY;
+            lastScaledX = state.scaledX;
+            lastScaledY = state.scaledY;
+            lastAngle = state.angle;
+            lastQuadrant = state.quadrant;
+            hasEmitted = true;
+        }
+        if((mask & AnalogState.CHANNEL_RAW) != 0) {
+            lastRawX = state.rawX;
+            lastRawY = state.rawY;
+        }
+        if((mask & AnalogState.CHANNEL_SCALED_X) != 0) {
+            lastScaledX = state.scaledX;
+        }
+        if((mask & AnalogState.CHANNEL_SCALED_Y) != 0) {
+            lastScaledY = state.scaledY;
+        }
+        if((mask & AnalogState.CHANNEL_ANGLE) != 0) {
+            lastAngle = state.angle;
+        }
+        if((mask & AnalogState.CHANNEL_QUADRANT) != 0) {
+            lastQuadrant = state.quadrant;
+        }
+        lastEmitTime = now;
+    }
+
+    /**
+     * Forgets the reported values so the next update is reported in full.
+     */
+    public void reset() {
+        hasEmitted = false;
+    }
+}
@@ -0,0 +1,86 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Runs several filters one after the other, each one filtering the output of the previous one.
+ */
+public final class FilterChain implements StickFilter {
+
+    private StickFilter[] filters;
+
+    private float x;
+
+    private float y;
+
+    /**
+     * Creates a chain.
+     * @param filters the filters in the order they run.
+     */
+    public FilterChain(StickFilter... filters) {
+        this.filters = filters.clone();
+    }
+
+    /**
+     * Adds a filter to the end of the chain.
+     * @param filter the filter to add.
+     */
+    public void add(StickFilter filter) {
+        StickFilter[] grown = new StickFilter[filters.length + 1];
+        System.arraycopy(filters, 0, grown, 0, filters.length);
+        grown[filters.length] = filter;
+        filters = grown;
+    }
+
+    /**
+     * Removes a filter from the chain.
+     * @param filter the filter to remove.
+     * @return true if it was in the chain.
+     */
+    public boolean remove(StickFilter filter) {
+        for(int i = 0; i < filters.length; i++) {
+            if(filters[i] == filter) {
+                StickFilter[] shrunk = new StickFilter[filters.length - 1];
+                System.arraycopy(filters, 0, shrunk, 0, i);
+                System.arraycopy(filters, i + 1, shrunk, i, filters.length - i - 1);
+                filters = shrunk;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of filters in the chain.
+     */
+    public int size() {
+        return filters.length;
+    }
+
+    @Override
+    public void filter(float x, float y, long eventTime) {
+        StickFilter[] chain = filters;
+        for(int i = 0; i < chain.length; i++) {
+            chain[i].filter(x, y, eventTime);
+            x = chain[i].getX();
+            y = chain[i].getY();
+        }
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public float getX() {
+        return x;
+    }
+
+    @Override
+    public float getY() {
+        return y;
+    }
+
+    @Override
+    public void reset() {
+        for(int i = 0; i < filters.length; i++) {
+            filters[i].reset();
+        }
+    }
+}
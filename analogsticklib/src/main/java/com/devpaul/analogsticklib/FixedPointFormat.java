@@ -0,0 +1,77 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Integer encoding of the stick output for receivers that want commands instead of floats, see
+ * {@link AnalogStickCore#setFixedPointFormat(FixedPointFormat)}. The axes go from -axisRange to
+ * axisRange and the angle from 0 up to angleUnits, one full turn.
+ */
+public final class FixedPointFormat {
+
+    /**
+     * Signed 16 bit axes and the angle in tenths of a degree.
+     */
+    public static final FixedPointFormat SIGNED_16 = new FixedPointFormat(Short.MAX_VALUE, 3600);
+
+    private final int axisRange;
+
+    private final int angleUnits;
+
+    private final float angleScale;
+
+    /**
+     * Creates a new format.
+     * @param axisRange the value of a fully deflected axis, for example 32767 for signed 16 bit
+     *                  or 127 for signed 8 bit.
+     * @param angleUnits the number of angle units in a full turn, for example 360 for degrees or
+     *                   65536 for binary angles.
+     */
+    public FixedPointFormat(int axisRange, int angleUnits) {
+        if(axisRange < 1 || angleUnits < 1) {
+            throw new IllegalArgumentException("Axis range and angle units must be positive: "
+                    + axisRange + ", " + angleUnits);
+        }
+        this.axisRange = axisRange;
+        this.angleUnits = angleUnits;
+        this.angleScale = angleUnits / 360f;
+    }
+
+    /**
+     * @return the value of a fully deflected axis.
+     */
+    public int getAxisRange() {
+        return axisRange;
+    }
+
+    /**
+     * @return the number of angle units in a full turn.
+     */
+    public int getAngleUnits() {
+        return angleUnits;
+    }
+
+    /**
+     * Converts an axis value to fixed point, rounding to the nearest step.
+     * @param value the axis value, -1 to 1.
+     * @return the fixed point value.
+     */
+    int toAxis(float value) {
+        if(value >= 1) {
+            return axisRange;
+        }
+        if(value <= -1) {
+            return -axisRange;
+        }
+        return Math.round(value * axisRange);
+    }
+
+    /**
+     * Converts an angle to fixed point, rounding to the nearest unit.
+     * @param degrees the angle in degrees, in [0, 360).
+     * @return the angle in units, in [0, angleUnits).
+     */
+    int toAngle(float degrees) {
+        int units = Math.round(degrees * angleScale);
+        //just below 360 rounds up to a full turn.
+        return units >= angleUnits ? units - angleUnits : units;
+    }
+}
@@ -0,0 +1,107 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Collects all the stick updates within a display frame and delivers them in a single dispatch on
+ * the next display frame, which the host posts it to. Must only be used from the UI thread.
+ */
+final class FrameCoalescer implements Runnable {
+
+    /**
+     * Called with the coalesced state of each frame.
+     */
+    interface Target {
+        void onCoalescedFrame(AnalogState state, AnalogFrameStats stats);
+    }
+
+    private final StickDispatcher.Host host;
+    private final Target target;
+
+    /**
+     * Latest state of the current frame.
+     */
+    private final AnalogState pending = new AnalogState();
+
+    /**
+     * Stats of the current frame.
+     */
+    private final AnalogFrameStats stats = new AnalogFrameStats();
+
+    /**
+     * Channels changed by any sample of the current frame.
+     */
+    private int pendingChannels;
+
+    private boolean posted;
+
+    FrameCoalescer(StickDispatcher.Host host, Target target) {
+        this.host = host;
+        this.target = target;
+    }
+
+    /**
+     * Adds a sample to the current frame and schedules the frame callback if needed.
+     * @param state the sample.
+     */
+    void add(AnalogState state) {
+        stats.add(state.normalizedX, state.normalizedY, state.eventTime, pending.normalizedX,
+                pending.normalizedY);
+        push(state);
+    }
+
+    /**
+     * Adds all the samples of an input event to the stats of the current frame. The state of the
+     * frame becomes the latest sample.
+     * @param state the state of the latest sample.
+     * @param x the normalized x positions of every sample of the event, oldest first.
+     * @param y the normalized y positions.
+     * @param eventTimes the times of the samples.
+     * @param count the number of samples.
+     */
+    void add(AnalogState state, float[] x, float[] y, long[] eventTimes, int count) {
+        if(count == 0) {
+            add(state);
+            return;
+        }
+        float previousX = pending.normalizedX;
+        float previousY = pending.normalizedY;
+        for(int i = 0; i < count; i++) {
+            stats.add(x[i], y[i], eventTimes[i], previousX, previousY);
+            previousX = x[i];
+            previousY = y[i];
+        }
+        push(state);
+    }
+
+    /**
+     * Makes a state the latest of the current frame and schedules the frame callback if needed.
+     */
+    private void push(AnalogState state) {
+        pendingChannels |= state.changedChannels;
+        pending.set(state);
+        if(!posted) {
+            posted = true;
+            host.postOnAnimation(this);
+        }
+    }
+
+    /**
+     * Drops the current frame without dispatching it.
+     */
+    void cancel() {
+        if(posted) {
+            posted = false;
+            host.removeCallbacks(this);
+            stats.reset();
+            pendingChannels = 0;
+        }
+    }
+
+    @Override
+    public void run() {
+        posted = false;
+        pending.changedChannels = pendingChannels;
+        pendingChannels = 0;
+        target.onCoalescedFrame(pending, stats);
+        stats.reset();
+    }
+}
@@ -0,0 +1,36 @@
+package com.devpaul.analogsticklib;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Posts actions for the next display frame. Unlike an animator the frame callbacks keep coming when
+ * the animator duration scale is 0, for example with animations removed in the developer options
+ * or in battery saver.
+ */
+final class FramePoster {
+
+    /**
+     * Delay used instead of a frame callback before API 16, the default frame delay of the
+     * animation framework.
+     */
+    static final long FALLBACK_FRAME_DELAY = 10;
+
+    private FramePoster() {
+    }
+
+    /**
+     * Runs an action on the UI thread at the next display frame.
+     * @param view the view to post to.
+     * @param action the action, removed again with {@link View#removeCallbacks(Runnable)}.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    static void postOnAnimation(View view, Runnable action) {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            view.postOnAnimation(action);
+        } else {
+            view.postDelayed(action, FALLBACK_FRAME_DELAY);
+        }
+    }
+}
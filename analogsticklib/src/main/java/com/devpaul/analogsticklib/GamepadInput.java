@@ -0,0 +1,229 @@
+package com.devpaul.analogsticklib;
+
+import android.view.MotionEvent;
+
+/**
+ * Drives an {@link AnalogStickCore} from the axes of a hardware joystick or gamepad. The axis
+ * values go through the same clamping, scaling, filtering and listener dispatch as touch input.
+ * {@link AnalogStick} uses one for its joystick events, it can also be used on its own and fed
+ * with {@link #move(float, float, long)}.
+ * <p>
+ * Values inside the flat range of an axis count as centered and changes smaller than its fuzz
+ * are ignored as noise. The stick is held while the axes are off center and let go, without the
+ * return animation, once they are back. While a touch holds the stick the axes are ignored, also
+ * when the touch grabs the knob from the axes, until it lets go.
+ */
+public class GamepadInput {
+
+    private final AnalogStickCore core;
+
+    private int xAxis = MotionEvent.AXIS_X;
+
+    private int yAxis = MotionEvent.AXIS_Y;
+
+    private float flatX;
+
+    private float flatY;
+
+    private float fuzzX;
+
+    private float fuzzY;
+
+    /**
+     * Whether the axes hold the stick.
+     */
+    private boolean engaged;
+
+    /**
+     * Grab count of the core when the axes took the stick.
+     */
+    private int grab;
+
+    /**
+     * Last axis values that were not noise, before the flat range is removed.
+     */
+    private float lastRawX;
+
+    private float lastRawY;
+
+    private float lastX;
+
+    private float lastY;
+
+    /**
+     * Time of the last sample added to the core.
+     */
+    private long lastTime;
+
+    /**
+     * Whether {@link AnalogStickCore#beginSamples(int)} was called for the current event.
+     */
+    private boolean started;
+
+    /**
+     * Creates a new input for a stick.
+     * @param core the stick to drive.
+     */
+    public GamepadInput(AnalogStickCore core) {
+        this.core = core;
+    }
+
+    /**
+     * Sets the axes that move the stick. The default is AXIS_X and AXIS_Y, the left stick of
+     * most gamepads. Use AXIS_Z and AXIS_RZ for the right stick.
+     * @param xAxis the MotionEvent axis for x.
+     * @param yAxis the MotionEvent axis for y.
+     */
+    public void setAxes(int xAxis, int yAxis) {
+        this.xAxis = xAxis;
+        this.yAxis = yAxis;
+    }
+
+    /**
+     * @return the MotionEvent axis for x.
+     */
+    public int getXAxis() {
+        return xAxis;
+    }
+
+    /**
+     * @return the MotionEvent axis for y.
+     */
+    public int getYAxis() {
+        return yAxis;
+    }
+
+    /**
+     * Sets the flat and fuzz of both axes, normally from the motion ranges of the input device.
+     * @param flatX values of the x axis closer to 0 than this count as 0.
+     * @param fuzzX changes of the x axis smaller than this are ignored.
+     * @param flatY values of the y axis closer to 0 than this count as 0.
+     * @param fuzzY changes of the y axis smaller than this are ignored.
+     */
+    public void setAxisRanges(float flatX, float fuzzX, float flatY, float fuzzY) {
+        this.flatX = Math.max(0, Math.min(flatX, 0.99f));
+        this.fuzzX = Math.max(0, fuzzX);
+        this.flatY = Math.max(0, Math.min(flatY, 0.99f));
+        this.fuzzY = Math.max(0, fuzzY);
+    }
+
+    /**
+     * @return whether the axes currently hold the stick.
+     */
+    public boolean isEngaged() {
+        return engaged;
+    }
+
+    /**
+     * Moves the stick with one pair of axis values. Call {@link AnalogStickCore#dispatch(
+     * AnalogState)} afterwards if it returns true.
+     * @param x the x axis value, -1 to 1.
+     * @param y the y axis value, -1 to 1, positive down.
+     * @param eventTime the time of the sample.
+     * @return true if the stick moved or was let go.
+     */
+    public boolean move(float x, float y, long eventTime) {
+        if(!canMove()) {
+            return false;
+        }
+        started = false;
+        add(x, y, eventTime, 1);
+        return finish();
+    }
+
+    /**
+     * Moves the stick with the axes of a joystick event, including its historical samples when
+     * the core wants them.
+     * @param event the event.
+     * @return true if the stick moved or was let go.
+     */
+    boolean onAxes(AxisSource event) {
+        if(!canMove()) {
+            return false;
+        }
+        started = false;
+        int history = core.wantsHistory() ? event.getHistorySize() : 0;
+        for(int h = 0; h < history; h++) {
+            add(event.getHistoricalAxisValue(xAxis, h), event.getHistoricalAxisValue(yAxis, h),
+                    event.getHistoricalEventTime(h), history + 1 - h);
+        }
+        add(event.getAxisValue(xAxis), event.getAxisValue(yAxis), event.getEventTime(), 1);
+        return finish();
+    }
+
+    /**
+     * @return false while a touch holds the stick.
+     */
+    private boolean canMove() {
+        if(engaged && core.getGrabCount() != grab) {
+            //a touch took the knob, it keeps it until it lets go.
+            engaged = false;
+        }
+        return engaged || !core.isPressed();
+    }
+
+    /**
+     * Adds one sample to the core unless it is noise. The fuzz is in the units of the device, so
+     * it is compared to the raw values before the flat range is taken out.
+     * @param remaining the number of samples left in the event, including this one.
+     */
+    private void add(float rawX, float rawY, long eventTime, int remaining) {
+        float x = removeFlat(rawX, flatX);
+        float y = removeFlat(rawY, flatY);
+        boolean centered = x == 0 && y == 0;
+        if(!engaged) {
+            if(centered) {
+                return;
+            }
+            engaged = true;
+            core.grab();
+            grab = core.getGrabCount();
+        } else if(Math.abs(rawX - lastRawX) <= fuzzX && Math.abs(rawY - lastRawY) <= fuzzY
+                && (!centered || (lastX == 0 && lastY == 0))) {
+            //noise, but always let a return to the center through.
+            return;
+        }
+        if(!started) {
+            core.beginSamples(remaining);
+            started = true;
+        }
+        core.addAxisSample(x, y, eventTime);
+        lastRawX = rawX;
+        lastRawY = rawY;
+        lastX = x;
+        lastY = y;
+        lastTime = eventTime;
+    }
+
+    /**
+     * Finishes the samples of an event and lets go of the stick if the axes are centered.
+     * @return true if any sample was added.
+     */
+    private boolean finish() {
+        if(!started) {
+            return false;
+        }
+        core.endSamples();
+        if(lastX == 0 && lastY == 0) {
+            //the hardware stick is already back in the center, no need to animate it there.
+            engaged = false;
+            core.release(lastTime);
+            core.cancelRecenter();
+        }
+        return true;
+    }
+
+    /**
+     * Maps values inside the flat range to 0 and stretches the rest back to the full range, so
+     * the output doesn't jump at the edge of the flat range.
+     */
+    private static float removeFlat(float value, float flat) {
+        if(value > flat) {
+            return (value - flat) / (1 - flat);
+        }
+        if(value < -flat) {
+            return (value + flat) / (1 - flat);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * A copy of a {@link LatencyHistogram} at one point in time. All values are in nanoseconds.
+ * Percentiles are reported as the highest value of the bucket they fall in, capped at the largest
+ * recorded value.
+ */
+public final class HistogramSnapshot {
+
+    final long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+    long count;
+    long total;
+    long max;
+
+    /**
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean of the recorded values, or 0 if there are none.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @return the largest recorded value.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the value that the given percentage of the recorded values are at or below.
+     * @param percentile the percentile, between 0 and 100.
+     * @return the value at the percentile, or 0 if there are no values.
+     */
+    public long getPercentile(double percentile) {
+        if(count == 0) {
+            return 0;
+        }
+        //multiply first, 99.9 / 100 * 1000 rounds up past 999 and would skip a whole value.
+        long rank = (long) Math.ceil(percentile * count / 100.0);
+        rank = Math.max(1, Math.min(count, rank));
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return Math.min(LatencyHistogram.highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the median.
+     */
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile.
+     */
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile.
+     */
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " p50=" + getP50() + "ns p99=" + getP99() + "ns p999="
+                + getP999() + "ns max=" + max + "ns";
+    }
+}
@@ -0,0 +1,138 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Constant velocity Kalman filter run independently on each axis. It tracks position and speed,
+ * so unlike a plain low pass filter it follows steady movement without lagging behind.
+ */
+public final class KalmanFilter implements StickFilter {
+
+    /**
+     * State of one axis, the position and speed estimate and their covariance.
+     */
+    private static final class Axis {
+        float position;
+        float velocity;
+        float p00;
+        float p01;
+        float p11;
+
+        void reset(float position, float measurementNoise) {
+            this.position = position;
+            velocity = 0;
+            p00 = measurementNoise;
+            p01 = 0;
+            p11 = 1f;
+        }
+
+        void update(float measurement, float dt, float processNoise, float measurementNoise) {
+            //predict, the speed is assumed constant and acceleration is the process noise.
+            position += velocity * dt;
+            float dt2 = dt * dt;
+            p00 += dt * (2 * p01 + dt * p11) + processNoise * dt2 * dt / 3f;
+            p01 += dt * p11 + processNoise * dt2 / 2f;
+            p11 += processNoise * dt;
+
+            //correct with the measured position.
+            float innovation = measurement - position;
+            float s = p00 + measurementNoise;
+            float k0 = p00 / s;
+            float k1 = p01 / s;
+            position += k0 * innovation;
+            velocity += k1 * innovation;
+            p11 -= k1 * p01;
+            p01 -= k0 * p01;
+            p00 -= k0 * p00;
+        }
+    }
+
+    private final Axis axisX = new Axis();
+
+    private final Axis axisY = new Axis();
+
+    private float processNoise;
+
+    private float measurementNoise;
+
+    private long lastTime;
+
+    private boolean primed;
+
+    /**
+     * Creates a filter with a process noise of 50 and a measurement noise of 0.0001.
+     */
+    public KalmanFilter() {
+        this(50f, 0.0001f);
+    }
+
+    /**
+     * Creates a filter.
+     * @param processNoise how much the speed is expected to change, in normalized units per
+     *                     second squared. Higher follows changes of direction faster.
+     * @param measurementNoise variance of the touch position noise in normalized units. Higher
+     *                         is smoother.
+     */
+    public KalmanFilter(float processNoise, float measurementNoise) {
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+    }
+
+    public void setProcessNoise(float processNoise) {
+        this.processNoise = processNoise;
+    }
+
+    public float getProcessNoise() {
+        return processNoise;
+    }
+
+    public void setMeasurementNoise(float measurementNoise) {
+        this.measurementNoise = measurementNoise;
+    }
+
+    public float getMeasurementNoise() {
+        return measurementNoise;
+    }
+
+    @Override
+    public void filter(float x, float y, long eventTime) {
+        if(!primed) {
+            axisX.reset(x, measurementNoise);
+            axisY.reset(y, measurementNoise);
+            lastTime = eventTime;
+            primed = true;
+            return;
+        }
+        float dt = Math.max(eventTime - lastTime, 0) / 1000f;
+        lastTime = eventTime;
+        axisX.update(x, dt, processNoise, measurementNoise);
+        axisY.update(y, dt, processNoise, measurementNoise);
+    }
+
+    /**
+     * @return the estimated x speed in normalized units per second.
+     */
+    public float getVelocityX() {
+        return axisX.velocity;
+    }
+
+    /**
+     * @return the estimated y speed in normalized units per second.
+     */
+    public float getVelocityY() {
+        return axisY.velocity;
+    }
+
+    @Override
+    public float getX() {
+        return axisX.position;
+    }
+
+    @Override
+    public float getY() {
+        return axisY.position;
+    }
+
+    @Override
+    public void reset() {
+        primed = false;
+    }
+}
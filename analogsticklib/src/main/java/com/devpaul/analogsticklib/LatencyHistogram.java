@@ -0,0 +1,124 @@
+package com.devpaul.analogsticklib;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size histogram of durations in nanoseconds. Values are counted in log scaled buckets with
+ * 16 sub buckets per power of two, so any recorded value is known to within about 6%. Everything is
+ * allocated up front and recording only increments counters, so it is safe to use on the hot path.
+ * <p>
+ * Values can be recorded from one thread while another takes snapshots or resets it. A snapshot
+ * taken during recording may be off by the few values recorded while it was taken.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Bits of precision kept below the leading bit of each value.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Highest power of two that gets its own buckets, larger values go in the last bucket. 2^36
+     * nanoseconds is a little over a minute.
+     */
+    private static final int MAX_EXPONENT = 35;
+
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration. Negative durations are counted as zero.
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        if(nanos < 0) {
+            nanos = 0;
+        }
+        counts.getAndIncrement(bucketOf(nanos));
+        total.getAndAdd(nanos);
+        long currentMax = max.get();
+        while(nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Clears all the recorded values.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Copies the histogram into a snapshot. The snapshot can be reused so taking snapshots
+     * periodically does not allocate.
+     * @param into the snapshot to fill.
+     * @return the snapshot that was passed in.
+     */
+    public HistogramSnapshot snapshot(HistogramSnapshot into) {
+        long count = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            long bucket = counts.get(i);
+            into.counts[i] = bucket;
+            count += bucket;
+        }
+        into.count = count;
+        into.total = total.get();
+        into.max = max.get();
+        return into;
+    }
+
+    /**
+     * Takes a new snapshot of the histogram.
+     * @return the snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        return snapshot(new HistogramSnapshot());
+    }
+
+    /**
+     * Returns the bucket that a value is counted in.
+     * @param value the value, not negative.
+     * @return the bucket index.
+     */
+    static int bucketOf(long value) {
+        if(value < SUB_BUCKETS) {
+            //small values each get their own bucket.
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if(exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value that is counted in a bucket.
+     * @param bucket the bucket index.
+     * @return the highest value of the bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
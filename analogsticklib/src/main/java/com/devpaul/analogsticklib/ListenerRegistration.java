@@ -0,0 +1,199 @@
+package com.devpaul.analogsticklib;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A state listener added to a stick with
+ * {@link AnalogStickCore#addOnAnalogStateListener(OnAnalogStateListener, Executor, int)}. Keeps
+ * the time the listener spends per call and the exceptions it throws.
+ * <p>
+ * A listener without an executor is called inline. One with an executor is called on it, one
+ * call at a time. If it falls behind it gets the latest state, with the changed channels of every
+ * state it missed.
+ */
+public final class ListenerRegistration {
+
+    private final OnAnalogStateListener listener;
+
+    private final Executor executor;
+
+    private final int channels;
+
+    /**
+     * Whether exceptions of the listener are thrown on to the caller after they are recorded.
+     */
+    private final boolean rethrow;
+
+    /**
+     * Time spent in the listener per call, in nanoseconds.
+     */
+    private final LatencyHistogram time = new LatencyHistogram();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * Latest state waiting for the executor.
+     */
+    private final AnalogState pending;
+
+    /**
+     * State handed to the listener on the executor.
+     */
+    private final AnalogState delivery;
+
+    private boolean hasPending;
+
+    /**
+     * Whether a delivery is queued on or running on the executor.
+     */
+    private boolean scheduled;
+
+    private final Runnable deliverTask = new Runnable() {
+        @Override
+        public void run() {
+            while(true) {
+                synchronized (ListenerRegistration.this) {
+                    if(!hasPending) {
+                        scheduled = false;
+                        return;
+                    }
+                    delivery.set(pending);
+                    hasPending = false;
+                }
+                call(delivery);
+            }
+        }
+    };
+
+    ListenerRegistration(OnAnalogStateListener listener, Executor executor, int channels,
+                         boolean rethrow) {
+        this.listener = listener;
+        this.executor = executor;
+        this.channels = channels;
+        this.rethrow = rethrow && executor == null;
+        if(executor != null) {
+            pending = new AnalogState();
+            delivery = new AnalogState();
+        } else {
+            pending = null;
+            delivery = null;
+        }
+    }
+
+    /**
+     * Hands a state to the listener, masked to its channels.
+     * @param state the state.
+     */
+    void dispatch(AnalogState state) {
+        int all = state.changedChannels;
+        int changed = all & channels;
+        if(changed == 0 && all != 0) {
+            //only channels this listener doesn't want changed.
+            return;
+        }
+        if(executor == null) {
+            state.changedChannels = changed;
+            try {
+                call(state);
+            } finally {
+                state.changedChannels = all;
+            }
+            return;
+        }
+        boolean submit = false;
+        synchronized (this) {
+            if(hasPending) {
+                //keep what the skipped state changed.
+                changed |= pending.changedChannels;
+            }
+            pending.set(state);
+            pending.changedChannels = changed;
+            hasPending = true;
+            if(!scheduled) {
+                scheduled = true;
+                submit = true;
+            }
+        }
+        if(submit) {
+            try {
+                executor.execute(deliverTask);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Calls the listener, timing it and keeping any exception from reaching the other listeners,
+     * unless it is one that throws on to the caller.
+     */
+    private void call(AnalogState state) {
+        long start = System.nanoTime();
+        try {
+            listener.onAnalogStateChanged(state);
+        } catch (RuntimeException e) {
+            fail(e);
+            if(rethrow) {
+                throw e;
+            }
+        } finally {
+            time.record(System.nanoTime() - start);
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        failures.getAndIncrement();
+        lastFailure = e;
+    }
+
+    /**
+     * @return the listener.
+     */
+    public OnAnalogStateListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return the executor the listener is called on, or null if it is called inline.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the AnalogState.CHANNEL_* flags the listener is told about.
+     */
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Copies the time spent in the listener per call, in nanoseconds.
+     * @param into the snapshot to fill in.
+     * @return into.
+     */
+    public HistogramSnapshot getTime(HistogramSnapshot into) {
+        return time.snapshot(into);
+    }
+
+    /**
+     * @return the number of calls that threw or could not be handed to the executor.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the last exception the listener threw, or null.
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+}
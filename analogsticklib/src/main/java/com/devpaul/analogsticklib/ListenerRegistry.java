@@ -0,0 +1,105 @@
+package com.devpaul.analogsticklib;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Copy-on-write list of state listeners. Adding and removing copy the array, dispatching walks
+ * the current array without locking or allocating. The union of the channels of all the listeners
+ * is kept up to date as well, so the stick can skip the channels nobody wants.
+ */
+final class ListenerRegistry {
+
+    private static final ListenerRegistration[] EMPTY = new ListenerRegistration[0];
+
+    private volatile ListenerRegistration[] registrations = EMPTY;
+
+    /**
+     * The AnalogState.CHANNEL_* flags of all the registrations or'ed together.
+     */
+    private volatile int channels;
+
+    synchronized ListenerRegistration add(OnAnalogStateListener listener, Executor executor,
+                                          int channels) {
+        return add(listener, executor, channels, false);
+    }
+
+    /**
+     * Adds a listener.
+     * @param rethrow whether exceptions of an inline listener are thrown on to the caller of
+     *                {@link #dispatch(AnalogState)} after they are recorded.
+     * @return the registration.
+     */
+    synchronized ListenerRegistration add(OnAnalogStateListener listener, Executor executor,
+                                          int channels, boolean rethrow) {
+        if(listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        ListenerRegistration registration = new ListenerRegistration(listener, executor, channels,
+                rethrow);
+        ListenerRegistration[] current = registrations;
+        ListenerRegistration[] next = new ListenerRegistration[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = registration;
+        registrations = next;
+        this.channels |= channels;
+        return registration;
+    }
+
+    /**
+     * Removes the first registration of a listener.
+     * @param skip a registration to leave in place even if it is for the listener, or null.
+     * @return true if it was registered.
+     */
+    synchronized boolean remove(OnAnalogStateListener listener, ListenerRegistration skip) {
+        ListenerRegistration[] current = registrations;
+        for(int i = 0; i < current.length; i++) {
+            if(current[i].getListener() == listener && current[i] != skip) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a registration.
+     * @return true if it was registered.
+     */
+    synchronized boolean remove(ListenerRegistration registration) {
+        ListenerRegistration[] current = registrations;
+        for(int i = 0; i < current.length; i++) {
+            if(current[i] == registration) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeAt(int index) {
+        ListenerRegistration[] current = registrations;
+        ListenerRegistration[] next = new ListenerRegistration[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, next.length - index);
+        registrations = next;
+        int union = 0;
+        for(int i = 0; i < next.length; i++) {
+            union |= next[i].getChannels();
+        }
+        channels = union;
+    }
+
+    /**
+     * @return the AnalogState.CHANNEL_* flags that at least one listener wants.
+     */
+    int getChannels() {
+        return channels;
+    }
+
+    void dispatch(AnalogState state) {
+        ListenerRegistration[] current = registrations;
+        for(int i = 0; i < current.length; i++) {
+            current[i].dispatch(state);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.devpaul.analogsticklib;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.MotionEvent;
+
+/**
+ * A {@link TouchSource} and {@link AxisSource} that reads a {@link MotionEvent}. One instance is
+ * reused for every event.
+ */
+final class MotionEventSource implements TouchSource, AxisSource {
+
+    private MotionEvent event;
+
+    /**
+     * Points the source at an event.
+     * @param event the event to read.
+     * @return this source.
+     */
+    MotionEventSource set(MotionEvent event) {
+        this.event = event;
+        return this;
+    }
+
+    @Override
+    public int getActionMasked() {
+        return event.getActionMasked();
+    }
+
+    @Override
+    public int getActionIndex() {
+        return event.getActionIndex();
+    }
+
+    @Override
+    public int getPointerId(int pointerIndex) {
+        return event.getPointerId(pointerIndex);
+    }
+
+    @Override
+    public int findPointerIndex(int pointerId) {
+        return event.findPointerIndex(pointerId);
+    }
+
+    @Override
+    public float getX(int pointerIndex) {
+        return event.getX(pointerIndex);
+    }
+
+    @Override
+    public float getY(int pointerIndex) {
+        return event.getY(pointerIndex);
+    }
+
+    @Override
+    public long getEventTime() {
+        return event.getEventTime();
+    }
+
+    @Override
+    public int getHistorySize() {
+        return event.getHistorySize();
+    }
+
+    @Override
+    public float getHistoricalX(int pointerIndex, int pos) {
+        return event.getHistoricalX(pointerIndex, pos);
+    }
+
+    @Override
+    public float getHistoricalY(int pointerIndex, int pos) {
+        return event.getHistoricalY(pointerIndex, pos);
+    }
+
+    @Override
+    public long getHistoricalEventTime(int pos) {
+        return event.getHistoricalEventTime(pos);
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    @Override
+    public float getAxisValue(int axis) {
+        return event.getAxisValue(axis);
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    @Override
+    public float getHistoricalAxisValue(int axis, int pos) {
+        return event.getHistoricalAxisValue(axis, pos);
+    }
+}
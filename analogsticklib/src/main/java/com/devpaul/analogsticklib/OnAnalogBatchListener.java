@@ -0,0 +1,18 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Listener that receives all the samples of a single move event at once, including the historical
+ * samples Android batches into each event.
+ */
+public interface OnAnalogBatchListener {
+    /**
+     * Called once per move event with every sample of the event, oldest first. The arrays are
+     * reused between events and may be longer than count, so only read the first count entries.
+     * @param x the normalized x values in [-1, 1], positive to the right.
+     * @param y the normalized y values in [-1, 1], positive up.
+     * @param eventTimes the time of each sample in the
+     *                   {@link android.os.SystemClock#uptimeMillis()} time base.
+     * @param count the number of samples in this batch.
+     */
+    public void onAnalogBatch(float[] x, float[] y, long[] eventTimes, int count);
+}
@@ -0,0 +1,17 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Receives the stick output as fixed point integers, see {@link FixedPointFormat}. Only called
+ * when one of the values changed, without boxing or floats.
+ */
+public interface OnAnalogFixedPointListener {
+
+    /**
+     * Called when the fixed point output of the stick changed.
+     * @param x the x axis, positive to the right.
+     * @param y the y axis, positive up.
+     * @param angle the angle in the units of the format.
+     * @param eventTime the time of the sample, in the SystemClock.uptimeMillis() time base.
+     */
+    public void onAnalogFixedPoint(int x, int y, int angle, long eventTime);
+}
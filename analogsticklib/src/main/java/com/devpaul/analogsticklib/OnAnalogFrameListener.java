@@ -0,0 +1,15 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Listener that is called once per display frame when frame coalescing is enabled, see
+ * {@link AnalogStick#setFrameCoalescingEnabled(boolean)}.
+ */
+public interface OnAnalogFrameListener {
+    /**
+     * Called once per frame in which the stick moved.
+     * @param state the latest state in the frame. This instance is reused for every frame.
+     * @param stats a summary of all the samples in the frame. This instance is reused for every
+     *              frame.
+     */
+    public void onAnalogFrame(AnalogState state, AnalogFrameStats stats);
+}
@@ -0,0 +1,13 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Listener that receives the complete state of the analog stick in a single call per sample.
+ */
+public interface OnAnalogStateListener {
+    /**
+     * Called when the state of the analog stick changes.
+     * @param state the current state. This instance is reused for every sample so copy any values
+     *              you need to keep, see {@link AnalogState#set(AnalogState)}.
+     */
+    public void onAnalogStateChanged(AnalogState state);
+}
@@ -0,0 +1,19 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Listener for the D-pad mode of the analog stick. It is only called when the direction changes,
+ * a change from one direction to another releases the old one before pressing the new one.
+ */
+public interface OnDirectionListener {
+    /**
+     * Called when the stick moves into a direction.
+     * @param direction the direction, never {@link Direction#NONE}.
+     */
+    public void onDirectionPressed(Direction direction);
+
+    /**
+     * Called when the stick leaves a direction.
+     * @param direction the direction that was let go, never {@link Direction#NONE}.
+     */
+    public void onDirectionReleased(Direction direction);
+}
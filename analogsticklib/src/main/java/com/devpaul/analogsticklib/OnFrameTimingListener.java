@@ -0,0 +1,15 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Timing hook for measuring the latency from input to the display. Both times are in the
+ * {@link android.os.SystemClock#uptimeMillis()} time base, the same as
+ * {@link android.view.MotionEvent#getEventTime()}.
+ */
+public interface OnFrameTimingListener {
+    /**
+     * Called after a frame showing the stick was handed to the display pipeline.
+     * @param eventTime the time of the sample shown in the frame.
+     * @param frameTime the time the frame was drawn.
+     */
+    public void onFrameRendered(long eventTime, long frameTime);
+}
@@ -0,0 +1,120 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * The One Euro filter of Casiez et al. A low pass filter whose cutoff rises with the speed of the knob,
+ * so it removes jitter while the finger rests and adds little lag while it moves fast.
+ */
+public final class OneEuroFilter implements StickFilter {
+
+    private float minCutoff;
+
+    private float beta;
+
+    private float derivativeCutoff;
+
+    private float x;
+
+    private float y;
+
+    private float dx;
+
+    private float dy;
+
+    private long lastTime;
+
+    private boolean primed;
+
+    /**
+     * Creates a filter with a minimum cutoff of 1Hz, a speed coefficient of 5 and a derivative
+     * cutoff of 1Hz.
+     */
+    public OneEuroFilter() {
+        this(1f, 5f, 1f);
+    }
+
+    /**
+     * Creates a filter.
+     * @param minCutoff the cutoff frequency in Hz while the knob is still, lower removes more
+     *                  jitter.
+     * @param beta how fast the cutoff rises with speed, higher lags less.
+     * @param derivativeCutoff the cutoff frequency in Hz used to smooth the speed.
+     */
+    public OneEuroFilter(float minCutoff, float beta, float derivativeCutoff) {
+        this.minCutoff = minCutoff;
+        this.beta = beta;
+        this.derivativeCutoff = derivativeCutoff;
+    }
+
+    public void setMinCutoff(float minCutoff) {
+        this.minCutoff = minCutoff;
+    }
+
+    public float getMinCutoff() {
+        return minCutoff;
+    }
+
+    public void setBeta(float beta) {
+        this.beta = beta;
+    }
+
+    public float getBeta() {
+        return beta;
+    }
+
+    public void setDerivativeCutoff(float derivativeCutoff) {
+        this.derivativeCutoff = derivativeCutoff;
+    }
+
+    public float getDerivativeCutoff() {
+        return derivativeCutoff;
+    }
+
+    @Override
+    public void filter(float x, float y, long eventTime) {
+        if(!primed) {
+            this.x = x;
+            this.y = y;
+            dx = 0;
+            dy = 0;
+            lastTime = eventTime;
+            primed = true;
+            return;
+        }
+        //samples in the same millisecond are treated as 1ms apart.
+        float dt = Math.max(eventTime - lastTime, 1) / 1000f;
+        lastTime = eventTime;
+
+        float derivativeAlpha = alpha(derivativeCutoff, dt);
+        dx += derivativeAlpha * ((x - this.x) / dt - dx);
+        dy += derivativeAlpha * ((y - this.y) / dt - dy);
+
+        this.x += alpha(minCutoff + beta * Math.abs(dx), dt) * (x - this.x);
+        this.y += alpha(minCutoff + beta * Math.abs(dy), dt) * (y - this.y);
+    }
+
+    /**
+     * Returns the smoothing factor of a low pass filter.
+     * @param cutoff the cutoff frequency in Hz.
+     * @param dt the time step in seconds.
+     * @return the weight of the new sample.
+     */
+    private static float alpha(float cutoff, float dt) {
+        float tau = 1f / (2f * (float) Math.PI * cutoff);
+        return 1f / (1f + tau / dt);
+    }
+
+    @Override
+    public float getX() {
+        return x;
+    }
+
+    @Override
+    public float getY() {
+        return y;
+    }
+
+    @Override
+    public void reset() {
+        primed = false;
+    }
+}
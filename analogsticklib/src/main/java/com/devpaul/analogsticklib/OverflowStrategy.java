@@ -0,0 +1,72 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * What a {@link StickPublisher} subscription does with states that arrive faster than its
+ * subscriber asks for them.
+ */
+public final class OverflowStrategy {
+
+    /**
+     * Keep only the newest state.
+     */
+    static final int LATEST = 0;
+
+    /**
+     * Keep up to a number of states, dropping the oldest when full.
+     */
+    static final int BUFFER = 1;
+
+    /**
+     * Keep only the newest state and deliver at most one per period.
+     */
+    static final int SAMPLE = 2;
+
+    private static final OverflowStrategy CONFLATE_LATEST = new OverflowStrategy(LATEST, 1, 0);
+
+    final int kind;
+
+    final int capacity;
+
+    final long periodNanos;
+
+    private OverflowStrategy(int kind, int capacity, long periodNanos) {
+        this.kind = kind;
+        this.capacity = capacity;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Only the newest state is kept, a subscriber that falls behind skips straight to it. This is
+     * the right choice for anything that only cares where the stick is now, like a UI.
+     * @return the strategy.
+     */
+    public static OverflowStrategy conflateLatest() {
+        return CONFLATE_LATEST;
+    }
+
+    /**
+     * Up to capacity states are kept in order. When the buffer is full the oldest state is
+     * dropped, so a slow subscriber still ends up with the newest input.
+     * @param capacity the number of states to keep, at least 1.
+     * @return the strategy.
+     */
+    public static OverflowStrategy buffer(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        return new OverflowStrategy(BUFFER, capacity, 0);
+    }
+
+    /**
+     * The newest state is delivered at most once per period, for example for telemetry. A state
+     * that arrives too early is held back and delivered once the period is over.
+     * @param periodMillis the period in milliseconds, at least 1.
+     * @return the strategy.
+     */
+    public static OverflowStrategy sample(long periodMillis) {
+        if(periodMillis < 1) {
+            throw new IllegalArgumentException("Period must be at least 1 ms: " + periodMillis);
+        }
+        return new OverflowStrategy(SAMPLE, 1, periodMillis * 1000000L);
+    }
+}
@@ -0,0 +1,23 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * How the stick returns to the center after it is let go. Can have one of three values: TWEEN,
+ * SPRING, CRITICALLY_DAMPED
+ */
+public enum RecenterMode {
+
+    /**
+     * Accelerate and decelerate back to the center over a fixed duration.
+     */
+    TWEEN,
+
+    /**
+     * Under damped spring that overshoots the center a little before settling.
+     */
+    SPRING,
+
+    /**
+     * Critically damped spring, the fastest return that does not overshoot.
+     */
+    CRITICALLY_DAMPED
+}
@@ -0,0 +1,218 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * The physics of the stick returning to the center. Positions are offsets from the center so the
+ * motion always ends at (0, 0). This class has no Android dependencies, the view only calls
+ * {@link #step(long)} once per frame.
+ */
+public final class RecenterMotion {
+
+    /**
+     * Default tween duration in milliseconds.
+     */
+    public static final long DEFAULT_DURATION = 500;
+
+    /**
+     * Default spring stiffness.
+     */
+    public static final float DEFAULT_STIFFNESS = 300f;
+
+    /**
+     * Default damping ratio used in {@link RecenterMode#SPRING}.
+     */
+    public static final float DEFAULT_DAMPING_RATIO = 0.5f;
+
+    /**
+     * Largest time step used when integrating the springs, in seconds.
+     */
+    private static final float MAX_STEP = 0.004f;
+
+    /**
+     * Distance in pixels under which the stick snaps to the center.
+     */
+    private static final float REST_DISTANCE = 0.5f;
+
+    /**
+     * Speed in pixels per second under which the stick can snap to the center.
+     */
+    private static final float REST_SPEED = 5f;
+
+    private RecenterMode mode = RecenterMode.TWEEN;
+    private long duration = DEFAULT_DURATION;
+    private float stiffness = DEFAULT_STIFFNESS;
+    private float dampingRatio = DEFAULT_DAMPING_RATIO;
+
+    private float startX;
+    private float startY;
+    private float x;
+    private float y;
+    private float velocityX;
+    private float velocityY;
+    private long elapsed;
+    private boolean running;
+
+    /**
+     * @return the recenter mode.
+     */
+    public RecenterMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how the stick moves back to the center.
+     * @param mode the mode to use.
+     */
+    public void setMode(RecenterMode mode) {
+        if(mode == null) {
+            throw new IllegalArgumentException("Recenter mode cannot be null");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * @return the tween duration in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Sets the duration used by {@link RecenterMode#TWEEN}.
+     * @param duration the duration in milliseconds.
+     */
+    public void setDuration(long duration) {
+        this.duration = Math.max(0, duration);
+    }
+
+    /**
+     * @return the spring stiffness.
+     */
+    public float getStiffness() {
+        return stiffness;
+    }
+
+    /**
+     * Sets the stiffness of the springs. Higher values return faster.
+     * @param stiffness the stiffness, the square of the natural frequency in rad/s.
+     */
+    public void setStiffness(float stiffness) {
+        if(stiffness <= 0) {
+            throw new IllegalArgumentException("Stiffness must be positive: " + stiffness);
+        }
+        this.stiffness = stiffness;
+    }
+
+    /**
+     * @return the damping ratio used in {@link RecenterMode#SPRING}.
+     */
+    public float getDampingRatio() {
+        return dampingRatio;
+    }
+
+    /**
+     * Sets the damping ratio used in {@link RecenterMode#SPRING}. Values below 1 overshoot the
+     * center.
+     * @param dampingRatio the damping ratio.
+     */
+    public void setDampingRatio(float dampingRatio) {
+        if(dampingRatio <= 0) {
+            throw new IllegalArgumentException("Damping ratio must be positive: " + dampingRatio);
+        }
+        this.dampingRatio = dampingRatio;
+    }
+
+    /**
+     * Starts moving back to the center.
+     * @param offsetX the current x offset from the center.
+     * @param offsetY the current y offset from the center.
+     */
+    public void start(float offsetX, float offsetY) {
+        startX = x = offsetX;
+        startY = y = offsetY;
+        velocityX = 0;
+        velocityY = 0;
+        elapsed = 0;
+        running = true;
+    }
+
+    /**
+     * Stops the motion where it is.
+     */
+    public void cancel() {
+        running = false;
+    }
+
+    /**
+     * @return true while the stick is moving back to the center.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the current x offset from the center.
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * @return the current y offset from the center.
+     */
+    public float getY() {
+        return y;
+    }
+
+    /**
+     * Advances the motion.
+     * @param deltaMillis time since the last step in milliseconds.
+     * @return true if the motion is still running after this step.
+     */
+    public boolean step(long deltaMillis) {
+        if(!running) {
+            return false;
+        }
+        elapsed += deltaMillis;
+        if(mode == RecenterMode.TWEEN) {
+            if(elapsed >= duration) {
+                settle();
+            } else {
+                //same curve as the default interpolator of the animation framework.
+                float t = (float) elapsed / duration;
+                float remaining = 1f - ((float) Math.cos((t + 1) * Math.PI) / 2f + 0.5f);
+                x = startX * remaining;
+                y = startY * remaining;
+            }
+            return running;
+        }
+
+        float zeta = mode == RecenterMode.CRITICALLY_DAMPED ? 1f : dampingRatio;
+        float damping = 2f * zeta * (float) Math.sqrt(stiffness);
+        float remaining = deltaMillis / 1000f;
+        //semi implicit euler with small sub steps stays stable for any frame time.
+        while(remaining > 0) {
+            float dt = Math.min(remaining, MAX_STEP);
+            velocityX += (-stiffness * x - damping * velocityX) * dt;
+            velocityY += (-stiffness * y - damping * velocityY) * dt;
+            x += velocityX * dt;
+            y += velocityY * dt;
+            remaining -= dt;
+        }
+        if(x * x + y * y < REST_DISTANCE * REST_DISTANCE
+                && velocityX * velocityX + velocityY * velocityY < REST_SPEED * REST_SPEED) {
+            settle();
+        }
+        return running;
+    }
+
+    /**
+     * Puts the stick at the center and stops.
+     */
+    private void settle() {
+        x = 0;
+        y = 0;
+        velocityX = 0;
+        velocityY = 0;
+        running = false;
+    }
+}
@@ -0,0 +1,221 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Output stage that shapes the scaled values of a stick. The distance of the knob from the center
+ * goes through a radial dead zone, an outer saturation zone and a response curve, then each axis
+ * goes through an axial dead zone. Inside the dead zones the output is exactly 0 and past the
+ * saturation point it is exactly the max value.
+ * <p>
+ * The curve is compiled into a lookup table of {@link #TABLE_SIZE} steps with linear
+ * interpolation whenever it changes, so the per sample cost is the same for any curve.
+ */
+public final class ResponseCurve {
+
+    /**
+     * A custom response curve.
+     */
+    public interface Shape {
+
+        /**
+         * Maps an input to an output.
+         * @param input how far the knob is between the dead zone and the saturation zone, from 0
+         *              to 1.
+         * @return the output, normally from 0 to 1 and increasing.
+         */
+        float map(float input);
+    }
+
+    /**
+     * Number of steps in the lookup table.
+     */
+    public static final int TABLE_SIZE = 256;
+
+    private final float[] table = new float[TABLE_SIZE + 1];
+
+    private float radialDeadZone;
+
+    private float axialDeadZone;
+
+    private float outerSaturation = 1f;
+
+    private float exponent = 1f;
+
+    private Shape shape;
+
+    /**
+     * Output of the last {@link #apply(float, float)} call.
+     */
+    private float outX;
+
+    private float outY;
+
+    /**
+     * Creates a linear curve without dead zones.
+     */
+    public ResponseCurve() {
+        compile();
+    }
+
+    /**
+     * Sets the radial dead zone. Anything closer to the center than this outputs 0 on both axes.
+     * @param deadZone the dead zone as a fraction of the maximum movement, from 0 to 1.
+     */
+    public void setRadialDeadZone(float deadZone) {
+        this.radialDeadZone = clamp(deadZone);
+    }
+
+    /**
+     * @return the radial dead zone.
+     */
+    public float getRadialDeadZone() {
+        return radialDeadZone;
+    }
+
+    /**
+     * Sets the axial dead zone. An axis that is closer to 0 than this outputs 0, which makes it
+     * easy to move along one axis only.
+     * @param deadZone the dead zone as a fraction of the maximum movement, from 0 to 1.
+     */
+    public void setAxialDeadZone(float deadZone) {
+        this.axialDeadZone = Math.min(clamp(deadZone), 0.99f);
+    }
+
+    /**
+     * @return the axial dead zone.
+     */
+    public float getAxialDeadZone() {
+        return axialDeadZone;
+    }
+
+    /**
+     * Sets where the output saturates. Past this distance from the center the output is the max
+     * value, so the edge of the stick is easy to reach.
+     * @param saturation the saturation point as a fraction of the maximum movement, 1 to disable.
+     */
+    public void setOuterSaturation(float saturation) {
+        this.outerSaturation = clamp(saturation);
+    }
+
+    /**
+     * @return the saturation point.
+     */
+    public float getOuterSaturation() {
+        return outerSaturation;
+    }
+
+    /**
+     * Uses an exponential curve, output = input ^ exponent. Values above 1 give finer control near
+     * the center. Replaces any custom shape.
+     * @param exponent the exponent, 1 for a linear response.
+     */
+    public void setExponent(float exponent) {
+        this.exponent = Math.max(0.01f, exponent);
+        this.shape = null;
+        compile();
+    }
+
+    /**
+     * @return the exponent, ignored while a custom shape is set.
+     */
+    public float getExponent() {
+        return exponent;
+    }
+
+    /**
+     * Uses a custom curve. It is sampled into the lookup table once, here.
+     * @param shape the curve, or null to go back to the exponential curve.
+     */
+    public void setShape(Shape shape) {
+        this.shape = shape;
+        compile();
+    }
+
+    /**
+     * @return the custom curve, or null.
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Samples the curve into the lookup table.
+     */
+    private void compile() {
+        for(int i = 0; i <= TABLE_SIZE; i++) {
+            float input = (float) i / TABLE_SIZE;
+            table[i] = shape != null ? shape.map(input) : (float) Math.pow(input, exponent);
+        }
+    }
+
+    /**
+     * Looks up the curve with linear interpolation.
+     * @param input from 0 to 1.
+     * @return the output of the curve.
+     */
+    float lookup(float input) {
+        float position = input * TABLE_SIZE;
+        int index = (int) position;
+        if(index >= TABLE_SIZE) {
+            return table[TABLE_SIZE];
+        }
+        float fraction = position - index;
+        return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+
+    /**
+     * Shapes a normalized stick position. Read the result with {@link #getOutX()} and
+     * {@link #getOutY()}.
+     * @param x the normalized x position, from -1 to 1.
+     * @param y the normalized y position, from -1 to 1.
+     */
+    public void apply(float x, float y) {
+        float distance = (float) Math.sqrt(x * x + y * y);
+        if(distance <= radialDeadZone) {
+            outX = 0;
+            outY = 0;
+            return;
+        }
+        float output;
+        if(distance >= outerSaturation) {
+            output = table[TABLE_SIZE];
+        } else {
+            output = lookup((distance - radialDeadZone) / (outerSaturation - radialDeadZone));
+        }
+        //direction first, so a saturated axis comes out as exactly the output.
+        outX = axial(x / distance * output);
+        outY = axial(y / distance * output);
+    }
+
+    /**
+     * Applies the axial dead zone to one axis and rescales the rest to the full range.
+     */
+    private float axial(float value) {
+        if(axialDeadZone == 0) {
+            return value;
+        }
+        float abs = Math.abs(value);
+        if(abs <= axialDeadZone) {
+            return 0;
+        }
+        float shaped = (abs - axialDeadZone) / (1 - axialDeadZone);
+        return value < 0 ? -shaped : shaped;
+    }
+
+    /**
+     * @return the shaped x value of the last {@link #apply(float, float)} call.
+     */
+    public float getOutX() {
+        return outX;
+    }
+
+    /**
+     * @return the shaped y value of the last {@link #apply(float, float)} call.
+     */
+    public float getOutY() {
+        return outY;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
@@ -0,0 +1,97 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Single writer sequence lock that publishes an {@link AnalogState} to any number of reader
+ * threads. The writer never waits. Readers retry if the writer published while they were
+ * copying, so they never see values from two different samples.
+ * <p>
+ * All fields are volatile so every read and write is ordered with the sequence number, which
+ * keeps the lock correct under the Java memory model without any fences.
+ */
+final class StateSeqLock {
+
+    /**
+     * Odd while a write is in progress, incremented twice per publish.
+     */
+    private volatile long sequence;
+
+    private volatile float rawX;
+    private volatile float rawY;
+    private volatile float normalizedX;
+    private volatile float normalizedY;
+    private volatile float predictedX;
+    private volatile float predictedY;
+    private volatile float scaledX;
+    private volatile float scaledY;
+    private volatile float angle;
+    private volatile float magnitude;
+    private volatile Quadrant quadrant;
+    private volatile int fixedX;
+    private volatile int fixedY;
+    private volatile int fixedAngle;
+    private volatile long eventTime;
+    private volatile int changedChannels;
+    private volatile boolean pressed;
+    private volatile boolean recentering;
+
+    /**
+     * Publishes a new state. Must only be called from a single thread.
+     * @param state the state to publish.
+     * @param pressed whether the stick is being held.
+     */
+    void publish(AnalogState state, boolean pressed) {
+        long seq = sequence;
+        sequence = seq + 1;
+        rawX = state.rawX;
+        rawY = state.rawY;
+        normalizedX = state.normalizedX;
+        normalizedY = state.normalizedY;
+        predictedX = state.predictedX;
+        predictedY = state.predictedY;
+        scaledX = state.scaledX;
+        scaledY = state.scaledY;
+        angle = state.angle;
+        magnitude = state.magnitude;
+        quadrant = state.quadrant;
+        fixedX = state.fixedX;
+        fixedY = state.fixedY;
+        fixedAngle = state.fixedAngle;
+        eventTime = state.eventTime;
+        changedChannels = state.changedChannels;
+        this.pressed = pressed;
+        recentering = state.recentering;
+        sequence = seq + 2;
+    }
+
+    /**
+     * Copies the latest published state. Safe to call from any thread.
+     * @param into the state to copy into.
+     */
+    void read(AnalogState into) {
+        long before;
+        long after;
+        do {
+            before = sequence;
+            into.rawX = rawX;
+            into.rawY = rawY;
+            into.normalizedX = normalizedX;
+            into.normalizedY = normalizedY;
+            into.predictedX = predictedX;
+            into.predictedY = predictedY;
+            into.scaledX = scaledX;
+            into.scaledY = scaledY;
+            into.angle = angle;
+            into.magnitude = magnitude;
+            into.quadrant = quadrant;
+            into.fixedX = fixedX;
+            into.fixedY = fixedY;
+            into.fixedAngle = fixedAngle;
+            into.eventTime = eventTime;
+            into.changedChannels = changedChannels;
+            into.pressed = pressed;
+            into.recentering = recentering;
+            after = sequence;
+        } while((before & 1) != 0 || before != after);
+        into.sequence = before >> 1;
+    }
+}
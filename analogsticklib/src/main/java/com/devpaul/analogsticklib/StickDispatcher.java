@@ -0,0 +1,238 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * The dispatch path of a stick view: hands the state of the core to the listeners, right away or
+ * coalesced per frame, posts the delivery of updates held back by the emission rate limit, steps
+ * the return to the center once per frame and asks the view to redraw. Everything it needs from the view goes through a {@link Host}, so the whole
+ * path runs on the JVM. Must only be used from the UI thread.
+ */
+final class StickDispatcher {
+
+    /**
+     * The parts of the view the dispatch path needs.
+     */
+    interface Host {
+
+        /**
+         * Runs an action on the UI thread after a delay.
+         * @param action the action.
+         * @param delayMillis the delay in milliseconds.
+         */
+        void postDelayed(Runnable action, long delayMillis);
+
+        /**
+         * Runs an action on the UI thread at the next display frame. Must not depend on the
+         * animator duration scale, which can be 0.
+         * @param action the action.
+         */
+        void postOnAnimation(Runnable action);
+
+        /**
+         * Removes a posted action.
+         * @param action the action.
+         */
+        void removeCallbacks(Runnable action);
+
+        /**
+         * Redraws the view after the knob moved.
+         */
+        void invalidateKnob();
+
+        /**
+         * @return the current time in the time base of the event times.
+         */
+        long uptimeMillis();
+    }
+
+    private final AnalogStickCore core;
+
+    private final Host host;
+
+    /**
+     * Coalesces updates per frame, null when frame coalescing is disabled.
+     */
+    private FrameCoalescer frameCoalescer;
+
+    /**
+     * Frame listener, called once per coalesced frame.
+     */
+    private OnAnalogFrameListener frameListener;
+
+    /**
+     * Receives the coalesced frames.
+     */
+    private final FrameCoalescer.Target frameTarget = new FrameCoalescer.Target() {
+        @Override
+        public void onCoalescedFrame(AnalogState frameState, AnalogFrameStats stats) {
+            core.dispatch(frameState);
+            scheduleEmissionFlush();
+            if(frameListener != null) {
+                frameListener.onAnalogFrame(frameState, stats);
+            }
+            host.invalidateKnob();
+        }
+    };
+
+    /**
+     * Delivers the update held back by the emission rate limit.
+     */
+    private final Runnable emissionFlush = new Runnable() {
+        @Override
+        public void run() {
+            emissionFlushPosted = false;
+            core.flushEmission(host.uptimeMillis());
+            scheduleEmissionFlush();
+        }
+    };
+
+    /**
+     * Whether {@link #emissionFlush} is posted.
+     */
+    private boolean emissionFlushPosted;
+
+    /**
+     * Moves the knob one frame closer to the center and posts the next frame until it is back.
+     */
+    private final Runnable recenterFrame = new Runnable() {
+        @Override
+        public void run() {
+            recenterFramePosted = false;
+            //a touch that grabbed the knob since the last frame ends the return.
+            if(core.isPressed() || !core.isRecentering()) {
+                return;
+            }
+            long now = host.uptimeMillis();
+            boolean running = core.stepRecenter(now - lastRecenterTime, now);
+            lastRecenterTime = now;
+            //both coordinates changed together so the listener gets a single update.
+            dispatchState();
+            if(running) {
+                postRecenterFrame();
+            }
+        }
+    };
+
+    /**
+     * Whether {@link #recenterFrame} is posted.
+     */
+    private boolean recenterFramePosted;
+
+    /**
+     * Time of the last recenter frame.
+     */
+    private long lastRecenterTime;
+
+    StickDispatcher(AnalogStickCore core, Host host) {
+        this.core = core;
+        this.host = host;
+    }
+
+    /**
+     * Stops the return to the center if it is running and notifies the listener of a move. With
+     * frame coalescing every sample of the event goes into the frame stats and the listener gets
+     * the latest on the next frame.
+     */
+    void dispatchMove() {
+        //the knob is held again, so it no longer returns to the center.
+        stopRecenter();
+        if(frameCoalescer != null) {
+            frameCoalescer.add(core.getState(), core.getBatchX(), core.getBatchY(),
+                    core.getBatchTimes(), core.getBatchCount());
+            return;
+        }
+        //notify the listener of the latest state in one call.
+        dispatchState();
+    }
+
+    /**
+     * Notifies the listener of the current state and redraws the view, either right away or on the
+     * next frame when frame coalescing is enabled.
+     */
+    void dispatchState() {
+        if(frameCoalescer != null) {
+            frameCoalescer.add(core.getState());
+            return;
+        }
+        core.dispatch(core.getState());
+        scheduleEmissionFlush();
+        host.invalidateKnob();
+    }
+
+    /**
+     * Posts a delivery of the update held back by the emission rate limit, if there is one.
+     */
+    private void scheduleEmissionFlush() {
+        long deadline = core.getEmissionDeadline();
+        if(deadline >= 0 && !emissionFlushPosted) {
+            emissionFlushPosted = true;
+            host.postDelayed(emissionFlush, Math.max(0, deadline - host.uptimeMillis()));
+        }
+    }
+
+    /**
+     * Starts stepping the return to the center on every frame, call after releasing the core.
+     */
+    void startRecenter() {
+        lastRecenterTime = host.uptimeMillis();
+        postRecenterFrame();
+    }
+
+    /**
+     * Stops stepping the return to the center, the knob stays where it is.
+     */
+    void stopRecenter() {
+        if(recenterFramePosted) {
+            host.removeCallbacks(recenterFrame);
+            recenterFramePosted = false;
+        }
+    }
+
+    private void postRecenterFrame() {
+        if(!recenterFramePosted) {
+            recenterFramePosted = true;
+            host.postOnAnimation(recenterFrame);
+        }
+    }
+
+    /**
+     * Turns frame coalescing on or off. The caller checks that the platform can post frame
+     * callbacks.
+     * @param enabled true to coalesce updates per frame.
+     */
+    void setFrameCoalescingEnabled(boolean enabled) {
+        if(enabled && frameCoalescer == null) {
+            frameCoalescer = new FrameCoalescer(host, frameTarget);
+            core.setHistoryWanted(true);
+        } else if(!enabled && frameCoalescer != null) {
+            frameCoalescer.cancel();
+            frameCoalescer = null;
+            core.setHistoryWanted(false);
+        }
+    }
+
+    /**
+     * @return true if frame coalescing is enabled.
+     */
+    boolean isFrameCoalescingEnabled() {
+        return frameCoalescer != null;
+    }
+
+    /**
+     * @param listener the listener called once per coalesced frame, or null.
+     */
+    void setOnAnalogFrameListener(OnAnalogFrameListener listener) {
+        this.frameListener = listener;
+    }
+
+    /**
+     * Drops everything that is posted, called when the view is detached.
+     */
+    void cancel() {
+        stopRecenter();
+        host.removeCallbacks(emissionFlush);
+        emissionFlushPosted = false;
+        if(frameCoalescer != null) {
+            frameCoalescer.cancel();
+        }
+    }
+}
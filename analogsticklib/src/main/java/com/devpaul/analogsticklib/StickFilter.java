@@ -0,0 +1,34 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Smooths the stick position between the clamping math and the listeners, see
+ * {@link AnalogStickCore#setFilter(StickFilter)}. Filters work on normalized positions and get the
+ * time of every sample, since touch samples are not evenly spaced. Implementations should keep
+ * their state in primitive fields and not allocate per sample.
+ */
+public interface StickFilter {
+
+    /**
+     * Filters one sample. Read the result with {@link #getX()} and {@link #getY()}.
+     * @param x the normalized x position.
+     * @param y the normalized y position.
+     * @param eventTime the time of the sample in milliseconds.
+     */
+    void filter(float x, float y, long eventTime);
+
+    /**
+     * @return the filtered x position of the last sample.
+     */
+    float getX();
+
+    /**
+     * @return the filtered y position of the last sample.
+     */
+    float getY();
+
+    /**
+     * Forgets all history, the next sample passes through unchanged. Called when the stick is
+     * grabbed.
+     */
+    void reset();
+}
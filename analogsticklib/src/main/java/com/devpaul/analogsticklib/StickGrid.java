@@ -0,0 +1,126 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Uniform grid over a host view for finding the region under a touch without testing every
+ * region. Each cell lists the regions that overlap it, so a lookup only checks the few regions in
+ * one cell no matter how many there are in total.
+ */
+final class StickGrid {
+
+    private static final int[] EMPTY = new int[0];
+
+    private float cellSize = 1;
+    private int columns;
+    private int rows;
+    private int[][] cells = new int[0][];
+    private int[] cellCounts = new int[0];
+
+    private float[] left = new float[0];
+    private float[] top = new float[0];
+    private float[] right = new float[0];
+    private float[] bottom = new float[0];
+    private int regionCount;
+
+    /**
+     * Clears the grid and sizes it for an area.
+     * @param width the width of the area.
+     * @param height the height of the area.
+     * @param cellSize the size of a cell, about the size of the smallest region works well.
+     */
+    void reset(int width, int height, float cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        columns = Math.max(1, (int) Math.ceil(width / this.cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / this.cellSize));
+        int cellCount = columns * rows;
+        if(cells.length < cellCount) {
+            cells = new int[cellCount][];
+            cellCounts = new int[cellCount];
+        }
+        for(int i = 0; i < cellCount; i++) {
+            cells[i] = EMPTY;
+            cellCounts[i] = 0;
+        }
+        regionCount = 0;
+    }
+
+    /**
+     * Adds a region. Regions added later win when they overlap.
+     * @return the index of the region, in the order they were added.
+     */
+    int add(float regionLeft, float regionTop, float regionRight, float regionBottom) {
+        if(regionCount == left.length) {
+            int capacity = Math.max(4, regionCount * 2);
+            left = copyOf(left, capacity);
+            top = copyOf(top, capacity);
+            right = copyOf(right, capacity);
+            bottom = copyOf(bottom, capacity);
+        }
+        int region = regionCount++;
+        left[region] = regionLeft;
+        top[region] = regionTop;
+        right[region] = regionRight;
+        bottom[region] = regionBottom;
+
+        int firstColumn = clamp((int) (regionLeft / cellSize), columns);
+        int lastColumn = clamp((int) (regionRight / cellSize), columns);
+        int firstRow = clamp((int) (regionTop / cellSize), rows);
+        int lastRow = clamp((int) (regionBottom / cellSize), rows);
+        for(int row = firstRow; row <= lastRow; row++) {
+            for(int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                int count = cellCounts[cell];
+                if(count == cells[cell].length) {
+                    int[] grown = new int[Math.max(2, count * 2)];
+                    System.arraycopy(cells[cell], 0, grown, 0, count);
+                    cells[cell] = grown;
+                }
+                cells[cell][count] = region;
+                cellCounts[cell] = count + 1;
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Finds the region under a point.
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the index of the topmost region containing the point, or -1.
+     */
+    int hit(float x, float y) {
+        if(x < 0 || y < 0) {
+            return -1;
+        }
+        int column = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+        if(column >= columns || row >= rows) {
+            return -1;
+        }
+        int cell = row * columns + column;
+        int[] regions = cells[cell];
+        for(int i = cellCounts[cell] - 1; i >= 0; i--) {
+            int region = regions[i];
+            if(x >= left[region] && x < right[region] && y >= top[region] && y < bottom[region]) {
+                return region;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of regions.
+     */
+    int size() {
+        return regionCount;
+    }
+
+    private static int clamp(int value, int count) {
+        return Math.max(0, Math.min(count - 1, value));
+    }
+
+    private static float[] copyOf(float[] array, int capacity) {
+        float[] copy = new float[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
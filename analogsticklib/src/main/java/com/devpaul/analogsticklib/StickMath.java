@@ -0,0 +1,465 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * The geometry behind the analog stick. This class has no Android dependencies so it can be unit
+ * tested and benchmarked on a plain JVM. All coordinates are in view pixels where y is positive
+ * down.
+ */
+public final class StickMath {
+
+    /**
+     * Quadrants indexed by the sign bits used in {@link #quadrant(float, float)}.
+     */
+    private static final Quadrant[] SIGN_QUADRANTS = {
+            Quadrant.BOTTOM_RIGHT, Quadrant.BOTTOM_LEFT, Quadrant.TOP_RIGHT, Quadrant.TOP_LEFT
+    };
+
+    private static final float PI = (float) Math.PI;
+
+    private static final float HALF_PI = (float) (Math.PI / 2);
+
+    private static final float RADIANS_TO_DEGREES = (float) (180 / Math.PI);
+
+    /**
+     * The channels that need the angle of the stick, the exact quadrant comes from the angle.
+     */
+    private static final int DIRECTION_CHANNELS = AnalogState.CHANNEL_ANGLE
+            | AnalogState.CHANNEL_QUADRANT;
+
+    private StickMath() {
+    }
+
+    /**
+     * Moves the stick towards a touch point and fills in the state for that sample. The stick is
+     * clamped to a circle of maxRadius around the center.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param out the state to fill in.
+     */
+    public static void moveStick(int touchX, int touchY, float cx, float cy, int maxRadius,
+                                 float maxXValue, float maxYValue, long eventTime, AnalogState out) {
+        moveStick(touchX, touchY, cx, cy, maxRadius, maxXValue, maxYValue, eventTime,
+                AnalogState.CHANNEL_ALL, out);
+    }
+
+    /**
+     * Moves the stick towards a touch point and fills in the channels of the state that are
+     * wanted. The position, normalized values and magnitude are always filled in, the scaled
+     * values, angle and quadrant only when their channel is wanted, otherwise they keep their old
+     * values and are not marked as changed.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param channels the AnalogState.CHANNEL_* flags to compute.
+     * @param out the state to fill in.
+     */
+    public static void moveStick(int touchX, int touchY, float cx, float cy, int maxRadius,
+                                 float maxXValue, float maxYValue, long eventTime, int channels,
+                                 AnalogState out) {
+        //get the angle.
+        float vecx = touchX - cx;
+        //y is positive down
+        float vecy = touchY - cy;
+        //all movement of the analog stick center should be within the radius of the larger
+        //circle minus the radius of the analog stick.
+        int magnitude = magnitude(touchX - (int) cx, touchY - (int) cy);
+        boolean clamp = magnitude >= maxRadius;
+        boolean direction = (channels & DIRECTION_CHANNELS) != 0;
+        float angle = clamp || direction ? angle(vecx, vecy) : 0;
+        float stickX;
+        float stickY;
+        if(clamp) {
+            //inner stick is too far away so we need to fix that.
+            stickX = (float) Math.cos(Math.toRadians(angle)) * maxRadius + cx;
+            stickY = (float) Math.sin(Math.toRadians(angle)) * maxRadius + cy;
+        } else {
+            //inner stick isn't too far away.
+            stickX = touchX;
+            stickY = touchY;
+        }
+
+        //normalized values, y is positive up like the scaled values.
+        float normX = (stickX - cx) / maxRadius;
+        float normY = (cy - stickY) / maxRadius;
+        int changed = fill(out, stickX, stickY, normX, normY, maxXValue, maxYValue, channels);
+        if(direction) {
+            out.angle = angle;
+            out.quadrant = quadrant(angle);
+            changed |= DIRECTION_CHANNELS;
+        }
+        out.magnitude = Math.min(magnitude, maxRadius);
+        out.eventTime = eventTime;
+        out.changedChannels = changed;
+    }
+
+    /**
+     * Fills in the state for a stick position that is already inside the max radius, for example
+     * while the stick returns to the center.
+     * @param stickX the x coordinate of the stick.
+     * @param stickY the y coordinate of the stick.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param out the state to fill in.
+     */
+    public static void setPosition(float stickX, float stickY, float cx, float cy, int maxRadius,
+                                   float maxXValue, float maxYValue, long eventTime,
+                                   AnalogState out) {
+        setPosition(stickX, stickY, cx, cy, maxRadius, maxXValue, maxYValue, eventTime,
+                AnalogState.CHANNEL_ALL, out);
+    }
+
+    /**
+     * Fills in the wanted channels of the state for a stick position that is already inside the
+     * max radius, see {@link #moveStick(int, int, float, float, int, float, float, long, int,
+     * AnalogState)} for what is always filled in.
+     * @param stickX the x coordinate of the stick.
+     * @param stickY the y coordinate of the stick.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param channels the AnalogState.CHANNEL_* flags to compute.
+     * @param out the state to fill in.
+     */
+    public static void setPosition(float stickX, float stickY, float cx, float cy, int maxRadius,
+                                   float maxXValue, float maxYValue, long eventTime, int channels,
+                                   AnalogState out) {
+        float vecx = stickX - cx;
+        float vecy = stickY - cy;
+        float normX = vecx / maxRadius;
+        float normY = -vecy / maxRadius;
+        int changed = fill(out, stickX, stickY, normX, normY, maxXValue, maxYValue, channels);
+        if((channels & DIRECTION_CHANNELS) != 0) {
+            float angle = angle(vecx, vecy);
+            out.angle = angle;
+            out.quadrant = quadrant(angle);
+            changed |= DIRECTION_CHANNELS;
+        }
+        out.magnitude = magnitude(vecx, vecy);
+        out.eventTime = eventTime;
+        out.changedChannels = changed;
+    }
+
+    /**
+     * Trig free version of {@link #moveStick(int, int, float, float, int, float, float, long,
+     * AnalogState)}. The distance check is done on squared distances, clamping scales the vector by
+     * its inverse square root, the quadrant comes from the signs of the vector and the angle from
+     * {@link #fastAngle(float, float)}. The clamp decision is the same as the exact version, the
+     * clamped position differs by less than 0.001 pixels and the angle by less than 0.0002 degrees.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param out the state to fill in.
+     */
+    public static void moveStickFast(int touchX, int touchY, float cx, float cy, int maxRadius,
+                                     float maxXValue, float maxYValue, long eventTime,
+                                     AnalogState out) {
+        moveStickFast(touchX, touchY, cx, cy, maxRadius, maxXValue, maxYValue, eventTime,
+                AnalogState.CHANNEL_ALL, out);
+    }
+
+    /**
+     * Trig free version of {@link #moveStick(int, int, float, float, int, float, float, long, int,
+     * AnalogState)}, see {@link #moveStickFast(int, int, float, float, int, float, float, long,
+     * AnalogState)}.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param channels the AnalogState.CHANNEL_* flags to compute.
+     * @param out the state to fill in.
+     */
+    public static void moveStickFast(int touchX, int touchY, float cx, float cy, int maxRadius,
+                                     float maxXValue, float maxYValue, long eventTime,
+                                     int channels, AnalogState out) {
+        float vecx = touchX - cx;
+        //y is positive down
+        float vecy = touchY - cy;
+        //the exact version compares the truncated int magnitude, for integer squared distances
+        //that is the same as comparing against the squared radius.
+        int ix = touchX - (int) cx;
+        int iy = touchY - (int) cy;
+        long distanceSquared = (long) ix * ix + (long) iy * iy;
+        float magnitude;
+        float stickX;
+        float stickY;
+        if(distanceSquared >= (long) maxRadius * maxRadius) {
+            //project back on to the max radius circle.
+            float lengthSquared = vecx * vecx + vecy * vecy;
+            float scale = maxRadius * invSqrt(lengthSquared);
+            stickX = vecx * scale + cx;
+            stickY = vecy * scale + cy;
+            magnitude = maxRadius;
+        } else {
+            stickX = touchX;
+            stickY = touchY;
+            magnitude = distanceSquared * invSqrt(distanceSquared);
+        }
+
+        float normX = (stickX - cx) / maxRadius;
+        float normY = (cy - stickY) / maxRadius;
+        int changed = fill(out, stickX, stickY, normX, normY, maxXValue, maxYValue, channels);
+        changed |= fillFastDirection(out, vecx, vecy, channels);
+        out.magnitude = magnitude;
+        out.eventTime = eventTime;
+        out.changedChannels = changed;
+    }
+
+    /**
+     * Sub-pixel version of {@link #moveStickFast(int, int, float, float, int, float, float, long,
+     * AnalogState)}. The touch point is not rounded to whole pixels, so the distance check is done
+     * on the exact squared distance.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param out the state to fill in.
+     */
+    public static void moveStickFast(float touchX, float touchY, float cx, float cy, int maxRadius,
+                                     float maxXValue, float maxYValue, long eventTime,
+                                     AnalogState out) {
+        moveStickFast(touchX, touchY, cx, cy, maxRadius, maxXValue, maxYValue, eventTime,
+                AnalogState.CHANNEL_ALL, out);
+    }
+
+    /**
+     * Sub-pixel version of {@link #moveStickFast(int, int, float, float, int, float, float, long,
+     * int, AnalogState)}.
+     * @param touchX the touch x coordinate.
+     * @param touchY the touch y coordinate.
+     * @param cx the x coordinate of the center of the stick.
+     * @param cy the y coordinate of the center of the stick.
+     * @param maxRadius the maximum distance the stick can move from the center.
+     * @param maxXValue the max x value used for scaling, 0 to disable scaling.
+     * @param maxYValue the max y value used for scaling, 0 to disable scaling.
+     * @param eventTime the time of the sample.
+     * @param channels the AnalogState.CHANNEL_* flags to compute.
+     * @param out the state to fill in.
+     */
+    public static void moveStickFast(float touchX, float touchY, float cx, float cy, int maxRadius,
+                                     float maxXValue, float maxYValue, long eventTime,
+                                     int channels, AnalogState out) {
+        float vecx = touchX - cx;
+        //y is positive down
+        float vecy = touchY - cy;
+        float lengthSquared = vecx * vecx + vecy * vecy;
+        float magnitude;
+        float stickX;
+        float stickY;
+        if(lengthSquared > (float) maxRadius * maxRadius) {
+            //project back on to the max radius circle.
+            float scale = maxRadius * invSqrt(lengthSquared);
+            stickX = vecx * scale + cx;
+            stickY = vecy * scale + cy;
+            magnitude = maxRadius;
+        } else {
+            stickX = touchX;
+            stickY = touchY;
+            magnitude = lengthSquared * invSqrt(lengthSquared);
+        }
+
+        float normX = (stickX - cx) / maxRadius;
+        float normY = (cy - stickY) / maxRadius;
+        int changed = fill(out, stickX, stickY, normX, normY, maxXValue, maxYValue, channels);
+        changed |= fillFastDirection(out, vecx, vecy, channels);
+        out.magnitude = magnitude;
+        out.eventTime = eventTime;
+        out.changedChannels = changed;
+    }
+
+    /**
+     * Fills in the position, the normalized values and the wanted scaled values.
+     * @return the channels that were filled in.
+     */
+    private static int fill(AnalogState out, float stickX, float stickY, float normX, float normY,
+                            float maxXValue, float maxYValue, int channels) {
+        int changed = AnalogState.CHANNEL_RAW;
+        if(maxXValue != 0 && (channels & AnalogState.CHANNEL_SCALED_X) != 0) {
+            //max x value has been set so scale the movements.
+            out.scaledX = maxXValue * normX;
+            changed |= AnalogState.CHANNEL_SCALED_X;
+        }
+        if(maxYValue != 0 && (channels & AnalogState.CHANNEL_SCALED_Y) != 0) {
+            //max y value has been set so scale the movements to this value.
+            out.scaledY = maxYValue * normY;
+            changed |= AnalogState.CHANNEL_SCALED_Y;
+        }
+        out.rawX = stickX;
+        out.rawY = stickY;
+        out.normalizedX = normX;
+        out.normalizedY = normY;
+        out.predictedX = normX;
+        out.predictedY = normY;
+        return changed;
+    }
+
+    /**
+     * Fills in the wanted angle and quadrant without trig.
+     * @return the channels that were filled in.
+     */
+    private static int fillFastDirection(AnalogState out, float vecx, float vecy, int channels) {
+        int changed = 0;
+        if((channels & AnalogState.CHANNEL_ANGLE) != 0) {
+            out.angle = fastAngle(vecx, vecy);
+            changed |= AnalogState.CHANNEL_ANGLE;
+        }
+        if((channels & AnalogState.CHANNEL_QUADRANT) != 0) {
+            out.quadrant = quadrant(vecx, vecy);
+            changed |= AnalogState.CHANNEL_QUADRANT;
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the angle of a vector with respect to the x axis. A positive angle is clockwise from
+     * the x axis because y is positive down.
+     * @param vecx the x component of the vector.
+     * @param vecy the y component of the vector.
+     * @return the angle in degrees, in [0, 360).
+     */
+    public static float angle(float vecx, float vecy) {
+        //use atan2, make sure its (y, x) not (x, y)
+        float angle = (float) Math.toDegrees(Math.atan2(vecy, vecx));
+        //scale the value so that we never get negative values.
+        if(angle < 0) {
+            angle += 360;
+        }
+        return angle;
+    }
+
+    /**
+     * Returns the magnitude of a vector, truncated to an int.
+     * @param vecx the x component of the vector.
+     * @param vecy the y component of the vector
+     * @return the value of the magnitude of the vector.
+     */
+    public static int magnitude(int vecx, int vecy) {
+        return (int) Math.sqrt((double) vecx * vecx + (double) vecy * vecy);
+    }
+
+    /**
+     * Returns the magnitude of a vector.
+     * @param vecx the x component of the vector.
+     * @param vecy the y component of the vector
+     * @return the value of the magnitude of the vector.
+     */
+    public static float magnitude(float vecx, float vecy) {
+        return (float) Math.sqrt(vecx * vecx + vecy * vecy);
+    }
+
+    /**
+     * Returns the quadrant for an angle.
+     * @param angle the angle in degrees as returned by {@link #angle(float, float)}.
+     * @return the quadrant.
+     */
+    public static Quadrant quadrant(float angle) {
+        if(angle >= 0 && angle <= 90) {
+            return Quadrant.BOTTOM_RIGHT;
+        } else if(angle > 90 && angle <= 180) {
+            return Quadrant.BOTTOM_LEFT;
+        } else if(angle > 180 && angle <= 270) {
+            return Quadrant.TOP_LEFT;
+        } else {
+            return Quadrant.TOP_RIGHT;
+        }
+    }
+
+    /**
+     * Polynomial approximation of {@link #angle(float, float)} that does not call any trig
+     * functions. The maximum error is 0.0002 degrees.
+     * @param vecx the x component of the vector.
+     * @param vecy the y component of the vector.
+     * @return the angle in degrees, in [0, 360).
+     */
+    public static float fastAngle(float vecx, float vecy) {
+        float ax = Math.abs(vecx);
+        float ay = Math.abs(vecy);
+        if(ax == 0 && ay == 0) {
+            return 0;
+        }
+        //reduce to the first octant so the polynomial only has to cover [0, 1].
+        float radians;
+        if(ax >= ay) {
+            radians = atanUnit(ay / ax);
+        } else {
+            radians = HALF_PI - atanUnit(ax / ay);
+        }
+        if(vecx < 0) {
+            radians = PI - radians;
+        }
+        float degrees = radians * RADIANS_TO_DEGREES;
+        if(vecy < 0) {
+            degrees = 360 - degrees;
+        }
+        return degrees;
+    }
+
+    /**
+     * Minimax polynomial for atan on [0, 1], accurate to about 2e-6 radians.
+     * @param z the tangent, in [0, 1].
+     * @return the angle in radians.
+     */
+    private static float atanUnit(float z) {
+        float z2 = z * z;
+        return z * (0.99997726f + z2 * (-0.33262347f + z2 * (0.19354346f
+                + z2 * (-0.11643287f + z2 * (0.05265332f + z2 * -0.01172120f)))));
+    }
+
+    /**
+     * Approximates 1 / sqrt(x) with the bit level initial guess and two Newton iterations. The
+     * relative error is below 5e-6.
+     * @param x a positive value.
+     * @return the inverse square root of x.
+     */
+    public static float invSqrt(float x) {
+        float half = 0.5f * x;
+        float y = Float.intBitsToFloat(0x5f3759df - (Float.floatToRawIntBits(x) >> 1));
+        y = y * (1.5f - half * y * y);
+        y = y * (1.5f - half * y * y);
+        return y;
+    }
+
+    /**
+     * Returns the quadrant of a vector from the signs of its components. This agrees with
+     * {@link #quadrant(float)} applied to {@link #angle(float, float)} without computing the angle.
+     * @param vecx the x component of the vector.
+     * @param vecy the y component of the vector, positive down.
+     * @return the quadrant.
+     */
+    public static Quadrant quadrant(float vecx, float vecy) {
+        boolean up = vecy < 0;
+        //the axes belong to the quadrant clockwise before them.
+        boolean left = up ? vecx <= 0 : vecx < 0;
+        return SIGN_QUADRANTS[(up ? 2 : 0) | (left ? 1 : 0)];
+    }
+}
@@ -0,0 +1,44 @@
+package com.devpaul.analogsticklib;
+
+import android.graphics.Paint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fill paints shared by every stick. A paint is created once per color and never changed
+ * afterwards, so screens with many sticks don't build two paints per view.
+ */
+final class StickPaints {
+
+    /**
+     * Default knob color, android.R.color.holo_blue_bright.
+     */
+    static final int DEFAULT_INNER_COLOR = 0xff00ddff;
+
+    /**
+     * Default outer circle color, android.R.color.darker_gray.
+     */
+    static final int DEFAULT_OUTER_COLOR = 0xaaaaaaaa;
+
+    private static final Map<Integer, Paint> FILLS = new HashMap<Integer, Paint>();
+
+    private StickPaints() {
+    }
+
+    /**
+     * Returns the shared fill paint for a color. Callers must not change it.
+     * @param color the color.
+     * @return the paint.
+     */
+    static synchronized Paint fill(int color) {
+        Paint paint = FILLS.get(color);
+        if(paint == null) {
+            paint = new Paint();
+            paint.setStyle(Paint.Style.FILL);
+            paint.setColor(color);
+            FILLS.put(color, paint);
+        }
+        return paint;
+    }
+}
@@ -0,0 +1,163 @@
+package com.devpaul.analogsticklib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back a file written by {@link StickRecorder} through an {@link OnAnalogStateListener},
+ * in real time, sped up or as fast as possible. Wrap an {@link OnAnalogMoveListener} in an
+ * {@link AnalogMoveListenerAdapter} to play back to the legacy listener. Playback runs on the
+ * calling thread and needs nothing from Android, so it works on a plain JVM.
+ */
+public final class StickPlayer implements Closeable {
+
+    /**
+     * Speed for {@link #play(OnAnalogStateListener, float)} that plays without waiting.
+     */
+    public static final float AS_FAST_AS_POSSIBLE = Float.POSITIVE_INFINITY;
+
+    private static final Quadrant[] QUADRANTS = Quadrant.values();
+
+    private final RandomAccessFile file;
+
+    private final MappedByteBuffer buffer;
+
+    private final int count;
+
+    private volatile boolean stopped;
+
+    /**
+     * Thread running the playback, woken by {@link #stop()}.
+     */
+    private volatile Thread playing;
+
+    /**
+     * Opens a recording.
+     * @param file the file written by a {@link StickRecorder}.
+     * @throws IOException if the file can't be read or is not a recording.
+     */
+    public StickPlayer(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        buffer = this.file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, this.file.length());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.capacity() < StickRecorder.HEADER_SIZE
+                || buffer.getInt(0) != StickRecorder.MAGIC) {
+            this.file.close();
+            throw new IOException("Not a stick recording: " + file);
+        }
+        int version = buffer.getInt(4);
+        if(version != StickRecorder.VERSION || buffer.getInt(8) != StickRecorder.RECORD_SIZE) {
+            this.file.close();
+            throw new IOException("Unsupported recording version " + version + ": " + file);
+        }
+        long records = buffer.getLong(StickRecorder.COUNT_OFFSET);
+        long available = (buffer.capacity() - StickRecorder.HEADER_SIZE) / StickRecorder.RECORD_SIZE;
+        count = (int) Math.min(records, available);
+    }
+
+    /**
+     * @return the number of samples in the recording.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Reads one sample.
+     * @param index the index of the sample.
+     * @param into the state to fill, its sequence is set to the index.
+     */
+    public void read(int index, AnalogState into) {
+        if(index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + ", count " + count);
+        }
+        int offset = StickRecorder.HEADER_SIZE + index * StickRecorder.RECORD_SIZE;
+        into.eventTime = buffer.getLong(offset);
+        into.rawX = buffer.getFloat(offset + 8);
+        into.rawY = buffer.getFloat(offset + 12);
+        into.normalizedX = buffer.getFloat(offset + 16);
+        into.normalizedY = buffer.getFloat(offset + 20);
+        into.predictedX = into.normalizedX;
+        into.predictedY = into.normalizedY;
+        into.scaledX = buffer.getFloat(offset + 24);
+        into.scaledY = buffer.getFloat(offset + 28);
+        into.angle = buffer.getFloat(offset + 32);
+        into.magnitude = buffer.getFloat(offset + 36);
+        int quadrant = buffer.get(offset + 40);
+        into.quadrant = quadrant >= 0 ? QUADRANTS[quadrant] : null;
+        into.pressed = buffer.get(offset + 41) != 0;
+        into.changedChannels = buffer.getShort(offset + 42);
+        into.recentering = buffer.get(offset + 44) != 0;
+        into.sequence = index;
+    }
+
+    /**
+     * Plays the whole recording to a listener, keeping the original spacing of the samples divided
+     * by the speed. Returns when all samples were played or {@link #stop()} was called. A sample
+     * whose wait was cut short by the stop is not played.
+     * @param listener the listener to play to.
+     * @param speed 1 for real time, 2 for twice as fast, or {@link #AS_FAST_AS_POSSIBLE}.
+     * @return the number of samples played.
+     */
+    public int play(OnAnalogStateListener listener, float speed) {
+        if(!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        playing = Thread.currentThread();
+        AnalogState state = new AnalogState();
+        boolean paced = !Float.isInfinite(speed);
+        long start = System.nanoTime();
+        long firstTime = 0;
+        int played = 0;
+        for(int i = 0; i < count; i++) {
+            if(stopped) {
+                break;
+            }
+            read(i, state);
+            if(i == 0) {
+                firstTime = state.eventTime;
+            } else if(paced) {
+                long due = start + (long) ((state.eventTime - firstTime) * 1000000.0 / speed);
+                long wait;
+                while((wait = due - System.nanoTime()) > 0 && !stopped) {
+                    LockSupport.parkNanos(this, wait);
+                }
+                if(stopped) {
+                    break;
+                }
+            }
+            listener.onAnalogStateChanged(state);
+            played++;
+        }
+        playing = null;
+        if(played < count) {
+            //the stop was for this playback, later ones play normally.
+            stopped = false;
+        }
+        return played;
+    }
+
+    /**
+     * Stops a playback that is running on another thread. A stop that comes while nothing is
+     * playing is kept and stops the next playback before its first sample, so a stop racing the
+     * start of a playback is never lost.
+     */
+    public void stop() {
+        stopped = true;
+        Thread thread = playing;
+        if(thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
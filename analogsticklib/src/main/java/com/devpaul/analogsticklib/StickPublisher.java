@@ -0,0 +1,363 @@
+package com.devpaul.analogsticklib;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive Streams publisher of the states a stick delivers. Set it on a stick with
+ * {@link AnalogStickCore#setPublisher(StickPublisher)} and it receives the same states as the
+ * listener, after the emission policy.
+ * <p>
+ * Every subscriber gets its own copy of the states, is called on an executor of its choice and
+ * only receives as many states as it requested. What happens to the states that arrive faster
+ * than that is decided per subscriber by an {@link OverflowStrategy}. Publishing only copies the
+ * state and wakes the subscriber's executor when it has demand, so a slow subscriber never slows
+ * down the touch handling or the other subscribers.
+ * <p>
+ * The state passed to {@link Subscriber#onNext(Object)} is reused for the next call, copy it with
+ * {@link AnalogState#set(AnalogState)} to keep it.
+ */
+public class StickPublisher implements Publisher<AnalogState> {
+
+    /**
+     * Wakes sampling subscriptions whose period is over, created on first use.
+     */
+    private static ScheduledExecutorService sampleTimer;
+
+    private static final StickSubscription[] EMPTY = new StickSubscription[0];
+
+    private final Executor defaultExecutor;
+
+    /**
+     * The live subscriptions, replaced on every change so publishing can walk it without locking.
+     */
+    private volatile StickSubscription[] subscriptions = EMPTY;
+
+    private boolean completed;
+
+    /**
+     * Creates a new publisher.
+     * @param defaultExecutor the executor that {@link #subscribe(Subscriber)} delivers on.
+     */
+    public StickPublisher(Executor defaultExecutor) {
+        if(defaultExecutor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.defaultExecutor = defaultExecutor;
+    }
+
+    /**
+     * Subscribes on the default executor, only keeping the latest state.
+     * @param subscriber the subscriber.
+     */
+    @Override
+    public void subscribe(Subscriber<? super AnalogState> subscriber) {
+        subscribe(subscriber, defaultExecutor, OverflowStrategy.conflateLatest());
+    }
+
+    /**
+     * Subscribes with a given executor and overflow strategy.
+     * @param subscriber the subscriber.
+     * @param executor the executor all signals to the subscriber are sent on, one at a time.
+     * @param strategy what to do with states the subscriber has not asked for yet.
+     */
+    public void subscribe(Subscriber<? super AnalogState> subscriber, Executor executor,
+                          OverflowStrategy strategy) {
+        if(subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        if(executor == null || strategy == null) {
+            throw new IllegalArgumentException("Executor and strategy cannot be null");
+        }
+        StickSubscription subscription = new StickSubscription(subscriber, executor, strategy);
+        synchronized (this) {
+            if(completed) {
+                subscription.done = true;
+            } else {
+                StickSubscription[] current = subscriptions;
+                StickSubscription[] next = new StickSubscription[current.length + 1];
+                System.arraycopy(current, 0, next, 0, current.length);
+                next[current.length] = subscription;
+                subscriptions = next;
+            }
+        }
+        //the first run calls onSubscribe.
+        subscription.schedule();
+    }
+
+    /**
+     * Hands a state to every subscriber. Called by the core for every delivered state.
+     * @param state the state.
+     */
+    void publish(AnalogState state) {
+        StickSubscription[] current = subscriptions;
+        for(int i = 0; i < current.length; i++) {
+            current[i].offer(state);
+        }
+    }
+
+    /**
+     * Ends the stream. Every subscriber receives the states it already has and then
+     * {@link Subscriber#onComplete()}, later subscribers are completed right away.
+     */
+    public void complete() {
+        StickSubscription[] current;
+        synchronized (this) {
+            completed = true;
+            current = subscriptions;
+            subscriptions = EMPTY;
+        }
+        for(int i = 0; i < current.length; i++) {
+            current[i].done = true;
+            current[i].schedule();
+        }
+    }
+
+    /**
+     * @return the number of live subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    private synchronized void remove(StickSubscription subscription) {
+        StickSubscription[] current = subscriptions;
+        for(int i = 0; i < current.length; i++) {
+            if(current[i] == subscription) {
+                StickSubscription[] next = new StickSubscription[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, next.length - i);
+                subscriptions = next;
+                return;
+            }
+        }
+    }
+
+    private static synchronized ScheduledExecutorService sampleTimer() {
+        if(sampleTimer == null) {
+            sampleTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "AnalogStickSampler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sampleTimer;
+    }
+
+    /**
+     * One subscriber. States are stored under the subscription's lock by the publishing thread,
+     * all signals are sent from {@link #run()}, which only ever runs once at a time.
+     */
+    private final class StickSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super AnalogState> subscriber;
+
+        private final Executor executor;
+
+        private final OverflowStrategy strategy;
+
+        /**
+         * States waiting for demand, a ring for the buffer strategy and a single slot otherwise.
+         */
+        private final AnalogState[] slots;
+
+        private int head;
+
+        private int size;
+
+        /**
+         * Earliest time the next sample may be delivered.
+         */
+        private long nextSampleTime;
+
+        private boolean timerArmed;
+
+        /**
+         * State handed to the subscriber.
+         */
+        private final AnalogState delivery = new AnalogState();
+
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * Number of times the subscription was woken while running, the drain loop keeps going
+         * until it is back to 0.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final Runnable timerTask = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (StickSubscription.this) {
+                    timerArmed = false;
+                }
+                schedule();
+            }
+        };
+
+        private boolean started;
+
+        private volatile boolean cancelled;
+
+        private volatile boolean done;
+
+        private volatile Throwable error;
+
+        StickSubscription(Subscriber<? super AnalogState> subscriber, Executor executor,
+                          OverflowStrategy strategy) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.strategy = strategy;
+            slots = new AnalogState[strategy.capacity];
+            for(int i = 0; i < slots.length; i++) {
+                slots[i] = new AnalogState();
+            }
+        }
+
+        void offer(AnalogState state) {
+            synchronized (this) {
+                if(strategy.kind == OverflowStrategy.BUFFER) {
+                    if(size == slots.length) {
+                        //full, drop the oldest.
+                        head = (head + 1) % slots.length;
+                        size--;
+                    }
+                    slots[(head + size) % slots.length].set(state);
+                    size++;
+                } else {
+                    slots[0].set(state);
+                    size = 1;
+                }
+            }
+            //without demand the state just waits, no need to wake the executor.
+            if(requested.get() > 0) {
+                schedule();
+            }
+        }
+
+        /**
+         * Takes the next state that may be delivered.
+         * @return false if there is none.
+         */
+        private synchronized boolean take(AnalogState into) {
+            if(size == 0) {
+                return false;
+            }
+            if(strategy.kind == OverflowStrategy.SAMPLE) {
+                long now = System.nanoTime();
+                if(now < nextSampleTime) {
+                    if(!timerArmed) {
+                        timerArmed = true;
+                        sampleTimer().schedule(timerTask, nextSampleTime - now,
+                                TimeUnit.NANOSECONDS);
+                    }
+                    return false;
+                }
+                nextSampleTime = now + strategy.periodNanos;
+            }
+            into.set(slots[head]);
+            head = (head + 1) % slots.length;
+            size--;
+            return true;
+        }
+
+        private synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        void schedule() {
+            if(wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    //the subscriber's executor is gone, nobody can be told anymore.
+                    cancel();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            try {
+                while(true) {
+                    if(!started) {
+                        started = true;
+                        subscriber.onSubscribe(this);
+                    }
+                    drain();
+                    missed = wip.addAndGet(-missed);
+                    if(missed == 0) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                //subscribers must not throw, stop talking to this one.
+                cancel();
+                throw e;
+            }
+        }
+
+        private void drain() {
+            if(cancelled) {
+                return;
+            }
+            Throwable e = error;
+            if(e != null) {
+                cancel();
+                subscriber.onError(e);
+                return;
+            }
+            long demand = requested.get();
+            long emitted = 0;
+            while(emitted != demand && !cancelled && take(delivery)) {
+                subscriber.onNext(delivery);
+                emitted++;
+            }
+            if(emitted > 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if(done && !cancelled && isEmpty()) {
+                cancel();
+                subscriber.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if(n <= 0) {
+                error = new IllegalArgumentException("Request must be positive: " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n;
+                    if(next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while(!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+    }
+}
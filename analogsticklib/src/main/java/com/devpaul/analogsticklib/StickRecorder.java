@@ -0,0 +1,128 @@
+package com.devpaul.analogsticklib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends every processed sample of a stick to a memory mapped file, see
+ * {@link AnalogStickCore#setRecorder(StickRecorder)}. Play the file back with
+ * {@link StickPlayer}.
+ * <p>
+ * The file is a {@link #HEADER_SIZE} byte header followed by fixed width little endian records of
+ * {@link #RECORD_SIZE} bytes: event time (long), raw x and y, normalized x and y, scaled x and y,
+ * angle and magnitude (floats), quadrant ordinal (byte, -1 for none), pressed (byte), changed
+ * channels (short), recentering (byte) and 3 bytes of padding. The header holds a magic number, the format version,
+ * the record size and the number of records, which is updated after every record so the file is
+ * readable even if the app dies while recording.
+ * <p>
+ * The whole file is mapped up front, so recording a sample is a few stores into memory and never
+ * allocates. Samples beyond the capacity are counted and dropped.
+ */
+public final class StickRecorder implements Closeable {
+
+    static final int MAGIC = 0x4153544B;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    static final int RECORD_SIZE = 48;
+
+    /**
+     * Offset of the record count in the header.
+     */
+    static final int COUNT_OFFSET = 12;
+
+    private final RandomAccessFile file;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private int count;
+
+    private long dropped;
+
+    /**
+     * Creates a recorder, replacing any existing file.
+     * @param file the file to record to.
+     * @param capacity the most samples to record.
+     * @throws IOException if the file can't be created or mapped.
+     */
+    public StickRecorder(File file, int capacity) throws IOException {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.file = new RandomAccessFile(file, "rw");
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        this.file.setLength(0);
+        this.file.setLength(size);
+        buffer = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putLong(COUNT_OFFSET, 0);
+    }
+
+    /**
+     * Appends a sample.
+     * @param state the processed sample.
+     * @param pressed whether the stick is held.
+     * @return false if the file is full and the sample was dropped.
+     */
+    public boolean record(AnalogState state, boolean pressed) {
+        if(count == capacity) {
+            dropped++;
+            return false;
+        }
+        int offset = HEADER_SIZE + count * RECORD_SIZE;
+        buffer.putLong(offset, state.eventTime);
+        buffer.putFloat(offset + 8, state.rawX);
+        buffer.putFloat(offset + 12, state.rawY);
+        buffer.putFloat(offset + 16, state.normalizedX);
+        buffer.putFloat(offset + 20, state.normalizedY);
+        buffer.putFloat(offset + 24, state.scaledX);
+        buffer.putFloat(offset + 28, state.scaledY);
+        buffer.putFloat(offset + 32, state.angle);
+        buffer.putFloat(offset + 36, state.magnitude);
+        buffer.put(offset + 40, state.quadrant != null ? (byte) state.quadrant.ordinal() : -1);
+        buffer.put(offset + 41, (byte) (pressed ? 1 : 0));
+        buffer.putShort(offset + 42, (short) state.changedChannels);
+        buffer.put(offset + 44, (byte) (state.recentering ? 1 : 0));
+        count++;
+        buffer.putLong(COUNT_OFFSET, count);
+        return true;
+    }
+
+    /**
+     * @return the number of samples recorded.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of samples dropped because the file was full.
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Writes the recording to storage and closes the file. The file keeps its full capacity, the
+     * header says how many records are valid.
+     * @throws IOException if the file can't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+}
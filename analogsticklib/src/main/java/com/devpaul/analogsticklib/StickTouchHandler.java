@@ -0,0 +1,126 @@
+package com.devpaul.analogsticklib;
+
+import android.view.MotionEvent;
+
+/**
+ * Turns the touch events of a single stick into presses, moves and releases of an
+ * {@link AnalogStickCore}. Only the pointer that pressed the stick can move it, later fingers are
+ * ignored until it is lifted. Used by the stick views and by every stick of an
+ * {@link AnalogStickHost}, where the stick is offset from the origin of the view.
+ * <p>
+ * The handler only reads the MotionEvent action constants, which are compiled in, so it runs on a
+ * plain JVM with a scripted {@link TouchSource}.
+ */
+final class StickTouchHandler {
+
+    /**
+     * Told what the handler did with an event.
+     */
+    interface Callback {
+
+        /**
+         * Called after the samples of a move event were fed into the core.
+         */
+        void onStickMoved();
+
+        /**
+         * Called when the pointer holding the stick went up or the gesture was cancelled. The
+         * core is not released yet, the callback is expected to do it.
+         * @param eventTime the time of the up or cancel event.
+         */
+        void onStickReleased(long eventTime);
+    }
+
+    private final AnalogStickCore core;
+
+    private final Callback callback;
+
+    /**
+     * Id of the pointer holding the stick.
+     */
+    private int activePointerId = MotionEvent.INVALID_POINTER_ID;
+
+    /**
+     * Position of the stick in the view the events come from.
+     */
+    private float offsetX;
+
+    private float offsetY;
+
+    /**
+     * Creates a handler.
+     * @param core the stick to drive.
+     * @param callback told about moves and releases.
+     */
+    StickTouchHandler(AnalogStickCore core, Callback callback) {
+        this.core = core;
+        this.callback = callback;
+    }
+
+    /**
+     * Sets where the stick is in the view the events come from, 0 when it fills the view.
+     * @param offsetX the x offset, subtracted from the x coordinates of the events.
+     * @param offsetY the y offset, subtracted from the y coordinates of the events.
+     */
+    void setOffset(float offsetX, float offsetY) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * Handles one touch event.
+     * @param event the event.
+     * @return always true, the stick consumes every event.
+     */
+    boolean onTouch(TouchSource event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                //only one finger can hold the stick, later fingers are ignored.
+                if(activePointerId == MotionEvent.INVALID_POINTER_ID) {
+                    int index = event.getActionIndex();
+                    //check to see if the inner circle has been touched.
+                    if(core.press((int) (event.getX(index) - offsetX),
+                            (int) (event.getY(index) - offsetY))) {
+                        activePointerId = event.getPointerId(index);
+                    }
+                }
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                if(core.isPressed()) {
+                    int index = event.findPointerIndex(activePointerId);
+                    if(index < 0) {
+                        break;
+                    }
+                    TouchFeeder.move(core, event, index, offsetX, offsetY);
+                    callback.onStickMoved();
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
+                if(event.getPointerId(event.getActionIndex()) == activePointerId) {
+                    //let go of the stick so return it to the center.
+                    activePointerId = MotionEvent.INVALID_POINTER_ID;
+                    callback.onStickReleased(event.getEventTime());
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                if(activePointerId != MotionEvent.INVALID_POINTER_ID) {
+                    activePointerId = MotionEvent.INVALID_POINTER_ID;
+                    callback.onStickReleased(event.getEventTime());
+                }
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * @return the id of the pointer holding the stick, or MotionEvent.INVALID_POINTER_ID.
+     */
+    int getActivePointerId() {
+        return activePointerId;
+    }
+}
@@ -0,0 +1,138 @@
+package com.devpaul.analogsticklib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads packets written by {@link StickWireEncoder} back into samples. Packets must be decoded in
+ * the order they were written. When a packet is missing, the delta samples that follow can't be
+ * rebuilt, so they are skipped until the next keyframe.
+ */
+public final class StickWireDecoder {
+
+    private boolean synced;
+
+    private int expectedSequence;
+
+    private boolean started;
+
+    private int lastX;
+
+    private int lastY;
+
+    private long lastTime;
+
+    private long lostPackets;
+
+    private long skippedSamples;
+
+    /**
+     * Decodes one packet into a batch. The normalized positions, pressed flags, event times,
+     * angles and quadrants are filled in, the raw and scaled values are not sent and are 0.
+     * Samples that do not fit in the batch are counted in {@link AnalogSampleBatch#getDropped()}.
+     * @param in the buffer holding the packet at its position, which is moved past the packet.
+     * @param out the batch to fill.
+     * @return the number of samples decoded.
+     * @throws IllegalArgumentException if the packet has an unknown version.
+     */
+    public int decode(ByteBuffer in, AnalogSampleBatch out) {
+        int version = in.get() & 0xFF;
+        if(version != StickWireEncoder.VERSION) {
+            throw new IllegalArgumentException("Unknown packet version: " + version);
+        }
+        int axisBits = in.get() & 0xFF;
+        float axisMax = (1 << (axisBits - 1)) - 1;
+        int sequence = (int) readVarint(in);
+        int sampleCount = (int) readVarint(in);
+        if(started && sequence != expectedSequence) {
+            lostPackets += (sequence - expectedSequence) & 0xFFFFFFFFL;
+            synced = false;
+        }
+        started = true;
+        expectedSequence = sequence + 1;
+
+        int count = 0;
+        long dropped = 0;
+        for(int i = 0; i < sampleCount; i++) {
+            int flags = in.get();
+            long a = unzigzag(readVarint(in));
+            long b = unzigzag(readVarint(in));
+            long c = unzigzag(readVarint(in));
+            if((flags & StickWireEncoder.FLAG_KEYFRAME) != 0) {
+                lastX = (int) a;
+                lastY = (int) b;
+                lastTime = c;
+                synced = true;
+            } else if(synced) {
+                lastX += (int) a;
+                lastY += (int) b;
+                lastTime += c;
+            } else {
+                skippedSamples++;
+                continue;
+            }
+            if(count == out.capacity) {
+                dropped++;
+                continue;
+            }
+            float x = lastX / axisMax;
+            float y = lastY / axisMax;
+            out.normalizedX[count] = x;
+            out.normalizedY[count] = y;
+            out.pressed[count] = (flags & StickWireEncoder.FLAG_PRESSED) != 0;
+            out.eventTime[count] = lastTime;
+            out.rawX[count] = 0;
+            out.rawY[count] = 0;
+            out.scaledX[count] = 0;
+            out.scaledY[count] = 0;
+            //angles are measured with y positive down like the raw coordinates.
+            float angle = StickMath.angle(x, -y);
+            out.angle[count] = angle;
+            out.quadrant[count] = (byte) StickMath.quadrant(angle).ordinal();
+            count++;
+        }
+        out.count = count;
+        out.dropped = dropped;
+        return count;
+    }
+
+    /**
+     * @return the number of packets that never arrived, judging by the sequence numbers.
+     */
+    public long getLostPackets() {
+        return lostPackets;
+    }
+
+    /**
+     * @return the number of samples skipped while waiting for a keyframe after a lost packet.
+     */
+    public long getSkippedSamples() {
+        return skippedSamples;
+    }
+
+    /**
+     * Forgets the stream so far, for example after reconnecting.
+     */
+    public void reset() {
+        synced = false;
+        started = false;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if(shift > 63) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
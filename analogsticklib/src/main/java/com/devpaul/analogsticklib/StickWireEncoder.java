@@ -0,0 +1,235 @@
+package com.devpaul.analogsticklib;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs stick samples into small binary packets for sending over constrained links. Read them back
+ * with {@link StickWireDecoder}.
+ * <p>
+ * Normalized positions are quantized to a configurable number of bits per axis. Each sample is
+ * stored as the difference from the previous one, zigzag and varint packed, so a slowly moving
+ * stick takes 3 to 4 bytes per sample. Samples that quantize to the same values as the previous
+ * one are left out, except that a full keyframe is written at least every keyframe interval so a
+ * receiver that lost packets can resynchronize.
+ * <p>
+ * Packet layout: version byte, axis bits byte, varint packet sequence, varint sample count, then
+ * per sample a flags byte ({@link #FLAG_KEYFRAME}, {@link #FLAG_PRESSED}) followed by zigzag
+ * varints of x, y and time. Keyframes hold absolute values, other samples hold deltas.
+ * <p>
+ * Nothing is allocated after construction.
+ */
+public final class StickWireEncoder {
+
+    static final int VERSION = 1;
+
+    static final int FLAG_KEYFRAME = 1;
+
+    static final int FLAG_PRESSED = 1 << 1;
+
+    /**
+     * Size of the packet header in the worst case.
+     */
+    static final int MAX_HEADER_SIZE = 2 + 5 + 5;
+
+    /**
+     * Size of a sample in the worst case, a keyframe with a 16 bit position.
+     */
+    static final int MAX_SAMPLE_SIZE = 1 + 3 + 3 + 10;
+
+    private final int axisBits;
+
+    private final int axisMax;
+
+    private final long keyframeInterval;
+
+    private final int maxSamples;
+
+    /**
+     * Encoded samples of the packet being built.
+     */
+    private final byte[] payload;
+
+    private int payloadLength;
+
+    private int sampleCount;
+
+    private int packetSequence;
+
+    private boolean hasPrevious;
+
+    private int lastX;
+
+    private int lastY;
+
+    private boolean lastPressed;
+
+    private long lastTime;
+
+    private long lastKeyframeTime;
+
+    private long suppressed;
+
+    /**
+     * Creates an encoder.
+     * @param axisBits bits per axis, from 2 to 16. 8 bits is a step of under 1% of the radius.
+     * @param keyframeInterval longest time in milliseconds between keyframes.
+     * @param maxSamplesPerPacket the most samples a packet can hold.
+     */
+    public StickWireEncoder(int axisBits, long keyframeInterval, int maxSamplesPerPacket) {
+        if(axisBits < 2 || axisBits > 16) {
+            throw new IllegalArgumentException("Axis bits must be between 2 and 16: " + axisBits);
+        }
+        if(maxSamplesPerPacket <= 0) {
+            throw new IllegalArgumentException("Samples per packet must be positive: "
+                    + maxSamplesPerPacket);
+        }
+        this.axisBits = axisBits;
+        this.axisMax = (1 << (axisBits - 1)) - 1;
+        this.keyframeInterval = keyframeInterval;
+        this.maxSamples = maxSamplesPerPacket;
+        this.payload = new byte[maxSamplesPerPacket * MAX_SAMPLE_SIZE];
+    }
+
+    /**
+     * Returns the largest packet this encoder can produce, for sizing the buffers passed to
+     * {@link #flush(ByteBuffer)}.
+     * @return the maximum packet size in bytes.
+     */
+    public int getMaxPacketSize() {
+        return MAX_HEADER_SIZE + maxSamples * MAX_SAMPLE_SIZE;
+    }
+
+    /**
+     * Adds a sample to the packet, see {@link #add(float, float, boolean, long)}.
+     * @param state the sample, its normalized position, pressed flag and time are sent.
+     * @return true if the sample was added, false if it was left out as unchanged.
+     */
+    public boolean add(AnalogState state) {
+        return add(state.normalizedX, state.normalizedY, state.pressed, state.eventTime);
+    }
+
+    /**
+     * Adds a sample to the packet.
+     * @param x the normalized x position.
+     * @param y the normalized y position.
+     * @param pressed whether the stick is held.
+     * @param eventTime the time of the sample in milliseconds.
+     * @return true if the sample was added, false if it was left out as unchanged.
+     * @throws IllegalStateException if the packet is full, see {@link #isFull()}.
+     */
+    public boolean add(float x, float y, boolean pressed, long eventTime) {
+        if(sampleCount == maxSamples) {
+            throw new IllegalStateException("Packet is full, flush it first");
+        }
+        int qx = quantize(x);
+        int qy = quantize(y);
+        boolean keyframe = !hasPrevious || eventTime - lastKeyframeTime >= keyframeInterval;
+        if(!keyframe && qx == lastX && qy == lastY && pressed == lastPressed) {
+            suppressed++;
+            return false;
+        }
+        int flags = (keyframe ? FLAG_KEYFRAME : 0) | (pressed ? FLAG_PRESSED : 0);
+        payload[payloadLength++] = (byte) flags;
+        if(keyframe) {
+            writeVarint(zigzag(qx));
+            writeVarint(zigzag(qy));
+            writeVarint(zigzag(eventTime));
+            lastKeyframeTime = eventTime;
+        } else {
+            writeVarint(zigzag(qx - lastX));
+            writeVarint(zigzag(qy - lastY));
+            writeVarint(zigzag(eventTime - lastTime));
+        }
+        hasPrevious = true;
+        lastX = qx;
+        lastY = qy;
+        lastPressed = pressed;
+        lastTime = eventTime;
+        sampleCount++;
+        return true;
+    }
+
+    /**
+     * @return true if no more samples fit in the packet.
+     */
+    public boolean isFull() {
+        return sampleCount == maxSamples;
+    }
+
+    /**
+     * @return the number of samples waiting in the packet.
+     */
+    public int getPendingCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return the number of samples left out because they had not changed.
+     */
+    public long getSuppressedCount() {
+        return suppressed;
+    }
+
+    /**
+     * Writes the packet into a buffer and starts a new one. Nothing is written if there are no
+     * samples.
+     * @param out the buffer to write to, starting at its position.
+     * @return the number of bytes written.
+     * @throws BufferOverflowException if the packet does not fit, buffers of
+     * {@link #getMaxPacketSize()} bytes always fit.
+     */
+    public int flush(ByteBuffer out) {
+        if(sampleCount == 0) {
+            return 0;
+        }
+        int start = out.position();
+        if(out.remaining() < MAX_HEADER_SIZE + payloadLength) {
+            throw new BufferOverflowException();
+        }
+        out.put((byte) VERSION);
+        out.put((byte) axisBits);
+        putVarint(out, packetSequence);
+        putVarint(out, sampleCount);
+        out.put(payload, 0, payloadLength);
+        packetSequence++;
+        payloadLength = 0;
+        sampleCount = 0;
+        return out.position() - start;
+    }
+
+    /**
+     * Drops the pending samples and makes the next sample a keyframe, for example after
+     * reconnecting.
+     */
+    public void reset() {
+        payloadLength = 0;
+        sampleCount = 0;
+        hasPrevious = false;
+    }
+
+    private int quantize(float value) {
+        float clamped = Math.max(-1f, Math.min(1f, value));
+        return Math.round(clamped * axisMax);
+    }
+
+    private void writeVarint(long value) {
+        while((value & ~0x7FL) != 0) {
+            payload[payloadLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        payload[payloadLength++] = (byte) value;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
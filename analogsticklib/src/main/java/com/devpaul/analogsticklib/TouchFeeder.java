@@ -0,0 +1,47 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Feeds the samples of a touch event into an {@link AnalogStickCore}.
+ */
+final class TouchFeeder {
+
+    private TouchFeeder() {
+    }
+
+    /**
+     * Moves the stick with one pointer of a move event. The historical samples of the event are
+     * included when the core wants them.
+     * @param core the stick to move.
+     * @param event the move event.
+     * @param pointerIndex the index of the pointer that holds the stick.
+     * @param offsetX offset to subtract from the x coordinates of the event.
+     * @param offsetY offset to subtract from the y coordinates of the event.
+     */
+    static void move(AnalogStickCore core, TouchSource event, int pointerIndex, float offsetX,
+                     float offsetY) {
+        boolean subPixel = core.isSubPixelEnabled();
+        //run the batched historical samples through the same pipeline when they are wanted.
+        int historySize = core.wantsHistory() ? event.getHistorySize() : 0;
+        core.beginSamples(historySize + 1);
+        for(int h = 0; h < historySize; h++) {
+            add(core, subPixel, event.getHistoricalX(pointerIndex, h) - offsetX,
+                    event.getHistoricalY(pointerIndex, h) - offsetY,
+                    event.getHistoricalEventTime(h));
+        }
+        add(core, subPixel, event.getX(pointerIndex) - offsetX,
+                event.getY(pointerIndex) - offsetY, event.getEventTime());
+        core.endSamples();
+    }
+
+    /**
+     * Adds one sample, rounded down to whole pixels unless the core keeps sub-pixel precision.
+     */
+    private static void add(AnalogStickCore core, boolean subPixel, float touchX, float touchY,
+                            long eventTime) {
+        if(subPixel) {
+            core.addSample(touchX, touchY, eventTime);
+        } else {
+            core.addSample((int) touchX, (int) touchY, eventTime);
+        }
+    }
+}
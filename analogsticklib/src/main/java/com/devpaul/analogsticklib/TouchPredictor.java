@@ -0,0 +1,217 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * Extrapolates the knob position a short time ahead to hide the delay of the touch digitizer.
+ * The velocity is a least squares fit over the last few samples, using their real timestamps,
+ * and the prediction is the latest position moved along that velocity for the prediction horizon.
+ * Predictions never leave the unit circle.
+ * <p>
+ * Each prediction is kept until real samples reach its target time, then compared with the
+ * position actually measured at that time. The distance is the prediction error, see
+ * {@link AnalogStickMetrics#getPredictionErrorPercentile(double)}. Predictions are kept at most one
+ * per {@code horizon / 8} milliseconds, so the fixed number of pending slots always covers the
+ * whole horizon and long horizons still get checked at high sample rates.
+ * <p>
+ * History and pending predictions are fixed size so every sample costs the same time and memory.
+ */
+public final class TouchPredictor {
+
+    /**
+     * Number of samples the velocity is fitted over.
+     */
+    static final int HISTORY = 4;
+
+    /**
+     * Number of predictions waiting to be checked against real samples.
+     */
+    private static final int PENDING = 8;
+
+    private final float[] historyX = new float[HISTORY];
+    private final float[] historyY = new float[HISTORY];
+    private final long[] historyTime = new long[HISTORY];
+    private int historyCount;
+    private int historyHead;
+
+    private final float[] pendingX = new float[PENDING];
+    private final float[] pendingY = new float[PENDING];
+    private final long[] pendingTime = new long[PENDING];
+    private int pendingCount;
+    private int pendingHead;
+
+    /**
+     * Sample time of the newest pending prediction.
+     */
+    private long lastPendingTime;
+
+    private long horizon;
+
+    private float predictedX;
+
+    private float predictedY;
+
+    private float lastError;
+
+    /**
+     * Creates a predictor.
+     * @param horizon how far ahead to predict in milliseconds, about the latency to hide.
+     */
+    public TouchPredictor(long horizon) {
+        setHorizon(horizon);
+    }
+
+    /**
+     * @param horizon how far ahead to predict in milliseconds.
+     */
+    public void setHorizon(long horizon) {
+        this.horizon = Math.max(0, horizon);
+    }
+
+    /**
+     * @return how far ahead to predict in milliseconds.
+     */
+    public long getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * Adds a measured sample and predicts ahead from it.
+     * @param x the measured normalized x position.
+     * @param y the measured normalized y position.
+     * @param eventTime the time of the sample in milliseconds.
+     * @param errors histogram to record the error of predictions that came due, or null. Errors
+     *               are distances recorded in millionths of the maximum radius, not durations.
+     */
+    public void add(float x, float y, long eventTime, LatencyHistogram errors) {
+        checkPending(x, y, eventTime, errors);
+
+        historyX[historyHead] = x;
+        historyY[historyHead] = y;
+        historyTime[historyHead] = eventTime;
+        historyHead = (historyHead + 1) % HISTORY;
+        if(historyCount < HISTORY) {
+            historyCount++;
+        }
+
+        predict(x, y);
+        if(horizon > 0 && historyCount > 1 && (pendingCount == 0
+                || eventTime - lastPendingTime >= (horizon + PENDING - 1) / PENDING)) {
+            //remember the prediction so it can be checked once real samples catch up. Spacing
+            //them a slice of the horizon apart means the oldest is due before its slot is needed.
+            lastPendingTime = eventTime;
+            int slot = (pendingHead + pendingCount) % PENDING;
+            if(pendingCount == PENDING) {
+                pendingHead = (pendingHead + 1) % PENDING;
+            } else {
+                pendingCount++;
+            }
+            pendingX[slot] = predictedX;
+            pendingY[slot] = predictedY;
+            pendingTime[slot] = eventTime + horizon;
+        }
+    }
+
+    /**
+     * Fits a velocity to the history and extrapolates from the latest sample.
+     */
+    private void predict(float x, float y) {
+        predictedX = x;
+        predictedY = y;
+        if(historyCount < 2 || horizon == 0) {
+            return;
+        }
+        float meanT = 0;
+        float meanX = 0;
+        float meanY = 0;
+        long base = historyTime[(historyHead + HISTORY - 1) % HISTORY];
+        for(int i = 0; i < historyCount; i++) {
+            meanT += historyTime[i] - base;
+            meanX += historyX[i];
+            meanY += historyY[i];
+        }
+        meanT /= historyCount;
+        meanX /= historyCount;
+        meanY /= historyCount;
+        float stt = 0;
+        float stx = 0;
+        float sty = 0;
+        for(int i = 0; i < historyCount; i++) {
+            float dt = historyTime[i] - base - meanT;
+            stt += dt * dt;
+            stx += dt * (historyX[i] - meanX);
+            sty += dt * (historyY[i] - meanY);
+        }
+        if(stt == 0) {
+            //all samples at the same time, no velocity to go on.
+            return;
+        }
+        predictedX = x + stx / stt * horizon;
+        predictedY = y + sty / stt * horizon;
+        float lengthSquared = predictedX * predictedX + predictedY * predictedY;
+        if(lengthSquared > 1f) {
+            float length = (float) Math.sqrt(lengthSquared);
+            predictedX /= length;
+            predictedY /= length;
+        }
+    }
+
+    /**
+     * Compares the predictions whose target time has been reached with the measured position,
+     * interpolated between the previous and the current sample.
+     */
+    private void checkPending(float x, float y, long eventTime, LatencyHistogram errors) {
+        if(historyCount == 0) {
+            return;
+        }
+        int last = (historyHead + HISTORY - 1) % HISTORY;
+        long previousTime = historyTime[last];
+        float previousX = historyX[last];
+        float previousY = historyY[last];
+        long span = eventTime - previousTime;
+        while(pendingCount > 0 && pendingTime[pendingHead] <= eventTime) {
+            float fraction = span <= 0 ? 1f
+                    : Math.max(0f, (float) (pendingTime[pendingHead] - previousTime) / span);
+            float actualX = previousX + (x - previousX) * fraction;
+            float actualY = previousY + (y - previousY) * fraction;
+            float errorX = pendingX[pendingHead] - actualX;
+            float errorY = pendingY[pendingHead] - actualY;
+            lastError = (float) Math.sqrt(errorX * errorX + errorY * errorY);
+            if(errors != null) {
+                errors.record((long) (lastError * AnalogStickMetrics.PREDICTION_ERROR_SCALE));
+            }
+            pendingHead = (pendingHead + 1) % PENDING;
+            pendingCount--;
+        }
+    }
+
+    /**
+     * @return the predicted normalized x position after the last sample.
+     */
+    public float getX() {
+        return predictedX;
+    }
+
+    /**
+     * @return the predicted normalized y position after the last sample.
+     */
+    public float getY() {
+        return predictedY;
+    }
+
+    /**
+     * @return the error of the last prediction that was checked, as a fraction of the maximum
+     * radius.
+     */
+    public float getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Forgets all history and pending predictions. Called when the stick is grabbed.
+     */
+    public void reset() {
+        historyCount = 0;
+        historyHead = 0;
+        pendingCount = 0;
+        pendingHead = 0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.devpaul.analogsticklib;
+
+/**
+ * The parts of a touch event that the stick reads. {@link MotionEventSource} implements it over a
+ * {@link android.view.MotionEvent}, tests implement it with scripted events so the touch handling
+ * runs on a plain JVM.
+ */
+interface TouchSource {
+
+    /**
+     * @return the action without the pointer index, one of the MotionEvent ACTION_* values.
+     */
+    int getActionMasked();
+
+    /**
+     * @return the index of the pointer that went up or down.
+     */
+    int getActionIndex();
+
+    int getPointerId(int pointerIndex);
+
+    /**
+     * @return the index of the pointer with the id, or -1 if it is not in the event.
+     */
+    int findPointerIndex(int pointerId);
+
+    float getX(int pointerIndex);
+
+    float getY(int pointerIndex);
+
+    long getEventTime();
+
+    int getHistorySize();
+
+    float getHistoricalX(int pointerIndex, int pos);
+
+    float getHistoricalY(int pointerIndex, int pos);
+
+    long getHistoricalEventTime(int pos);
+}
@@ -0,0 +1,132 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Capacity, wrap around and overflow policies of an {@link AnalogSampleRing}.
+ */
+public class AnalogSampleRingTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new AnalogSampleRing(1, AnalogSampleRing.OverflowPolicy.DROP_NEWEST)
+                .getCapacity());
+        assertEquals(8, new AnalogSampleRing(5, AnalogSampleRing.OverflowPolicy.DROP_NEWEST)
+                .getCapacity());
+        assertEquals(8, new AnalogSampleRing(8, AnalogSampleRing.OverflowPolicy.DROP_NEWEST)
+                .getCapacity());
+    }
+
+    @Test
+    public void drainsInOrderAcrossTheWrapAround() {
+        AnalogSampleRing ring = new AnalogSampleRing(4, AnalogSampleRing.OverflowPolicy.DROP_NEWEST);
+        AnalogSampleBatch batch = new AnalogSampleBatch(3);
+        offer(ring, 0, 3);
+        assertEquals(3, ring.drain(batch));
+        //the next samples wrap around the end of the arrays.
+        offer(ring, 3, 4);
+        assertEquals(4, ring.size());
+        assertEquals(3, ring.drain(batch));
+        assertTimes(batch, 3, 4, 5);
+        assertEquals(1, ring.drain(batch));
+        assertTimes(batch, 6);
+        assertEquals(0, ring.drain(batch));
+        assertEquals(0, ring.getDroppedCount());
+    }
+
+    @Test
+    public void dropOldestKeepsTheNewestSamples() {
+        AnalogSampleRing ring = new AnalogSampleRing(4, AnalogSampleRing.OverflowPolicy.DROP_OLDEST);
+        assertTrue(offer(ring, 0, 6));
+        assertEquals(2, ring.getDroppedCount());
+        AnalogSampleBatch batch = new AnalogSampleBatch(8);
+        assertEquals(4, ring.drain(batch));
+        assertTimes(batch, 2, 3, 4, 5);
+        assertEquals(0, batch.getDropped());
+    }
+
+    @Test
+    public void dropNewestKeepsTheOldestSamples() {
+        AnalogSampleRing ring = new AnalogSampleRing(4, AnalogSampleRing.OverflowPolicy.DROP_NEWEST);
+        assertFalse(offer(ring, 0, 6));
+        assertEquals(2, ring.getDroppedCount());
+        AnalogSampleBatch batch = new AnalogSampleBatch(8);
+        assertEquals(4, ring.drain(batch));
+        assertTimes(batch, 0, 1, 2, 3);
+        assertEquals(0, batch.getDropped());
+    }
+
+    @Test
+    public void countAndReportTellsTheNextBatchOnce() {
+        AnalogSampleRing ring = new AnalogSampleRing(4,
+                AnalogSampleRing.OverflowPolicy.COUNT_AND_REPORT);
+        assertFalse(offer(ring, 0, 7));
+        AnalogSampleBatch batch = new AnalogSampleBatch(8);
+        assertEquals(4, ring.drain(batch));
+        assertTimes(batch, 0, 1, 2, 3);
+        assertEquals(3, batch.getDropped());
+
+        offer(ring, 10, 1);
+        assertEquals(1, ring.drain(batch));
+        assertEquals(0, batch.getDropped());
+        assertEquals(3, ring.getDroppedCount());
+    }
+
+    @Test
+    public void copiesEveryField() {
+        AnalogSampleRing ring = new AnalogSampleRing(2, AnalogSampleRing.OverflowPolicy.DROP_NEWEST);
+        AnalogState state = new AnalogState();
+        state.eventTime = 42;
+        state.rawX = 1f;
+        state.rawY = 2f;
+        state.normalizedX = 0.3f;
+        state.normalizedY = 0.4f;
+        state.scaledX = 30f;
+        state.scaledY = 40f;
+        state.angle = 53f;
+        state.quadrant = Quadrant.BOTTOM_LEFT;
+        ring.offer(state, true);
+        state.quadrant = null;
+        ring.offer(state, false);
+
+        AnalogSampleBatch batch = new AnalogSampleBatch(2);
+        assertEquals(2, ring.drain(batch));
+        assertEquals(42, batch.getEventTime()[0]);
+        assertEquals(1f, batch.getRawX()[0], 0f);
+        assertEquals(2f, batch.getRawY()[0], 0f);
+        assertEquals(0.3f, batch.getNormalizedX()[0], 0f);
+        assertEquals(0.4f, batch.getNormalizedY()[0], 0f);
+        assertEquals(30f, batch.getScaledX()[0], 0f);
+        assertEquals(40f, batch.getScaledY()[0], 0f);
+        assertEquals(53f, batch.getAngle()[0], 0f);
+        assertEquals(Quadrant.BOTTOM_LEFT, batch.getQuadrant(0));
+        assertTrue(batch.getPressed()[0]);
+        assertEquals(null, batch.getQuadrant(1));
+        assertFalse(batch.getPressed()[1]);
+    }
+
+    /**
+     * Offers samples with consecutive event times.
+     * @return true if none was dropped.
+     */
+    private static boolean offer(AnalogSampleRing ring, long firstTime, int count) {
+        AnalogState state = new AnalogState();
+        boolean all = true;
+        for(int i = 0; i < count; i++) {
+            state.eventTime = firstTime + i;
+            all &= ring.offer(state, true);
+        }
+        return all;
+    }
+
+    private static void assertTimes(AnalogSampleBatch batch, long... times) {
+        assertEquals(times.length, batch.getCount());
+        for(int i = 0; i < times.length; i++) {
+            assertEquals(times[i], batch.getEventTime()[i]);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * State bookkeeping of an {@link AnalogStickCore} outside of the plain touch path.
+ */
+public class AnalogStickCoreTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    private AnalogStickCore core;
+
+    @Before
+    public void setUp() {
+        core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+    }
+
+    @Test
+    public void settingOneCoordinateKeepsTheStateCoherent() {
+        float maxRadius = core.getMaxRadius();
+        core.setStickX(200 + maxRadius / 2, 10);
+        core.setStickY(200 - maxRadius / 2, 20);
+
+        AnalogState read = new AnalogState();
+        core.readState(read);
+        assertEquals(0.5f, read.getNormalizedX(), EPSILON);
+        assertEquals(0.5f, read.getNormalizedY(), EPSILON);
+        assertEquals(50f, read.getScaledX(), EPSILON);
+        assertEquals(50f, read.getScaledY(), EPSILON);
+        assertEquals(315f, read.getAngle(), EPSILON);
+        assertEquals(Quadrant.TOP_RIGHT, read.getQuadrant());
+        assertEquals(maxRadius * 0.7071f, read.getMagnitude(), 0.01f);
+        assertEquals(20, read.getEventTime());
+
+        //only y moved, so only the scaled y value is reported as changed.
+        AnalogState state = core.getState();
+        assertTrue(state.hasChanged(AnalogState.CHANNEL_SCALED_Y));
+        assertFalse(state.hasChanged(AnalogState.CHANNEL_SCALED_X));
+        assertTrue(state.hasChanged(AnalogState.CHANNEL_ANGLE));
+    }
+
+    @Test
+    public void releaseIsMarkedAtTheTimeOfLettingGo() {
+        AnalogSampleRing ring = new AnalogSampleRing(8, AnalogSampleRing.OverflowPolicy.DROP_NEWEST);
+        core.setSampleRing(ring);
+        assertTrue(core.press(200, 200));
+        core.move(250, 200, 100);
+        core.release(140);
+
+        AnalogSampleBatch batch = new AnalogSampleBatch(8);
+        assertEquals(2, ring.drain(batch));
+        assertEquals(100, batch.getEventTime()[0]);
+        assertTrue(batch.getPressed()[0]);
+        assertEquals(140, batch.getEventTime()[1]);
+        assertFalse(batch.getPressed()[1]);
+    }
+
+    @Test
+    public void recenterStepsReportEveryChannelThatMoved() {
+        final int[] rawCalls = new int[1];
+        core.addOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                rawCalls[0]++;
+            }
+        }, null, AnalogState.CHANNEL_RAW);
+        final int[] legacy = new int[2];
+        core.setOnAnalogStateListener(new AnalogMoveListenerAdapter(new OnAnalogMoveListener() {
+            @Override
+            public void onAnalogMove(float x, float y) {
+                legacy[0]++;
+            }
+
+            @Override
+            public void onAnalogMovedScaledX(float scaledX) {
+                legacy[1]++;
+            }
+
+            @Override
+            public void onAnalogMovedScaledY(float scaledY) {
+            }
+
+            @Override
+            public void onAnalogMovedGetAngle(float angle) {
+            }
+
+            @Override
+            public void onAnalogMovedGetQuadrant(Quadrant quadrant) {
+            }
+        }));
+        assertTrue(core.press(200, 200));
+        core.move(260, 200, 100);
+        core.dispatch(core.getState());
+        core.release(110);
+
+        int steps = 0;
+        boolean running = true;
+        while(running) {
+            running = core.stepRecenter(16, 110 + ++steps * 16);
+            AnalogState state = core.getState();
+            assertTrue(state.isRecentering());
+            assertEquals(AnalogState.CHANNEL_ALL, state.getChangedChannels());
+            core.dispatch(state);
+        }
+        assertEquals(0f, core.getState().getNormalizedX(), 0f);
+        assertEquals(1 + steps, rawCalls[0]);
+        //the legacy listener only hears the scaled values while the knob returns.
+        assertEquals(1, legacy[0]);
+        assertEquals(1 + steps, legacy[1]);
+
+        AnalogState read = new AnalogState();
+        core.readState(read);
+        assertTrue(read.isRecentering());
+        core.press(200, 200);
+        core.move(210, 200, 500);
+        assertFalse(core.getState().isRecentering());
+    }
+
+    @Test
+    public void subPixelSamplesAgreeWithAndWithoutFastMath() {
+        AnalogStickCore exact = new AnalogStickCore();
+        exact.setSize(400, 400);
+        exact.setMaxXValue(100);
+        exact.setMaxYValue(100);
+        core.setFastMathEnabled(true);
+        float[][] points = {{230.25f, 170.5f}, {200.5f, 399.75f}, {12.125f, 201.5f}};
+        for(float[] point : points) {
+            exact.addSample(point[0], point[1], 10);
+            core.addSample(point[0], point[1], 10);
+            AnalogState expected = exact.getState();
+            AnalogState state = core.getState();
+            assertEquals(expected.getRawX(), state.getRawX(), 0.001f);
+            assertEquals(expected.getRawY(), state.getRawY(), 0.001f);
+            assertEquals(expected.getScaledX(), state.getScaledX(), 0.001f);
+            assertEquals(expected.getScaledY(), state.getScaledY(), 0.001f);
+            assertEquals(expected.getAngle(), state.getAngle(), 0.001f);
+            assertEquals(expected.getMagnitude(), state.getMagnitude(), 0.01f);
+            assertEquals(expected.getQuadrant(), state.getQuadrant());
+        }
+    }
+}
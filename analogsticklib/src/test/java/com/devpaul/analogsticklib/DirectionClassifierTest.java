@@ -0,0 +1,102 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Direction mapping and hysteresis of a {@link DirectionClassifier}, and D-pad mode of an
+ * {@link AnalogStickCore}.
+ */
+public class DirectionClassifierTest {
+
+    @Test
+    public void eightWaySectorsAreCenteredOnTheDirections() {
+        DirectionClassifier classifier = new DirectionClassifier(8);
+        assertEquals(Direction.RIGHT, classify(classifier, 0f));
+        assertEquals(Direction.UP_RIGHT, classify(classifier, 45f));
+        assertEquals(Direction.UP, classify(classifier, 90f));
+        assertEquals(Direction.UP_LEFT, classify(classifier, 135f));
+        assertEquals(Direction.LEFT, classify(classifier, 180f));
+        assertEquals(Direction.DOWN_LEFT, classify(classifier, 225f));
+        assertEquals(Direction.DOWN, classify(classifier, 270f));
+        assertEquals(Direction.DOWN_RIGHT, classify(classifier, 315f));
+        //just below the right axis is still right.
+        assertEquals(Direction.RIGHT, classify(classifier, 350f));
+    }
+
+    @Test
+    public void fourWaySectorsOnlyUseTheCardinalDirections() {
+        DirectionClassifier classifier = new DirectionClassifier(4);
+        classifier.setAngularHysteresis(0f);
+        assertEquals(Direction.RIGHT, classify(classifier, 40f));
+        assertEquals(Direction.UP, classify(classifier, 50f));
+        assertEquals(Direction.LEFT, classify(classifier, 200f));
+        assertEquals(Direction.DOWN, classify(classifier, 300f));
+        assertEquals(Direction.RIGHT, classify(classifier, 320f));
+    }
+
+    @Test
+    public void radialHysteresisEngagesAndReleasesAtDifferentRadii() {
+        DirectionClassifier classifier = new DirectionClassifier(8);
+        classifier.setRadii(0.5f, 0.4f);
+        assertEquals(Direction.NONE, classifier.update(0.45f, 0f));
+        assertEquals(Direction.RIGHT, classifier.update(0.55f, 0f));
+        //between the radii the held direction stays.
+        assertEquals(Direction.RIGHT, classifier.update(0.45f, 0f));
+        assertEquals(Direction.NONE, classifier.update(0.35f, 0f));
+        //and from neutral it takes the engage radius again.
+        assertEquals(Direction.NONE, classifier.update(0.45f, 0f));
+    }
+
+    @Test
+    public void angularHysteresisHoldsTheDirectionPastTheSectorEdge() {
+        DirectionClassifier classifier = new DirectionClassifier(8);
+        classifier.setAngularHysteresis(5f);
+        assertEquals(Direction.RIGHT, classify(classifier, 10f));
+        //the edge between right and up right is at 22.5 degrees.
+        assertEquals(Direction.RIGHT, classify(classifier, 26f));
+        assertEquals(Direction.UP_RIGHT, classify(classifier, 28f));
+        //coming back needs the same margin on the other side.
+        assertEquals(Direction.UP_RIGHT, classify(classifier, 19f));
+        assertEquals(Direction.RIGHT, classify(classifier, 17f));
+    }
+
+    @Test
+    public void lettingGoReleasesTheHeldDirection() {
+        AnalogStickCore core = new AnalogStickCore();
+        core.setSize(400, 400);
+        final List<String> events = new ArrayList<String>();
+        core.setOnDirectionListener(new OnDirectionListener() {
+            @Override
+            public void onDirectionPressed(Direction direction) {
+                events.add("pressed " + direction);
+            }
+
+            @Override
+            public void onDirectionReleased(Direction direction) {
+                events.add("released " + direction);
+            }
+        });
+        core.setDirectionClassifier(new DirectionClassifier(4));
+
+        core.press(200, 200);
+        core.move(200, 200 - core.getMaxRadius(), 100);
+        core.dispatch(core.getState());
+        core.release(120);
+        core.dispatch(core.getState());
+
+        assertEquals(2, events.size());
+        assertEquals("pressed UP", events.get(0));
+        assertEquals("released UP", events.get(1));
+        assertEquals(Direction.NONE, core.getDirection());
+    }
+
+    private static Direction classify(DirectionClassifier classifier, float degrees) {
+        double radians = Math.toRadians(degrees);
+        return classifier.update((float) Math.cos(radians), (float) Math.sin(radians));
+    }
+}
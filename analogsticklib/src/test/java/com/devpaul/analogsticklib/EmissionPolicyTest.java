@@ -0,0 +1,149 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Which updates an {@link EmissionPolicy} lets through, on its own and inside an
+ * {@link AnalogStickCore}.
+ */
+public class EmissionPolicyTest {
+
+    private EmissionPolicy policy;
+
+    @Before
+    public void setUp() {
+        policy = new EmissionPolicy();
+    }
+
+    @Test
+    public void channelsAreReportedOnlyPastTheirThreshold() {
+        policy.setMinScaledDelta(5);
+        policy.setMinRawDelta(10);
+        AnalogState state = state(50f, 20f, 0f, Quadrant.TOP_RIGHT);
+        emit(state);
+
+        state = state(53f, 20f, 0f, Quadrant.TOP_RIGHT);
+        state.rawX = 8f;
+        assertEquals(0, policy.mask(state));
+
+        state = state(56f, 20f, 0f, Quadrant.TOP_RIGHT);
+        state.rawX = 12f;
+        assertEquals(AnalogState.CHANNEL_SCALED_X | AnalogState.CHANNEL_RAW, policy.mask(state));
+        emit(state);
+
+        //the threshold is measured from the last reported value, not the last update.
+        state = state(59f, 20f, 0f, Quadrant.TOP_RIGHT);
+        state.rawX = 12f;
+        assertEquals(0, policy.mask(state));
+    }
+
+    @Test
+    public void angleDeltaWrapsAroundFullCircle() {
+        policy.setMinAngleDelta(10);
+        emit(state(0f, 0f, 355f, Quadrant.TOP_RIGHT));
+
+        assertEquals(0, policy.mask(state(0f, 0f, 2f, Quadrant.TOP_RIGHT))
+                & AnalogState.CHANNEL_ANGLE);
+        assertEquals(AnalogState.CHANNEL_ANGLE, policy.mask(state(0f, 0f, 6f, Quadrant.TOP_RIGHT))
+                & AnalogState.CHANNEL_ANGLE);
+        assertEquals(AnalogState.CHANNEL_ANGLE,
+                policy.mask(state(0f, 0f, 340f, Quadrant.TOP_RIGHT)) & AnalogState.CHANNEL_ANGLE);
+    }
+
+    @Test
+    public void quadrantIsReportedOnlyWhenItChanges() {
+        emit(state(10f, 10f, 0f, Quadrant.TOP_RIGHT));
+        assertEquals(0, policy.mask(state(10f, 10f, 0f, Quadrant.TOP_RIGHT))
+                & AnalogState.CHANNEL_QUADRANT);
+        assertEquals(AnalogState.CHANNEL_QUADRANT,
+                policy.mask(state(10f, 10f, 0f, Quadrant.TOP_LEFT)) & AnalogState.CHANNEL_QUADRANT);
+
+        policy.setQuadrantOnChange(false);
+        assertEquals(AnalogState.CHANNEL_QUADRANT,
+                policy.mask(state(10f, 10f, 0f, Quadrant.TOP_RIGHT)) & AnalogState.CHANNEL_QUADRANT);
+    }
+
+    @Test
+    public void restingInTheCenterReportsAnyDifference() {
+        policy.setMinScaledDelta(5);
+        AnalogState state = state(2f, 1f, 0f, Quadrant.TOP_RIGHT);
+        state.normalizedX = 0.02f;
+        state.normalizedY = 0.01f;
+        emit(state);
+
+        //the same small step away from the center is held back...
+        state = state(1f, 1f, 0f, Quadrant.TOP_RIGHT);
+        state.normalizedX = 0.01f;
+        state.normalizedY = 0.01f;
+        assertEquals(0, policy.mask(state));
+
+        //...but coming to rest is always reported.
+        state = state(0f, 0f, 0f, Quadrant.TOP_RIGHT);
+        assertEquals(AnalogState.CHANNEL_SCALED_X | AnalogState.CHANNEL_SCALED_Y,
+                policy.mask(state));
+    }
+
+    @Test
+    public void rateLimitedUpdateIsFlushedOnTheTrailingEdge() {
+        AnalogStickCore core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+        final List<Float> delivered = new ArrayList<Float>();
+        core.setOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                delivered.add(state.getScaledX());
+            }
+        });
+        policy.setMaxRate(10);
+        core.setEmissionPolicy(policy);
+        assertTrue(core.press(200, 200));
+
+        core.move(220, 200, 1000);
+        core.dispatch(core.getState());
+        assertEquals(1, delivered.size());
+        assertEquals(-1, core.getEmissionDeadline());
+
+        core.move(240, 200, 1020);
+        core.dispatch(core.getState());
+        core.move(260, 200, 1040);
+        core.dispatch(core.getState());
+        assertEquals(1, delivered.size());
+        assertEquals(1100, core.getEmissionDeadline());
+
+        //too early, the update keeps waiting.
+        assertTrue(core.flushEmission(1050));
+        assertEquals(1, delivered.size());
+
+        //on the deadline the latest held back state is delivered.
+        assertFalse(core.flushEmission(1100));
+        assertEquals(2, delivered.size());
+        assertEquals(core.getState().getScaledX(), delivered.get(1), 0f);
+        assertEquals(-1, core.getEmissionDeadline());
+    }
+
+    private void emit(AnalogState state) {
+        policy.emitted(state, policy.mask(state), state.eventTime);
+    }
+
+    private static AnalogState state(float scaledX, float scaledY, float angle, Quadrant quadrant) {
+        AnalogState state = new AnalogState();
+        state.scaledX = scaledX;
+        state.scaledY = scaledY;
+        state.normalizedX = scaledX / 100f;
+        state.normalizedY = scaledY / 100f;
+        state.angle = angle;
+        state.quadrant = quadrant;
+        state.changedChannels = AnalogState.CHANNEL_ALL;
+        return state;
+    }
+}
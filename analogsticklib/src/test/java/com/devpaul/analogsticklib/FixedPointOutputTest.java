@@ -0,0 +1,107 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integer output of an {@link AnalogStickCore} with a {@link FixedPointFormat}.
+ */
+public class FixedPointOutputTest {
+
+    private AnalogStickCore core;
+
+    private int calls;
+
+    private int x;
+
+    private int y;
+
+    private int angle;
+
+    private long time;
+
+    @Before
+    public void setUp() {
+        core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setFixedPointFormat(FixedPointFormat.SIGNED_16);
+        core.setOnAnalogFixedPointListener(new OnAnalogFixedPointListener() {
+            @Override
+            public void onAnalogFixedPoint(int fixedX, int fixedY, int fixedAngle, long eventTime) {
+                calls++;
+                x = fixedX;
+                y = fixedY;
+                angle = fixedAngle;
+            }
+        });
+        core.press(200, 200);
+    }
+
+    @Test
+    public void fullDeflectionUsesTheWholeRange() {
+        move(390f, 200f);
+        assertEquals(32767, x);
+        assertEquals(0, y);
+        assertEquals(0, angle);
+
+        //straight up, y is positive up and the angle is clockwise from the x axis.
+        move(200f, 10f);
+        assertEquals(0, x);
+        assertEquals(32767, y);
+        assertEquals(2700, angle);
+
+        move(10f, 200f);
+        assertEquals(-32767, x);
+        assertEquals(1800, angle);
+    }
+
+    @Test
+    public void keepsSubPixelPrecision() {
+        assertTrue(core.isSubPixelEnabled());
+        move(250.1f, 200f);
+        int first = x;
+        move(250.6f, 200f);
+        assertTrue(x > first);
+        assertEquals(Math.round(50.6f / core.getMaxRadius() * 32767), x, 1);
+    }
+
+    @Test
+    public void listenerOnlyHearsChangesAndSnapshotHasTheValues() {
+        move(300f, 150f);
+        move(300f, 150f);
+        assertEquals(1, calls);
+        move(300.5f, 150f);
+        assertEquals(2, calls);
+
+        AnalogState read = new AnalogState();
+        core.readState(read);
+        assertEquals(x, read.getFixedX());
+        assertEquals(y, read.getFixedY());
+        assertEquals(angle, read.getFixedAngle());
+    }
+
+    @Test
+    public void formatRoundsAndWraps() {
+        FixedPointFormat degrees = new FixedPointFormat(127, 360);
+        assertEquals(127, degrees.toAxis(1.5f));
+        assertEquals(-127, degrees.toAxis(-1f));
+        assertEquals(64, degrees.toAxis(0.5f));
+        assertEquals(0, degrees.toAngle(359.7f));
+        assertEquals(90, degrees.toAngle(90.2f));
+
+        core.setFixedPointFormat(null);
+        assertFalse(core.isSubPixelEnabled());
+    }
+
+    private void move(float touchX, float touchY) {
+        time += 8;
+        core.beginSamples(1);
+        core.addSample(touchX, touchY, time);
+        core.endSamples();
+        core.dispatch(core.getState());
+    }
+}
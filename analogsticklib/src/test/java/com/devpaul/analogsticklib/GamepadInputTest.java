@@ -0,0 +1,191 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds synthetic joystick axis streams through a {@link GamepadInput}.
+ */
+public class GamepadInputTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    private AnalogStickCore core;
+
+    private GamepadInput input;
+
+    private AnalogState received;
+
+    private int calls;
+
+    @Before
+    public void setUp() {
+        core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+        core.setOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                received = state;
+                calls++;
+            }
+        });
+        input = new GamepadInput(core);
+    }
+
+    @Test
+    public void axesGoThroughTheStickPipeline() {
+        assertTrue(move(1f, 0f, 10));
+        assertTrue(core.isPressed());
+        assertEquals(1, calls);
+        assertEquals(1f, received.getNormalizedX(), EPSILON);
+        assertEquals(100f, received.getScaledX(), EPSILON);
+        assertEquals(0f, received.getAngle(), EPSILON);
+
+        //up and to the left, past the edge, is clamped to the circle.
+        assertTrue(move(-1f, -1f, 20));
+        assertEquals(1f, received.getMagnitude() / core.getMaxRadius(), EPSILON);
+        assertEquals(-0.7071f, received.getNormalizedX(), EPSILON);
+        assertEquals(0.7071f, received.getNormalizedY(), EPSILON);
+        assertEquals(Quadrant.TOP_LEFT, received.getQuadrant());
+
+        //axis values keep their precision instead of being rounded to pixels.
+        assertTrue(move(0.0012f, 0f, 30));
+        assertEquals(0.12f, received.getScaledX(), EPSILON);
+    }
+
+    @Test
+    public void flatAndFuzzAreApplied() {
+        input.setAxisRanges(0.1f, 0.02f, 0.1f, 0.02f);
+        assertFalse(move(0.05f, -0.08f, 10));
+        assertFalse(core.isPressed());
+
+        assertTrue(move(0.55f, 0f, 20));
+        assertEquals(0.5f, received.getNormalizedX(), EPSILON);
+        //inside the fuzz, ignored.
+        assertFalse(move(0.56f, 0.01f, 30));
+        assertEquals(1, calls);
+
+        //back inside the flat range lets go without animating.
+        assertTrue(move(0.06f, 0f, 40));
+        assertFalse(core.isPressed());
+        assertFalse(input.isEngaged());
+        assertFalse(core.isRecentering());
+        assertEquals(0f, received.getNormalizedX(), EPSILON);
+    }
+
+    @Test
+    public void historicalSamplesAreFed() {
+        AnalogSampleRing ring = new AnalogSampleRing(16, AnalogSampleRing.OverflowPolicy.DROP_OLDEST);
+        core.setSampleRing(ring);
+        SyntheticAxes axes = new SyntheticAxes();
+        axes.add(0.2f, 0f, 4);
+        axes.add(0.4f, 0f, 8);
+        axes.add(0.6f, 0f, 12);
+        axes.add(0.8f, 0f, 16);
+        assertTrue(input.onAxes(axes));
+        core.dispatch(core.getState());
+
+        AnalogSampleBatch batch = new AnalogSampleBatch(16);
+        assertEquals(4, ring.drain(batch));
+        assertEquals(0.2f, batch.getNormalizedX()[0], EPSILON);
+        assertEquals(0.8f, batch.getNormalizedX()[3], EPSILON);
+        assertEquals(0.8f, received.getNormalizedX(), EPSILON);
+    }
+
+    @Test
+    public void touchTakesPrecedence() {
+        assertTrue(core.press(200, 200));
+        assertFalse(move(1f, 0f, 10));
+        core.release(15);
+        core.cancelRecenter();
+        assertTrue(move(1f, 0f, 20));
+
+        //a touch that grabs the knob from the gamepad keeps it.
+        assertTrue(move(0.5f, 0f, 30));
+        float knobX = core.getCenterX() + core.getMaxRadius() / 2;
+        assertTrue(core.press((int) knobX, 200));
+        assertFalse(move(-1f, 0f, 40));
+        assertFalse(input.isEngaged());
+        assertTrue(core.isPressed());
+        assertEquals(0.5f, core.getState().getNormalizedX(), EPSILON);
+
+        //once it lets go the gamepad can take the stick again.
+        core.release(50);
+        core.cancelRecenter();
+        assertTrue(move(-1f, 0f, 60));
+        assertTrue(input.isEngaged());
+        assertEquals(-1f, received.getNormalizedX(), EPSILON);
+    }
+
+    @Test
+    public void fuzzIsMeasuredOnTheRawAxisValues() {
+        //with a wide flat range the stretched values move much more than the raw ones.
+        input.setAxisRanges(0.5f, 0.02f, 0.5f, 0.02f);
+        assertTrue(move(0.6f, 0f, 10));
+        assertEquals(0.2f, received.getNormalizedX(), EPSILON);
+        //0.015 raw is noise even though it is 0.03 after the flat range is taken out.
+        assertFalse(move(0.615f, 0f, 20));
+        assertTrue(move(0.63f, 0f, 30));
+        assertEquals(0.26f, received.getNormalizedX(), EPSILON);
+    }
+
+    private boolean move(float x, float y, long time) {
+        boolean moved = input.move(x, y, time);
+        if(moved) {
+            core.dispatch(core.getState());
+        }
+        return moved;
+    }
+
+    /**
+     * A joystick event whose last sample is the current one and the rest are historical.
+     */
+    private static final class SyntheticAxes implements AxisSource {
+
+        private final float[] x = new float[8];
+
+        private final float[] y = new float[8];
+
+        private final long[] time = new long[8];
+
+        private int count;
+
+        void add(float ax, float ay, long t) {
+            x[count] = ax;
+            y[count] = ay;
+            time[count] = t;
+            count++;
+        }
+
+        @Override
+        public float getAxisValue(int axis) {
+            return axis == 0 ? x[count - 1] : y[count - 1];
+        }
+
+        @Override
+        public float getHistoricalAxisValue(int axis, int pos) {
+            return axis == 0 ? x[pos] : y[pos];
+        }
+
+        @Override
+        public long getEventTime() {
+            return time[count - 1];
+        }
+
+        @Override
+        public int getHistorySize() {
+            return count - 1;
+        }
+
+        @Override
+        public long getHistoricalEventTime(int pos) {
+            return time[pos];
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bucketing, percentiles and resets of a {@link LatencyHistogram} and the prediction error
+ * scaling of {@link AnalogStickMetrics}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void hasSixteenSubBucketsUpToTwoToTheThirtySix() {
+        assertEquals(528, LatencyHistogram.BUCKET_COUNT);
+        //small values each get their own bucket.
+        for(int i = 0; i < 16; i++) {
+            assertEquals(i, LatencyHistogram.bucketOf(i));
+        }
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(31, LatencyHistogram.bucketOf(31));
+        //from 32 on each bucket is two or more values wide.
+        assertEquals(32, LatencyHistogram.bucketOf(32));
+        assertEquals(32, LatencyHistogram.bucketOf(33));
+        assertEquals(33, LatencyHistogram.bucketOf(34));
+        assertEquals(527, LatencyHistogram.bucketOf((1L << 36) - 1));
+        //anything larger lands in the last bucket.
+        assertEquals(527, LatencyHistogram.bucketOf(1L << 36));
+        assertEquals(527, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void bucketsAreContiguousAndWithinSixPercent() {
+        for(int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT - 1; bucket++) {
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            assertEquals(bucket + 1, LatencyHistogram.bucketOf(highest + 1));
+        }
+        for(long value = 1; value < (1L << 36); value = value * 3 / 2 + 1) {
+            long highest = LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value));
+            assertTrue(value + " reported as " + highest,
+                    highest >= value && highest - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void percentilesOfAUniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500500, snapshot.getMean(), 0);
+        assertEquals(1000000, snapshot.getMax());
+        assertEquals(bucketTop(500000), snapshot.getP50());
+        //the buckets of 990000 and 999000 reach past the max.
+        assertTrue(bucketTop(990000) > 1000000);
+        assertEquals(1000000, snapshot.getP99());
+        assertEquals(1000000, snapshot.getP999());
+        assertEquals(1000000, snapshot.getPercentile(100));
+        assertEquals(bucketTop(1000), snapshot.getPercentile(0));
+    }
+
+    @Test
+    public void percentilesOfALongTail() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 0; i < 999; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000000);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        //100 is counted in the bucket from 100 to 103.
+        assertEquals(103, snapshot.getP50());
+        assertEquals(103, snapshot.getP99());
+        assertEquals(103, snapshot.getP999());
+        assertEquals(5000000, snapshot.getPercentile(100));
+        assertEquals(5000000, snapshot.getMax());
+    }
+
+    @Test
+    public void percentilesAreCappedAtTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        //the bucket of 1000 goes up to 1023.
+        assertEquals(1000, histogram.snapshot().getP50());
+        //negative durations count as zero.
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot().getPercentile(50));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.record(1L << 40);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        histogram.reset();
+        //a reused snapshot is overwritten completely.
+        assertTrue(snapshot == histogram.snapshot(snapshot));
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getMean(), 0);
+        assertEquals(0, snapshot.getP999());
+
+        histogram.record(7);
+        assertEquals(7, histogram.snapshot(snapshot).getP50());
+        assertEquals(1, snapshot.getCount());
+    }
+
+    @Test
+    public void predictionErrorsAreReportedAsFractionsOfTheRadius() {
+        AnalogStickMetrics metrics = new AnalogStickMetrics();
+        assertEquals(0f, metrics.getPredictionErrorPercentile(50), 0f);
+        LatencyHistogram errors = metrics.getPredictionErrorHistogram();
+        errors.record((long) (0.02f * AnalogStickMetrics.PREDICTION_ERROR_SCALE));
+        errors.record((long) (0.25f * AnalogStickMetrics.PREDICTION_ERROR_SCALE));
+        assertEquals(2, metrics.getPredictionCount());
+        assertEquals(0.25f, metrics.getMaxPredictionError(), 0.000001f);
+        assertEquals(0.02f, metrics.getPredictionErrorPercentile(50), 0.02f / 16);
+        assertEquals(0.25f, metrics.getPredictionErrorPercentile(100), 0.000001f);
+
+        metrics.reset();
+        assertEquals(0, metrics.getPredictionCount());
+        assertEquals(0f, metrics.getMaxPredictionError(), 0f);
+    }
+
+    /**
+     * Returns the highest value of the bucket a value is counted in.
+     */
+    private static long bucketTop(long value) {
+        return LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value));
+    }
+}
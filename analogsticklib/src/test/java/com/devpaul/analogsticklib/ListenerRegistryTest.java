@@ -0,0 +1,212 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Several listeners on one {@link AnalogStickCore}, inline and on executors.
+ */
+public class ListenerRegistryTest {
+
+    private AnalogStickCore core;
+
+    private long time;
+
+    @Before
+    public void setUp() {
+        core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+        core.press(200, 200);
+    }
+
+    @Test
+    public void throwingListenerDoesNotStopTheOthers() {
+        final RuntimeException failure = new IllegalStateException("broken");
+        CountingListener before = new CountingListener();
+        CountingListener after = new CountingListener();
+        core.addOnAnalogStateListener(before);
+        ListenerRegistration broken = core.addOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                throw failure;
+            }
+        });
+        ListenerRegistration counted = core.addOnAnalogStateListener(after);
+
+        move(250, 200);
+        move(260, 200);
+        assertEquals(2, before.calls);
+        assertEquals(2, after.calls);
+        assertEquals(2, broken.getFailureCount());
+        assertSame(failure, broken.getLastFailure());
+        assertEquals(0, counted.getFailureCount());
+        assertEquals(2, counted.getTime(new HistogramSnapshot()).getCount());
+    }
+
+    @Test
+    public void exceptionsOfTheSetListenerReachTheCaller() {
+        final RuntimeException failure = new IllegalStateException("broken");
+        core.setOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                throw failure;
+            }
+        });
+        try {
+            move(250, 200);
+            fail("the exception was swallowed");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void removingByRegistrationLeavesTheOtherOnesOfTheSameListener() {
+        CountingListener shared = new CountingListener();
+        core.setOnAnalogStateListener(shared);
+        ListenerRegistration first = core.addOnAnalogStateListener(shared);
+        ListenerRegistration second = core.addOnAnalogStateListener(shared);
+        move(250, 200);
+        assertEquals(3, shared.calls);
+
+        assertTrue(core.removeOnAnalogStateListener(second));
+        assertFalse(core.removeOnAnalogStateListener(second));
+        move(260, 200);
+        assertEquals(5, shared.calls);
+
+        //setting another listener only replaces the set one, the added one stays.
+        core.setOnAnalogStateListener(null);
+        move(270, 200);
+        assertEquals(6, shared.calls);
+        assertEquals(3, first.getTime(new HistogramSnapshot()).getCount());
+
+        assertTrue(core.removeOnAnalogStateListener(shared));
+        move(280, 200);
+        assertEquals(6, shared.calls);
+    }
+
+    @Test
+    public void listenersOnlySeeTheirChannels() {
+        CountingListener quadrants = new CountingListener();
+        core.addOnAnalogStateListener(quadrants, null, AnalogState.CHANNEL_QUADRANT);
+        EmissionPolicy policy = new EmissionPolicy();
+        core.setEmissionPolicy(policy);
+
+        //the first move changes the quadrant, the second one stays in it.
+        move(250, 150);
+        move(260, 140);
+        move(150, 140);
+        assertEquals(2, quadrants.calls);
+        assertEquals(AnalogState.CHANNEL_QUADRANT, quadrants.lastChanged);
+    }
+
+    @Test
+    public void channelsNobodyWantsAreNotComputed() {
+        core.setReadChannels(0);
+        CountingListener raw = new CountingListener();
+        core.addOnAnalogStateListener(raw, null, AnalogState.CHANNEL_RAW);
+        move(300, 200);
+        AnalogState state = core.getState();
+        assertEquals(AnalogState.CHANNEL_RAW, state.getChangedChannels());
+        assertEquals(0f, state.getScaledX(), 0f);
+        assertEquals(0f, state.getAngle(), 0f);
+
+        //a listener for the angle brings the angle and quadrant back, the scaled values stay off.
+        ListenerRegistration angles = core.addOnAnalogStateListener(new CountingListener(), null,
+                AnalogState.CHANNEL_ANGLE);
+        move(200, 100);
+        assertEquals(AnalogState.CHANNEL_RAW | AnalogState.CHANNEL_ANGLE
+                | AnalogState.CHANNEL_QUADRANT, state.getChangedChannels());
+        assertEquals(270f, state.getAngle(), 0.001f);
+        assertEquals(0f, state.getScaledY(), 0f);
+
+        assertTrue(core.removeOnAnalogStateListener(angles));
+        move(100, 200);
+        assertEquals(AnalogState.CHANNEL_RAW, state.getChangedChannels());
+        assertEquals(270f, state.getAngle(), 0.001f);
+        assertEquals(3, raw.calls);
+    }
+
+    @Test
+    public void executorListenerGetsLatestState() {
+        QueueExecutor executor = new QueueExecutor();
+        CountingListener slow = new CountingListener();
+        CountingListener inline = new CountingListener();
+        core.setOnAnalogStateListener(inline);
+        core.addOnAnalogStateListener(slow, executor, AnalogState.CHANNEL_ALL);
+
+        for(int i = 1; i <= 5; i++) {
+            move(200 + i * 10, 200);
+        }
+        assertEquals(5, inline.calls);
+        assertEquals(0, slow.calls);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(1, slow.calls);
+        assertEquals(250f, slow.lastRawX, 0.001f);
+
+        //setting a new listener replaces the old one but keeps the added ones.
+        CountingListener replacement = new CountingListener();
+        core.setOnAnalogStateListener(replacement);
+        move(270, 200);
+        executor.runAll();
+        assertEquals(5, inline.calls);
+        assertEquals(1, replacement.calls);
+        assertEquals(2, slow.calls);
+
+        assertTrue(core.removeOnAnalogStateListener(slow));
+        assertFalse(core.removeOnAnalogStateListener(slow));
+        move(280, 200);
+        assertEquals(0, executor.tasks.size());
+    }
+
+    private void move(int x, int y) {
+        time += 8;
+        core.move(x, y, time);
+        core.dispatch(core.getState());
+    }
+
+    private static final class CountingListener implements OnAnalogStateListener {
+
+        int calls;
+
+        int lastChanged;
+
+        float lastRawX;
+
+        @Override
+        public void onAnalogStateChanged(AnalogState state) {
+            calls++;
+            lastChanged = state.getChangedChannels();
+            lastRawX = state.getRawX();
+        }
+    }
+
+    private static final class QueueExecutor implements Executor {
+
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
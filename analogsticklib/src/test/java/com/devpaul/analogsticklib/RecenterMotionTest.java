@@ -0,0 +1,94 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The return to the center of a {@link RecenterMotion} in each {@link RecenterMode}.
+ */
+public class RecenterMotionTest {
+
+    @Test
+    public void tweenFollowsTheCurveAndEndsOnTime() {
+        RecenterMotion motion = new RecenterMotion();
+        motion.setDuration(400);
+        motion.start(100f, -50f);
+        assertTrue(motion.step(200));
+        //halfway through the accelerate decelerate curve is halfway home.
+        assertEquals(50f, motion.getX(), 0.01f);
+        assertEquals(-25f, motion.getY(), 0.01f);
+        assertFalse(motion.step(200));
+        assertEquals(0f, motion.getX(), 0f);
+        assertEquals(0f, motion.getY(), 0f);
+        assertFalse(motion.isRunning());
+        assertFalse(motion.step(16));
+    }
+
+    @Test
+    public void springOvershootsTheCenter() {
+        RecenterMotion motion = new RecenterMotion();
+        motion.setMode(RecenterMode.SPRING);
+        motion.start(100f, 0f);
+        float lowest = Float.MAX_VALUE;
+        int frames = 0;
+        while(motion.step(16)) {
+            lowest = Math.min(lowest, motion.getX());
+            frames++;
+        }
+        assertTrue("Lowest " + lowest, lowest < -1f);
+        assertTrue(frames < 1000);
+        assertEquals(0f, motion.getX(), 0f);
+    }
+
+    @Test
+    public void criticallyDampedNeverOvershoots() {
+        RecenterMotion motion = new RecenterMotion();
+        motion.setMode(RecenterMode.CRITICALLY_DAMPED);
+        motion.start(100f, 100f);
+        float previous = 100f;
+        while(motion.step(16)) {
+            assertTrue(motion.getX() >= 0f);
+            assertTrue(motion.getX() <= previous);
+            previous = motion.getX();
+        }
+        assertEquals(0f, motion.getX(), 0f);
+        assertEquals(0f, motion.getY(), 0f);
+    }
+
+    @Test
+    public void springsDoNotDependOnTheFrameRate() {
+        RecenterMotion fast = new RecenterMotion();
+        fast.setMode(RecenterMode.SPRING);
+        fast.start(100f, 0f);
+        RecenterMotion slow = new RecenterMotion();
+        slow.setMode(RecenterMode.SPRING);
+        slow.start(100f, 0f);
+        for(int i = 0; i < 12; i++) {
+            fast.step(4);
+        }
+        slow.step(48);
+        assertEquals(fast.getX(), slow.getX(), 0.01f);
+
+        //a single huge step stays stable and simply settles.
+        RecenterMotion stalled = new RecenterMotion();
+        stalled.setMode(RecenterMode.SPRING);
+        stalled.start(100f, 0f);
+        assertFalse(stalled.step(10000));
+        assertEquals(0f, stalled.getX(), 0f);
+    }
+
+    @Test
+    public void cancelStopsWhereItIs() {
+        RecenterMotion motion = new RecenterMotion();
+        motion.start(100f, 0f);
+        motion.step(100);
+        float x = motion.getX();
+        motion.cancel();
+        assertFalse(motion.isRunning());
+        assertFalse(motion.step(100));
+        assertEquals(x, motion.getX(), 0f);
+    }
+}
@@ -0,0 +1,104 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Dead zones, saturation and curve shapes of a {@link ResponseCurve}.
+ */
+public class ResponseCurveTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    private ResponseCurve curve;
+
+    @Before
+    public void setUp() {
+        curve = new ResponseCurve();
+    }
+
+    @Test
+    public void defaultCurveIsLinear() {
+        curve.apply(0.3f, -0.4f);
+        assertEquals(0.3f, curve.getOutX(), EPSILON);
+        assertEquals(-0.4f, curve.getOutY(), EPSILON);
+    }
+
+    @Test
+    public void radialDeadZoneOutputsExactlyZeroAndRescalesTheRest() {
+        curve.setRadialDeadZone(0.2f);
+        curve.apply(0.1f, 0.15f);
+        assertEquals(0f, curve.getOutX(), 0f);
+        assertEquals(0f, curve.getOutY(), 0f);
+
+        //halfway between the dead zone and the edge is half the output.
+        curve.apply(0.6f, 0f);
+        assertEquals(0.5f, curve.getOutX(), EPSILON);
+        assertEquals(0f, curve.getOutY(), 0f);
+    }
+
+    @Test
+    public void outerSaturationReachesExactlyTheMaxValue() {
+        curve.setOuterSaturation(0.8f);
+        curve.apply(0f, 0.85f);
+        assertEquals(1f, curve.getOutY(), 0f);
+        curve.apply(0f, -0.4f);
+        assertEquals(-0.5f, curve.getOutY(), EPSILON);
+    }
+
+    @Test
+    public void axialDeadZoneIsolatesOneAxis() {
+        curve.setAxialDeadZone(0.1f);
+        curve.apply(0.8f, 0.05f);
+        assertEquals(0f, curve.getOutY(), 0f);
+        assertTrue(curve.getOutX() > 0.7f);
+        curve.apply(0.55f, -0.55f);
+        //each axis is rescaled from the dead zone to 1.
+        assertEquals(0.5f, curve.getOutX(), EPSILON);
+        assertEquals(-0.5f, curve.getOutY(), EPSILON);
+    }
+
+    @Test
+    public void exponentGivesFinerControlNearTheCenter() {
+        curve.setExponent(2f);
+        curve.apply(0.5f, 0f);
+        assertEquals(0.25f, curve.getOutX(), 0.001f);
+        curve.apply(-1f, 0f);
+        assertEquals(-1f, curve.getOutX(), EPSILON);
+    }
+
+    @Test
+    public void customShapeIsSampledIntoTheTable() {
+        final int[] calls = new int[1];
+        curve.setShape(new ResponseCurve.Shape() {
+            @Override
+            public float map(float input) {
+                calls[0]++;
+                return input < 0.5f ? 0f : 1f;
+            }
+        });
+        assertEquals(ResponseCurve.TABLE_SIZE + 1, calls[0]);
+        curve.apply(0.25f, 0f);
+        curve.apply(0.75f, 0f);
+        assertEquals(1f, curve.getOutX(), EPSILON);
+        //applying never calls the shape again.
+        assertEquals(ResponseCurve.TABLE_SIZE + 1, calls[0]);
+
+        //an exponent replaces the shape.
+        curve.setExponent(1f);
+        curve.apply(0.25f, 0f);
+        assertEquals(0.25f, curve.getOutX(), EPSILON);
+    }
+
+    @Test
+    public void lookupInterpolatesBetweenSteps() {
+        curve.setExponent(2f);
+        float step = 1f / ResponseCurve.TABLE_SIZE;
+        float input = step * 10.5f;
+        float expected = (step * 10 * step * 10 + step * 11 * step * 11) / 2;
+        assertEquals(expected, curve.lookup(input), 0.000001f);
+    }
+}
@@ -0,0 +1,209 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Resets, time handling and tracking of the {@link StickFilter} implementations.
+ */
+public class StickFilterTest {
+
+    @Test
+    public void firstSampleAfterResetPassesThrough() {
+        StickFilter[] filters = {new EmaFilter(50), new KalmanFilter(), new OneEuroFilter(),
+                new FilterChain(new OneEuroFilter(), new EmaFilter(20))};
+        for(StickFilter filter : filters) {
+            String name = filter.getClass().getSimpleName();
+            filter.filter(0.1f, 0.2f, 0);
+            assertEquals(name, 0.1f, filter.getX(), 0f);
+            assertEquals(name, 0.2f, filter.getY(), 0f);
+            filter.filter(0.9f, -0.9f, 16);
+            filter.filter(0.9f, -0.9f, 32);
+
+            filter.reset();
+            filter.filter(-0.5f, 0.7f, 48);
+            assertEquals(name, -0.5f, filter.getX(), 0f);
+            assertEquals(name, 0.7f, filter.getY(), 0f);
+        }
+    }
+
+    @Test
+    public void emaMovesSixtyThreePercentInOneTimeConstant() {
+        //one step, many small steps and uneven steps all cover the same 100ms.
+        long[][] spacings = {{100}, {10, 10, 10, 10, 10, 10, 10, 10, 10, 10}, {1, 49, 3, 30, 17}};
+        for(long[] spacing : spacings) {
+            EmaFilter filter = new EmaFilter(100);
+            filter.filter(0, 0, 0);
+            long time = 0;
+            for(long step : spacing) {
+                time += step;
+                filter.filter(1, -1, time);
+            }
+            float expected = 1f - (float) Math.exp(-1);
+            assertEquals(expected, filter.getX(), 0.0001f);
+            assertEquals(-expected, filter.getY(), 0.0001f);
+        }
+    }
+
+    @Test
+    public void emaIgnoresSamplesWithoutElapsedTime() {
+        EmaFilter filter = new EmaFilter(100);
+        filter.filter(0, 0, 10);
+        filter.filter(1, 1, 10);
+        filter.filter(1, 1, 5);
+        assertEquals(0f, filter.getX(), 0f);
+    }
+
+    @Test
+    public void kalmanFollowsARampWithoutLag() {
+        KalmanFilter filter = new KalmanFilter();
+        EmaFilter ema = new EmaFilter(30);
+        //half the radius per second, one sample per frame.
+        float speed = 0.5f;
+        long time = 0;
+        float position = -0.8f;
+        for(int i = 0; i < 120; i++) {
+            filter.filter(position, -position, time);
+            ema.filter(position, -position, time);
+            time += 16;
+            position += speed * 0.016f;
+        }
+        position -= speed * 0.016f;
+        assertEquals(position, filter.getX(), 0.0005f);
+        assertEquals(-position, filter.getY(), 0.0005f);
+        assertEquals(speed, filter.getVelocityX(), 0.01f);
+        assertEquals(-speed, filter.getVelocityY(), 0.01f);
+        //an average of similar smoothing keeps trailing the ramp by over a frame of movement.
+        assertTrue(position - ema.getX() > 0.01f);
+    }
+
+    @Test
+    public void oneEuroSmoothsJitterMoreAtRestThanInFastMotion() {
+        float atRest = jitterLeft(0);
+        float moving = jitterLeft(4);
+        assertTrue("at rest " + atRest, atRest < 0.2f);
+        assertTrue("at rest " + atRest + ", moving " + moving, moving > 2 * atRest);
+    }
+
+    @Test
+    public void chainRunsFiltersInOrder() {
+        StickFilter doubling = new Scale(2);
+        StickFilter plusOne = new Offset(1);
+        FilterChain chain = new FilterChain(doubling);
+        chain.add(plusOne);
+        assertEquals(2, chain.size());
+        chain.filter(1, 2, 0);
+        //(1 * 2) + 1, not (1 + 1) * 2.
+        assertEquals(3f, chain.getX(), 0f);
+        assertEquals(5f, chain.getY(), 0f);
+
+        StickFilter halve = new Scale(0.5f);
+        chain.add(halve);
+        chain.filter(1, 2, 16);
+        assertEquals(1.5f, chain.getX(), 0f);
+
+        assertTrue(chain.remove(plusOne));
+        assertFalse(chain.remove(plusOne));
+        assertEquals(2, chain.size());
+        chain.filter(3, 4, 32);
+        assertEquals(3f, chain.getX(), 0f);
+        assertEquals(4f, chain.getY(), 0f);
+
+        assertTrue(chain.remove(doubling));
+        assertTrue(chain.remove(halve));
+        chain.filter(3, 4, 48);
+        assertEquals(3f, chain.getX(), 0f);
+    }
+
+    /**
+     * Feeds a One Euro filter a ramp with and without a fixed jitter and returns how much of the
+     * jitter amplitude is left in the output.
+     * @param speed the speed of the ramp in normalized units per second.
+     */
+    private static float jitterLeft(float speed) {
+        OneEuroFilter noisy = new OneEuroFilter();
+        OneEuroFilter clean = new OneEuroFilter();
+        float jitter = 0.01f;
+        float worst = 0;
+        for(int i = 0; i < 60; i++) {
+            long time = i * 8;
+            float position = speed * time / 1000f;
+            float noise = (i & 1) == 0 ? jitter : -jitter;
+            noisy.filter(position + noise, 0, time);
+            clean.filter(position, 0, time);
+            if(i >= 40) {
+                worst = Math.max(worst, Math.abs(noisy.getX() - clean.getX()));
+            }
+        }
+        return worst / jitter;
+    }
+
+    /**
+     * Multiplies both axes, to tell the order of a chain from its output.
+     */
+    private static final class Scale implements StickFilter {
+        private final float factor;
+        private float x;
+        private float y;
+
+        Scale(float factor) {
+            this.factor = factor;
+        }
+
+        @Override
+        public void filter(float x, float y, long eventTime) {
+            this.x = x * factor;
+            this.y = y * factor;
+        }
+
+        @Override
+        public float getX() {
+            return x;
+        }
+
+        @Override
+        public float getY() {
+            return y;
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    /**
+     * Adds to both axes.
+     */
+    private static final class Offset implements StickFilter {
+        private final float offset;
+        private float x;
+        private float y;
+
+        Offset(float offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void filter(float x, float y, long eventTime) {
+            this.x = x + offset;
+            this.y = y + offset;
+        }
+
+        @Override
+        public float getX() {
+            return x;
+        }
+
+        @Override
+        public float getY() {
+            return y;
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+}
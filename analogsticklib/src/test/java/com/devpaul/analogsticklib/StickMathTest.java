@@ -0,0 +1,118 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Holds the trig free math of {@link StickMath} to the error bounds its documentation gives.
+ */
+public class StickMathTest {
+
+    /**
+     * Documented maximum angle error of {@link StickMath#fastAngle(float, float)} in degrees.
+     */
+    private static final double ANGLE_BOUND = 0.0002;
+
+    /**
+     * Documented maximum difference of the clamped position in pixels.
+     */
+    private static final double POSITION_BOUND = 0.001;
+
+    /**
+     * Documented maximum relative error of {@link StickMath#invSqrt(float)}.
+     */
+    private static final double INV_SQRT_BOUND = 5e-6;
+
+    private static final float CENTER = 200;
+
+    private static final int MAX_RADIUS = 130;
+
+    @Test
+    public void fastAngleStaysWithinTheDocumentedBound() {
+        double worst = 0;
+        //every direction on a fine sweep, at a short and a long distance.
+        for(int i = 0; i < 360000; i++) {
+            double radians = Math.toRadians(i / 1000.0);
+            for(int length = 1; length <= 1000; length *= 1000) {
+                float x = (float) (Math.cos(radians) * length);
+                float y = (float) (Math.sin(radians) * length);
+                worst = Math.max(worst, angleError(x, y));
+            }
+        }
+        //and every pixel offset around the stick.
+        for(int x = -300; x <= 300; x++) {
+            for(int y = -300; y <= 300; y++) {
+                worst = Math.max(worst, angleError(x, y));
+            }
+        }
+        assertTrue("max angle error " + worst, worst < ANGLE_BOUND);
+    }
+
+    @Test
+    public void fastMoveMatchesTheExactOne() {
+        AnalogState exact = new AnalogState();
+        AnalogState fast = new AnalogState();
+        double worstPosition = 0;
+        double worstAngle = 0;
+        for(int x = 0; x <= 400; x++) {
+            for(int y = 0; y <= 400; y++) {
+                StickMath.moveStick(x, y, CENTER, CENTER, MAX_RADIUS, 30f, 30f, 0, exact);
+                StickMath.moveStickFast(x, y, CENTER, CENTER, MAX_RADIUS, 30f, 30f, 0, fast);
+                if(exact.magnitude < MAX_RADIUS) {
+                    //inside the circle neither version moves the touch point.
+                    assertEquals(x, fast.rawX, 0f);
+                    assertEquals(y, fast.rawY, 0f);
+                }
+                assertEquals("quadrant at " + x + ", " + y, exact.quadrant, fast.quadrant);
+                worstPosition = Math.max(worstPosition, Math.abs(exact.rawX - fast.rawX));
+                worstPosition = Math.max(worstPosition, Math.abs(exact.rawY - fast.rawY));
+                worstAngle = Math.max(worstAngle, wrappedDifference(exact.angle, fast.angle));
+            }
+        }
+        assertTrue("max position difference " + worstPosition, worstPosition < POSITION_BOUND);
+        assertTrue("max angle difference " + worstAngle, worstAngle < ANGLE_BOUND);
+    }
+
+    @Test
+    public void signQuadrantsAgreeWithTheAngleOnTheAxes() {
+        float[][] vectors = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}, {3, 4}, {-3, 4}, {-3, -4}, {3, -4}};
+        for(float[] v : vectors) {
+            assertEquals(v[0] + ", " + v[1], StickMath.quadrant(StickMath.angle(v[0], v[1])),
+                    StickMath.quadrant(v[0], v[1]));
+        }
+    }
+
+    @Test
+    public void invSqrtStaysWithinTheDocumentedBound() {
+        double worst = 0;
+        for(float x = 0.001f; x < 1e6f; x *= 1.01f) {
+            double exact = 1 / Math.sqrt(x);
+            worst = Math.max(worst, Math.abs(StickMath.invSqrt(x) - exact) / exact);
+        }
+        assertTrue("max relative error " + worst, worst < INV_SQRT_BOUND);
+    }
+
+    /**
+     * Returns how far the fast angle of a vector is from the double precision one, in degrees.
+     */
+    private static double angleError(float x, float y) {
+        if(x == 0 && y == 0) {
+            return 0;
+        }
+        double reference = Math.toDegrees(Math.atan2(y, x));
+        if(reference < 0) {
+            reference += 360;
+        }
+        return wrappedDifference(reference, StickMath.fastAngle(x, y));
+    }
+
+    /**
+     * Difference between two angles in degrees, across the wrap around at 360.
+     */
+    private static double wrappedDifference(double a, double b) {
+        double difference = Math.abs(a - b);
+        return Math.min(difference, 360 - difference);
+    }
+}
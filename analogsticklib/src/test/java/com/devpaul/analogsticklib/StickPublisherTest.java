@@ -0,0 +1,196 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives a {@link StickPublisher} from an {@link AnalogStickCore} with executors that only run
+ * when the test tells them to.
+ */
+public class StickPublisherTest {
+
+    private AnalogStickCore core;
+
+    private StickPublisher publisher;
+
+    private ManualExecutor executor;
+
+    private long time;
+
+    @Before
+    public void setUp() {
+        core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+        executor = new ManualExecutor();
+        publisher = new StickPublisher(executor);
+        core.setPublisher(publisher);
+    }
+
+    @Test
+    public void conflatesToLatestWithoutDemand() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        executor.runAll();
+        assertNotNull(subscriber.subscription);
+
+        core.press(200, 200);
+        for(int i = 1; i <= 10; i++) {
+            move(200 + i * 10, 200);
+        }
+        executor.runAll();
+        assertTrue(subscriber.received.isEmpty());
+
+        subscriber.subscription.request(5);
+        executor.runAll();
+        assertEquals(1, subscriber.received.size());
+        assertEquals(300f, subscriber.received.get(0).getRawX(), 0.001f);
+    }
+
+    @Test
+    public void bufferKeepsNewestInOrder() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber, executor, OverflowStrategy.buffer(3));
+        executor.runAll();
+
+        core.press(200, 200);
+        for(int i = 1; i <= 5; i++) {
+            move(200 + i * 10, 200);
+        }
+        subscriber.subscription.request(2);
+        executor.runAll();
+        assertEquals(2, subscriber.received.size());
+        assertEquals(230f, subscriber.received.get(0).getRawX(), 0.001f);
+        assertEquals(240f, subscriber.received.get(1).getRawX(), 0.001f);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        executor.runAll();
+        assertEquals(3, subscriber.received.size());
+        assertEquals(250f, subscriber.received.get(2).getRawX(), 0.001f);
+    }
+
+    @Test
+    public void subscribersRunAtTheirOwnPace() {
+        ManualExecutor slowExecutor = new ManualExecutor();
+        RecordingSubscriber fast = new RecordingSubscriber();
+        RecordingSubscriber slow = new RecordingSubscriber();
+        publisher.subscribe(fast, executor, OverflowStrategy.buffer(64));
+        publisher.subscribe(slow, slowExecutor, OverflowStrategy.conflateLatest());
+        executor.runAll();
+        slowExecutor.runAll();
+        fast.subscription.request(Long.MAX_VALUE);
+        slow.subscription.request(Long.MAX_VALUE);
+
+        core.press(200, 200);
+        for(int i = 1; i <= 20; i++) {
+            move(200 + i, 200);
+            executor.runAll();
+        }
+        //the slow subscriber was woken once and never got to run.
+        assertEquals(1, slowExecutor.tasks.size());
+        slowExecutor.runAll();
+        assertEquals(20, fast.received.size());
+        assertEquals(1, slow.received.size());
+        assertEquals(220f, slow.received.get(0).getRawX(), 0.001f);
+    }
+
+    @Test
+    public void cancelCompleteAndBadRequests() {
+        RecordingSubscriber cancelled = new RecordingSubscriber();
+        RecordingSubscriber completed = new RecordingSubscriber();
+        RecordingSubscriber failed = new RecordingSubscriber();
+        publisher.subscribe(cancelled);
+        publisher.subscribe(completed);
+        publisher.subscribe(failed);
+        executor.runAll();
+        assertEquals(3, publisher.getSubscriberCount());
+
+        cancelled.subscription.cancel();
+        assertEquals(2, publisher.getSubscriberCount());
+        failed.subscription.request(0);
+        executor.runAll();
+        assertTrue(failed.error instanceof IllegalArgumentException);
+        assertEquals(1, publisher.getSubscriberCount());
+
+        completed.subscription.request(1);
+        core.press(200, 200);
+        move(250, 200);
+        publisher.complete();
+        executor.runAll();
+        assertEquals(1, completed.received.size());
+        assertTrue(completed.completed);
+        assertTrue(cancelled.received.isEmpty());
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    private void move(int x, int y) {
+        time += 8;
+        core.move(x, y, time);
+        core.dispatch(core.getState());
+    }
+
+    /**
+     * Runs the queued tasks only when asked to.
+     */
+    private static final class ManualExecutor implements Executor {
+
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static final class RecordingSubscriber implements Subscriber<AnalogState> {
+
+        final List<AnalogState> received = new ArrayList<AnalogState>();
+
+        Subscription subscription;
+
+        Throwable error;
+
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(AnalogState state) {
+            AnalogState copy = new AnalogState();
+            copy.set(state);
+            received.add(copy);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
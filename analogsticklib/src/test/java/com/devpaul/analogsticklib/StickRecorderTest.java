@@ -0,0 +1,167 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records a session through an {@link AnalogStickCore} and plays it back on the JVM.
+ */
+public class StickRecorderTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("stick", ".rec");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void replaysWhatWasRecorded() throws IOException {
+        final List<AnalogState> live = new ArrayList<AnalogState>();
+        AnalogStickCore core = new AnalogStickCore();
+        core.setSize(400, 400);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+        core.setOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                AnalogState copy = new AnalogState();
+                copy.set(state);
+                live.add(copy);
+            }
+        });
+        StickRecorder recorder = new StickRecorder(file, 1000);
+        core.setRecorder(recorder);
+
+        assertTrue(core.press(200, 200));
+        for(int i = 0; i < 50; i++) {
+            core.move(200 + i * 3, 200 - i * 2, 1000 + i * 8);
+            core.dispatch(core.getState());
+        }
+        core.release(2000);
+        recorder.close();
+        assertEquals(51, recorder.getCount());
+
+        StickPlayer player = new StickPlayer(file);
+        try {
+            assertEquals(51, player.getCount());
+            final List<AnalogState> replayed = new ArrayList<AnalogState>();
+            int played = player.play(new OnAnalogStateListener() {
+                @Override
+                public void onAnalogStateChanged(AnalogState state) {
+                    AnalogState copy = new AnalogState();
+                    copy.set(state);
+                    replayed.add(copy);
+                }
+            }, StickPlayer.AS_FAST_AS_POSSIBLE);
+            assertEquals(51, played);
+            for(int i = 0; i < live.size(); i++) {
+                AnalogState expected = live.get(i);
+                AnalogState actual = replayed.get(i);
+                assertEquals(expected.getEventTime(), actual.getEventTime());
+                assertEquals(expected.getRawX(), actual.getRawX(), 0f);
+                assertEquals(expected.getScaledY(), actual.getScaledY(), 0f);
+                assertEquals(expected.getAngle(), actual.getAngle(), 0f);
+                assertEquals(expected.getQuadrant(), actual.getQuadrant());
+                assertTrue(actual.isPressed());
+            }
+            assertFalse(replayed.get(50).isPressed());
+            assertEquals(2000, replayed.get(50).getEventTime());
+        } finally {
+            player.close();
+        }
+    }
+
+    @Test
+    public void pacesPlaybackBySpeed() throws IOException {
+        StickRecorder recorder = new StickRecorder(file, 10);
+        AnalogState state = new AnalogState();
+        for(int i = 0; i < 11; i++) {
+            state.eventTime = i * 20;
+            recorder.record(state, true);
+        }
+        recorder.close();
+        assertEquals(10, recorder.getCount());
+        assertEquals(1, recorder.getDroppedCount());
+
+        StickPlayer player = new StickPlayer(file);
+        try {
+            OnAnalogStateListener ignore = new OnAnalogStateListener() {
+                @Override
+                public void onAnalogStateChanged(AnalogState state) {
+                }
+            };
+            //180ms of samples at 4x should take about 45ms.
+            long start = System.nanoTime();
+            assertEquals(10, player.play(ignore, 4f));
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            assertTrue("Took " + elapsed + "ms", elapsed >= 44 && elapsed < 1000);
+        } finally {
+            player.close();
+        }
+    }
+
+    @Test
+    public void stopEndsPlaybackWithoutPlayingTheAwaitedSample() throws Exception {
+        StickRecorder recorder = new StickRecorder(file, 10);
+        AnalogState state = new AnalogState();
+        for(int i = 0; i < 3; i++) {
+            state.eventTime = i * 5000;
+            recorder.record(state, true);
+        }
+        recorder.close();
+
+        final StickPlayer player = new StickPlayer(file);
+        try {
+            //a stop while idle stops the next playback.
+            player.stop();
+            assertEquals(0, player.play(new OnAnalogStateListener() {
+                @Override
+                public void onAnalogStateChanged(AnalogState state) {
+                }
+            }, StickPlayer.AS_FAST_AS_POSSIBLE));
+
+            final CountDownLatch first = new CountDownLatch(1);
+            Thread stopper = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        first.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    player.stop();
+                }
+            };
+            stopper.start();
+            //the second sample is 5s away, the stop cuts the wait short and it is not played.
+            long start = System.nanoTime();
+            assertEquals(1, player.play(new OnAnalogStateListener() {
+                @Override
+                public void onAnalogStateChanged(AnalogState state) {
+                    first.countDown();
+                }
+            }, 1f));
+            assertTrue((System.nanoTime() - start) / 1000000 < 4000);
+            stopper.join();
+        } finally {
+            player.close();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips stick samples through {@link StickWireEncoder} and {@link StickWireDecoder}, in
+ * memory and over a {@link Pipe}.
+ */
+public class StickWireTest {
+
+    @Test
+    public void roundTripWithinQuantizationStep() {
+        StickWireEncoder encoder = new StickWireEncoder(10, 1000, 64);
+        StickWireDecoder decoder = new StickWireDecoder();
+        ByteBuffer buffer = ByteBuffer.allocate(encoder.getMaxPacketSize());
+        AnalogSampleBatch batch = new AnalogSampleBatch(64);
+        float step = 1f / ((1 << 9) - 1);
+
+        float[] x = new float[64];
+        float[] y = new float[64];
+        for(int i = 0; i < 64; i++) {
+            x[i] = (float) Math.cos(i * 0.1) * 0.9f;
+            y[i] = (float) Math.sin(i * 0.1) * 0.9f;
+            assertTrue(encoder.add(x[i], y[i], i % 2 == 0, 1000 + i * 7));
+        }
+        assertTrue(encoder.isFull());
+        encoder.flush(buffer);
+        buffer.flip();
+
+        assertEquals(64, decoder.decode(buffer, batch));
+        assertEquals(0, buffer.remaining());
+        for(int i = 0; i < 64; i++) {
+            assertEquals(x[i], batch.getNormalizedX()[i], step / 2 + 1e-6f);
+            assertEquals(y[i], batch.getNormalizedY()[i], step / 2 + 1e-6f);
+            assertEquals(i % 2 == 0, batch.getPressed()[i]);
+            assertEquals(1000 + i * 7, batch.getEventTime()[i]);
+        }
+    }
+
+    @Test
+    public void unchangedSamplesAreSuppressedUntilKeyframe() {
+        StickWireEncoder encoder = new StickWireEncoder(8, 100, 16);
+        assertTrue(encoder.add(0.5f, 0.5f, true, 0));
+        assertFalse(encoder.add(0.5f, 0.5f, true, 10));
+        //a change smaller than a quantization step is not a change.
+        assertFalse(encoder.add(0.501f, 0.5f, true, 20));
+        assertTrue(encoder.add(0.5f, 0.5f, false, 30));
+        assertFalse(encoder.add(0.5f, 0.5f, false, 40));
+        //keyframe is due even though nothing changed.
+        assertTrue(encoder.add(0.5f, 0.5f, false, 100));
+        assertEquals(3, encoder.getPendingCount());
+        assertEquals(3, encoder.getSuppressedCount());
+    }
+
+    @Test
+    public void slowMovementPacksSmall() {
+        StickWireEncoder encoder = new StickWireEncoder(12, 10000, 100);
+        ByteBuffer buffer = ByteBuffer.allocate(encoder.getMaxPacketSize());
+        for(int i = 0; i < 100; i++) {
+            encoder.add(i * 0.001f, -i * 0.001f, true, 5000 + i * 8);
+        }
+        int bytes = encoder.flush(buffer);
+        //one keyframe plus deltas of a flags byte, one byte per axis and one byte of time.
+        assertTrue("Packet was " + bytes + " bytes", bytes <= 20 + 99 * 4);
+    }
+
+    @Test
+    public void lostPacketSkipsDeltasUntilKeyframe() {
+        StickWireEncoder encoder = new StickWireEncoder(8, 50, 4);
+        StickWireDecoder decoder = new StickWireDecoder();
+        ByteBuffer buffer = ByteBuffer.allocate(encoder.getMaxPacketSize());
+        AnalogSampleBatch batch = new AnalogSampleBatch(4);
+        long time = 0;
+
+        //packet 0 arrives.
+        for(int i = 0; i < 4; i++) {
+            encoder.add(i * 0.1f, 0, true, time += 10);
+        }
+        decode(encoder, decoder, buffer, batch);
+        assertEquals(4, batch.getCount());
+
+        //packet 1 is lost, it had the keyframe at 60ms.
+        for(int i = 0; i < 4; i++) {
+            encoder.add(0.4f + i * 0.1f, 0, true, time += 10);
+        }
+        buffer.clear();
+        encoder.flush(buffer);
+
+        //packet 2 starts with deltas, the next keyframe is due at 110ms.
+        encoder.add(0.8f, 0.1f, true, time += 10);
+        encoder.add(0.8f, 0.2f, true, time += 10);
+        encoder.add(0.8f, 0.3f, true, time += 10);
+        encoder.add(0.8f, 0.4f, true, time += 10);
+        decode(encoder, decoder, buffer, batch);
+        assertEquals(1, decoder.getLostPackets());
+        assertEquals(2, decoder.getSkippedSamples());
+        assertEquals(2, batch.getCount());
+        assertEquals(0.3f, batch.getNormalizedY()[0], 0.01f);
+        assertEquals(0.4f, batch.getNormalizedY()[1], 0.01f);
+        assertEquals(time, batch.getEventTime()[1]);
+    }
+
+    @Test
+    public void samplesBeyondBatchCapacityAreDropped() {
+        StickWireEncoder encoder = new StickWireEncoder(8, 1000, 8);
+        StickWireDecoder decoder = new StickWireDecoder();
+        ByteBuffer buffer = ByteBuffer.allocate(encoder.getMaxPacketSize());
+        AnalogSampleBatch batch = new AnalogSampleBatch(5);
+        for(int i = 0; i < 8; i++) {
+            encoder.add(i * 0.1f, 0, true, i);
+        }
+        decode(encoder, decoder, buffer, batch);
+        assertEquals(5, batch.getCount());
+        assertEquals(3, batch.getDropped());
+    }
+
+    @Test
+    public void streamsOverPipe() throws IOException {
+        StickWireEncoder encoder = new StickWireEncoder(10, 100, 32);
+        StickWireDecoder decoder = new StickWireDecoder();
+        ByteBuffer sendBuffer = ByteBuffer.allocate(encoder.getMaxPacketSize());
+        ByteBuffer receiveBuffer = ByteBuffer.allocate(encoder.getMaxPacketSize());
+        ByteBuffer length = ByteBuffer.allocate(2);
+        AnalogSampleBatch batch = new AnalogSampleBatch(32);
+        Pipe pipe = Pipe.open();
+        try {
+            int sent = 0;
+            int received = 0;
+            long time = 0;
+            for(int i = 0; i < 10000; i++) {
+                time += 4 + i % 5;
+                float angle = i * 0.01f;
+                if(encoder.add((float) Math.cos(angle), (float) Math.sin(angle), true, time)) {
+                    sent++;
+                }
+                if(encoder.isFull() || i == 9999) {
+                    //length prefixed packets since the pipe is a byte stream.
+                    sendBuffer.clear();
+                    int bytes = encoder.flush(sendBuffer);
+                    sendBuffer.flip();
+                    length.clear();
+                    length.putShort((short) bytes).flip();
+                    writeFully(pipe.sink(), length);
+                    writeFully(pipe.sink(), sendBuffer);
+
+                    length.clear();
+                    readFully(pipe.source(), length);
+                    receiveBuffer.clear();
+                    receiveBuffer.limit(length.getShort(0));
+                    readFully(pipe.source(), receiveBuffer);
+                    receiveBuffer.flip();
+                    received += decoder.decode(receiveBuffer, batch);
+                }
+            }
+            assertEquals(sent, received);
+            assertEquals(0, decoder.getLostPackets());
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    private static void decode(StickWireEncoder encoder, StickWireDecoder decoder,
+                               ByteBuffer buffer, AnalogSampleBatch batch) {
+        buffer.clear();
+        encoder.flush(buffer);
+        buffer.flip();
+        decoder.decode(buffer, batch);
+    }
+
+    private static void writeFully(Pipe.SinkChannel sink, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            sink.write(buffer);
+        }
+    }
+
+    private static void readFully(Pipe.SourceChannel source, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(source.read(buffer) < 0) {
+                throw new IOException("Pipe closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,626 @@
+package com.devpaul.analogsticklib;
+
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Pushes scripted touch gestures through the same path a stick view uses: the
+ * {@link StickTouchHandler}, the core, the {@link StickDispatcher} of {@link AnalogStick} and the
+ * return to the center. Guards against allocations creeping into the move path and against
+ * throughput regressions.
+ */
+public class TouchPipelineHarnessTest {
+
+    /**
+     * Minimum number of touch events handled per second. Far below what the pipeline does on any
+     * machine, it only catches gross regressions.
+     */
+    private static final double MIN_EVENTS_PER_SECOND = 500000;
+
+    /**
+     * Bytes the measured runs may allocate in total, covers the allocation counter itself.
+     */
+    private static final long ALLOCATION_SLACK = 4096;
+
+    private static final int SIZE = 400;
+
+    private static final int CENTER = SIZE / 2;
+
+    private ScriptedTouch touch;
+
+    private AnalogStickCore core;
+
+    private StickTouchHandler handler;
+
+    private ScriptedHost host;
+
+    private StickDispatcher dispatcher;
+
+    private AnalogSampleBatch batch;
+
+    private AnalogSampleRing ring;
+
+    private CountingListener listener;
+
+    private long time;
+
+    private long events;
+
+    @Before
+    public void setUp() {
+        touch = new ScriptedTouch();
+        core = new AnalogStickCore();
+        core.setSize(SIZE, SIZE);
+        core.setMaxXValue(100);
+        core.setMaxYValue(100);
+        listener = new CountingListener();
+        core.setOnAnalogStateListener(new AnalogMoveListenerAdapter(listener));
+        //the ring makes the feeder walk the historical samples as well.
+        ring = new AnalogSampleRing(256, AnalogSampleRing.OverflowPolicy.DROP_OLDEST);
+        batch = new AnalogSampleBatch(256);
+        core.setSampleRing(ring);
+        host = new ScriptedHost();
+        dispatcher = new StickDispatcher(core, host);
+        handler = new StickTouchHandler(core, new StickTouchHandler.Callback() {
+            @Override
+            public void onStickMoved() {
+                dispatcher.dispatchMove();
+            }
+
+            @Override
+            public void onStickReleased(long eventTime) {
+                core.release(eventTime);
+                dispatcher.startRecenter();
+            }
+        });
+    }
+
+    @Test
+    public void gesturesEndCentered() {
+        drag();
+        assertFalse(core.isPressed());
+        assertEquals(0f, core.getState().normalizedX, 0f);
+        assertEquals(0f, core.getState().normalizedY, 0f);
+        assertTrue(listener.moves > 0);
+
+        multiPointer();
+        assertFalse(core.isPressed());
+        assertEquals(MotionEvent.INVALID_POINTER_ID, handler.getActivePointerId());
+        assertEquals(0f, core.getState().normalizedX, 0f);
+    }
+
+    @Test
+    public void secondPointerDoesNotMoveTheStick() {
+        touch.down(0, CENTER, CENTER, time);
+        handler.onTouch(touch);
+        touch.pointerDown(1, 10, 10, time);
+        handler.onTouch(touch);
+        //only the second finger moves.
+        touch.move(time += 8);
+        touch.setPointer(1, 390, 390);
+        handler.onTouch(touch);
+        assertEquals(0f, core.getState().normalizedX, 0f);
+        assertEquals(0f, core.getState().normalizedY, 0f);
+    }
+
+    @Test
+    public void coalescedMovesReachTheListenerOncePerFrame() {
+        final int[] frames = new int[2];
+        dispatcher.setOnAnalogFrameListener(new OnAnalogFrameListener() {
+            @Override
+            public void onAnalogFrame(AnalogState state, AnalogFrameStats stats) {
+                frames[0]++;
+                frames[1] = stats.getSampleCount();
+            }
+        });
+        dispatcher.setFrameCoalescingEnabled(true);
+
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        touch.move(time += 16);
+        touch.addHistory(CENTER + 10, CENTER, time - 8);
+        touch.setPointer(0, CENTER + 20, CENTER);
+        send();
+        touch.move(time += 4);
+        touch.setPointer(0, CENTER + 30, CENTER);
+        send();
+        assertEquals(0, listener.moves);
+        assertEquals(0, host.invalidations);
+
+        assertTrue(host.runFrame());
+        assertEquals(1, listener.moves);
+        assertEquals(1, frames[0]);
+        assertEquals(1, host.invalidations);
+        //every sample of the frame is counted, the historical one too.
+        assertEquals(3, frames[1]);
+        assertFalse(host.runFrame());
+
+        dispatcher.setFrameCoalescingEnabled(false);
+        touch.move(time += 8);
+        touch.setPointer(0, CENTER + 40, CENTER);
+        send();
+        assertEquals(2, listener.moves);
+        assertEquals(2, host.invalidations);
+        assertFalse(host.runFrame());
+    }
+
+    @Test
+    public void rateLimitedMovesAreFlushedByThePostedAction() {
+        EmissionPolicy policy = new EmissionPolicy();
+        policy.setMaxRate(10);
+        core.setEmissionPolicy(policy);
+
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        touch.move(time += 8);
+        touch.setPointer(0, CENTER + 20, CENTER);
+        send();
+        touch.move(time += 8);
+        touch.setPointer(0, CENTER + 40, CENTER);
+        send();
+        assertEquals(1, listener.moves);
+        //the held back move is posted for the end of the 100ms interval.
+        assertEquals(92, host.delay);
+
+        host.now = time + 92;
+        assertTrue(host.runDelayed());
+        assertEquals(2, listener.moves);
+        assertEquals(CENTER + 40, listener.x, 0f);
+        assertFalse(host.runDelayed());
+
+        dispatcher.cancel();
+        assertEquals(null, host.delayed);
+    }
+
+    @Test
+    public void recenterRunsOnFrameCallbacksUntilCentered() {
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        touch.move(time += 8);
+        touch.setPointer(0, CENTER + 80, CENTER);
+        send();
+        final AnalogState[] last = new AnalogState[1];
+        final int[] steps = new int[1];
+        core.addOnAnalogStateListener(new OnAnalogStateListener() {
+            @Override
+            public void onAnalogStateChanged(AnalogState state) {
+                last[0] = state;
+                steps[0]++;
+            }
+        }, null, AnalogState.CHANNEL_RAW);
+        touch.up(0, time);
+        send();
+        int frames = 0;
+        do {
+            time += 16;
+            frames++;
+        } while(host.runFrame());
+        //one update per frame, the last one centered.
+        assertTrue(frames > 2);
+        assertEquals(frames - 1, steps[0]);
+        assertFalse(core.isRecentering());
+        assertEquals(0f, last[0].getNormalizedX(), 0f);
+        assertEquals(CENTER, last[0].getRawX(), 0f);
+
+        //grabbing the knob on its way back stops the frames.
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        touch.move(time += 8);
+        touch.setPointer(0, CENTER + 80, CENTER);
+        send();
+        touch.up(0, time);
+        send();
+        time += 16;
+        assertTrue(host.runFrame());
+        touch.down(0, core.getStickX(), CENTER, time);
+        send();
+        touch.move(time += 8);
+        send();
+        assertTrue(core.isPressed());
+        assertFalse(host.runFrame());
+    }
+
+    @Test
+    public void moveEventsDoNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        //let the JIT settle first.
+        runAll(20000);
+        long before = threads.getThreadAllocatedBytes(thread);
+        runAll(20000);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < ALLOCATION_SLACK);
+    }
+
+    @Test
+    public void throughputStaysAboveFloor() {
+        runAll(20000);
+        events = 0;
+        long start = System.nanoTime();
+        runAll(50000);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rate = events / seconds;
+        assertTrue("handled " + (long) rate + " events/s", rate >= MIN_EVENTS_PER_SECOND);
+    }
+
+    /**
+     * Runs every gesture the given number of times.
+     */
+    private void runAll(int rounds) {
+        for(int i = 0; i < rounds; i++) {
+            tap();
+            drag();
+            circle();
+            flick();
+            multiPointer();
+            ring.drain(batch);
+        }
+    }
+
+    private void tap() {
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        time += 60;
+        touch.up(0, time);
+        send();
+        recenter();
+    }
+
+    /**
+     * Drags straight to the edge in 20 steps.
+     */
+    private void drag() {
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        for(int i = 1; i <= 20; i++) {
+            touch.move(time += 8);
+            touch.setPointer(0, CENTER + i * 9, CENTER - i * 4);
+            send();
+        }
+        touch.up(0, time);
+        send();
+        recenter();
+    }
+
+    /**
+     * Goes once around the circle, with three historical samples per event.
+     */
+    private void circle() {
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        for(int i = 0; i < 32; i++) {
+            touch.move(time += 16);
+            for(int h = 0; h < 3; h++) {
+                double a = (i * 4 + h) * Math.PI / 64;
+                touch.addHistory((float) (CENTER + 150 * Math.cos(a)),
+                        (float) (CENTER - 150 * Math.sin(a)), time - 12 + h * 4);
+            }
+            double a = (i * 4 + 3) * Math.PI / 64;
+            touch.setPointer(0, (float) (CENTER + 150 * Math.cos(a)),
+                    (float) (CENTER - 150 * Math.sin(a)));
+            send();
+        }
+        touch.up(0, time);
+        send();
+        recenter();
+    }
+
+    /**
+     * Throws the stick past the edge in a couple of events and lets go.
+     */
+    private void flick() {
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        touch.move(time += 4);
+        touch.setPointer(0, CENTER - 120, CENTER + 80);
+        send();
+        touch.move(time += 4);
+        touch.setPointer(0, CENTER - 380, CENTER + 260);
+        send();
+        touch.up(0, time);
+        send();
+        recenter();
+    }
+
+    /**
+     * Holds the stick with one finger while a second one comes and goes, then cancels.
+     */
+    private void multiPointer() {
+        touch.down(0, CENTER, CENTER, time);
+        send();
+        touch.pointerDown(1, 20, 380, time);
+        send();
+        for(int i = 1; i <= 8; i++) {
+            touch.move(time += 8);
+            touch.setPointer(0, CENTER - i * 10, CENTER + i * 10);
+            touch.setPointer(1, 20 + i, 380 - i);
+            send();
+        }
+        touch.pointerUp(1, time);
+        send();
+        touch.move(time += 8);
+        touch.setPointer(0, CENTER + 50, CENTER);
+        send();
+        touch.cancel(time);
+        send();
+        recenter();
+    }
+
+    private void send() {
+        handler.onTouch(touch);
+        events++;
+    }
+
+    /**
+     * Runs the recenter frames the dispatcher posts, 16 milliseconds apart.
+     */
+    private void recenter() {
+        do {
+            time += 16;
+        } while(host.runFrame());
+    }
+
+    /**
+     * Counts the calls of the move listener.
+     */
+    private static final class CountingListener implements OnAnalogMoveListener {
+
+        long moves;
+
+        float x;
+
+        @Override
+        public void onAnalogMove(float x, float y) {
+            moves++;
+            this.x = x;
+        }
+
+        @Override
+        public void onAnalogMovedScaledX(float scaledX) {
+        }
+
+        @Override
+        public void onAnalogMovedScaledY(float scaledY) {
+        }
+
+        @Override
+        public void onAnalogMovedGetAngle(float angle) {
+        }
+
+        @Override
+        public void onAnalogMovedGetQuadrant(Quadrant quadrant) {
+        }
+    }
+
+    /**
+     * Stands in for the view, holding on to what the dispatcher posts until the test runs it.
+     */
+    private final class ScriptedHost implements StickDispatcher.Host {
+
+        Runnable frame;
+
+        Runnable delayed;
+
+        long delay = -1;
+
+        long now;
+
+        int invalidations;
+
+        boolean runFrame() {
+            Runnable action = frame;
+            frame = null;
+            if(action == null) {
+                return false;
+            }
+            action.run();
+            return true;
+        }
+
+        boolean runDelayed() {
+            Runnable action = delayed;
+            delayed = null;
+            if(action == null) {
+                return false;
+            }
+            action.run();
+            return true;
+        }
+
+        @Override
+        public void postDelayed(Runnable action, long delayMillis) {
+            delayed = action;
+            delay = delayMillis;
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action) {
+            frame = action;
+        }
+
+        @Override
+        public void removeCallbacks(Runnable action) {
+            if(action == frame) {
+                frame = null;
+            }
+            if(action == delayed) {
+                delayed = null;
+            }
+        }
+
+        @Override
+        public void invalidateKnob() {
+            invalidations++;
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return now != 0 ? now : time;
+        }
+    }
+
+    /**
+     * A reusable touch event with up to two pointers and a few historical samples for the first
+     * one, rewritten in place for every step of a gesture.
+     */
+    private static final class ScriptedTouch implements TouchSource {
+
+        private static final int MAX_HISTORY = 4;
+
+        private final int[] ids = new int[2];
+
+        private final float[] xs = new float[2];
+
+        private final float[] ys = new float[2];
+
+        private final float[] historyX = new float[MAX_HISTORY];
+
+        private final float[] historyY = new float[MAX_HISTORY];
+
+        private final long[] historyTime = new long[MAX_HISTORY];
+
+        private int action;
+
+        private int actionIndex;
+
+        private int pointerCount;
+
+        private int historySize;
+
+        private long eventTime;
+
+        void down(int id, float x, float y, long time) {
+            pointerCount = 1;
+            ids[0] = id;
+            xs[0] = x;
+            ys[0] = y;
+            set(MotionEvent.ACTION_DOWN, 0, time);
+        }
+
+        void pointerDown(int id, float x, float y, long time) {
+            ids[pointerCount] = id;
+            xs[pointerCount] = x;
+            ys[pointerCount] = y;
+            set(MotionEvent.ACTION_POINTER_DOWN, pointerCount, time);
+            pointerCount++;
+        }
+
+        void pointerUp(int id, long time) {
+            //the pointer is still part of the up event, it is gone from the next one.
+            int index = findPointerIndex(id);
+            set(MotionEvent.ACTION_POINTER_UP, index, time);
+            if(index == 0) {
+                ids[0] = ids[1];
+                xs[0] = xs[1];
+                ys[0] = ys[1];
+            }
+            pointerCount--;
+        }
+
+        void up(int id, long time) {
+            set(MotionEvent.ACTION_UP, findPointerIndex(id), time);
+        }
+
+        void cancel(long time) {
+            set(MotionEvent.ACTION_CANCEL, 0, time);
+        }
+
+        void move(long time) {
+            set(MotionEvent.ACTION_MOVE, 0, time);
+        }
+
+        void setPointer(int id, float x, float y) {
+            int index = findPointerIndex(id);
+            xs[index] = x;
+            ys[index] = y;
+        }
+
+        void addHistory(float x, float y, long time) {
+            historyX[historySize] = x;
+            historyY[historySize] = y;
+            historyTime[historySize] = time;
+            historySize++;
+        }
+
+        private void set(int action, int actionIndex, long time) {
+            this.action = action;
+            this.actionIndex = actionIndex;
+            this.eventTime = time;
+            historySize = 0;
+        }
+
+        @Override
+        public int getActionMasked() {
+            return action;
+        }
+
+        @Override
+        public int getActionIndex() {
+            return actionIndex;
+        }
+
+        @Override
+        public int getPointerId(int pointerIndex) {
+            return ids[pointerIndex];
+        }
+
+        @Override
+        public int findPointerIndex(int pointerId) {
+            for(int i = 0; i < pointerCount; i++) {
+                if(ids[i] == pointerId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public float getX(int pointerIndex) {
+            return xs[pointerIndex];
+        }
+
+        @Override
+        public float getY(int pointerIndex) {
+            return ys[pointerIndex];
+        }
+
+        @Override
+        public long getEventTime() {
+            return eventTime;
+        }
+
+        @Override
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        @Override
+        public float getHistoricalX(int pointerIndex, int pos) {
+            return historyX[pos];
+        }
+
+        @Override
+        public float getHistoricalY(int pointerIndex, int pos) {
+            return historyY[pos];
+        }
+
+        @Override
+        public long getHistoricalEventTime(int pos) {
+            return historyTime[pos];
+        }
+    }
+}
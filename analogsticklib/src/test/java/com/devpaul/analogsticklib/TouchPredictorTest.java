@@ -0,0 +1,38 @@
+package com.devpaul.analogsticklib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prediction and error tracking of a {@link TouchPredictor}.
+ */
+public class TouchPredictorTest {
+
+    @Test
+    public void extrapolatesAlongTheVelocity() {
+        TouchPredictor predictor = new TouchPredictor(16);
+        for(int i = 0; i < 4; i++) {
+            predictor.add(i * 0.01f, 0f, i * 8, null);
+        }
+        //0.01 every 8ms is 0.02 over the horizon.
+        assertEquals(0.05f, predictor.getX(), 0.0001f);
+        assertEquals(0f, predictor.getY(), 0.0001f);
+    }
+
+    @Test
+    public void longHorizonsStillRecordErrors() {
+        AnalogStickMetrics metrics = new AnalogStickMetrics();
+        LatencyHistogram errors = metrics.getPredictionErrorHistogram();
+        //a 100ms horizon at a 4ms sample rate is far more predictions than pending slots.
+        TouchPredictor predictor = new TouchPredictor(100);
+        for(int i = 0; i < 200; i++) {
+            predictor.add(i * 0.001f, 0f, i * 4, errors);
+        }
+        assertTrue(metrics.getPredictionCount() > 0);
+        //the motion is linear so the predictions are close to what was measured.
+        assertTrue(metrics.getMaxPredictionError() < 0.001f);
+        assertEquals(0f, predictor.getLastError(), 0.001f);
+    }
+}
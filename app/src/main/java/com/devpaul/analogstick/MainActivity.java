@@ -7,6 +7,7 @@ import android.view.MenuItem;
 import android.widget.TextView;
 
 import com.devpaul.analogsticklib.AnalogStick;
+import com.devpaul.analogsticklib.EmissionPolicy;
 import com.devpaul.analogsticklib.OnAnalogMoveListener;
 import com.devpaul.analogsticklib.Quadrant;
 
@@ -30,6 +31,13 @@ public class MainActivity extends Activity {
         analogStick = (AnalogStick) findViewById(R.id.analog_stick);
         analogStick.setMaxYValue(30f);
         analogStick.setMaxXValue(30f);
+        //the values are shown as ints so only report whole unit changes, at most 30 times a second.
+        EmissionPolicy policy = new EmissionPolicy();
+        policy.setMinRawDelta(1f);
+        policy.setMinScaledDelta(1f);
+        policy.setMinAngleDelta(1f);
+        policy.setMaxRate(30f);
+        analogStick.setEmissionPolicy(policy);
         analogStick.setOnAnalogMoveListner(new OnAnalogMoveListener() {
             @Override
             public void onAnalogMove(float x, float y) {